@@ -0,0 +1,134 @@
+package com.ecommerce_backend.busqueda;
+
+import com.ecommerce_backend.model.Producto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Búsqueda de productos sobre un IndiceInvertido en memoria (habilitada por defecto).
+ *
+ * - Al arrancar, el índice se construye en una sola pasada sobre productos (cursor de
+ *   base de datos con fetch size fijo, sin materializar entidades ni proyecciones).
+ *   Mientras no está listo, la búsqueda sigue usando la consulta LIKE de la base de datos.
+ * - Crear, editar o eliminar un producto actualiza el índice al hacer commit. Los cambios
+ *   que llegan durante una reconstrucción se reaplican sobre el índice nuevo antes de usarlo.
+ */
+@Component
+@ConditionalOnProperty(prefix = "busqueda.indice", name = "habilitado", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class BuscadorProductos {
+
+    private static final String SQL_TEXTOS = "SELECT id_producto, nombre, categoria, descripcion FROM productos";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    private final Object monitor = new Object();
+    private final List<Consumer<IndiceInvertido>> cambiosDuranteReconstruccion = new ArrayList<>();
+    private boolean reconstruyendo;
+    private volatile IndiceInvertido indice;
+
+    public BuscadorProductos(
+            JdbcTemplate jdbcTemplate,
+            @Value("${busqueda.indice.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isListo() {
+        return indice != null;
+    }
+
+    /**
+     * IDs de los productos que coinciden, de mayor a menor relevancia
+     */
+    public List<Long> buscar(String consulta, int maximo) {
+        return indice.buscar(consulta, maximo);
+    }
+
+    // ============================================================
+    // CONSTRUCCIÓN
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        synchronized (monitor) {
+            reconstruyendo = true;
+            cambiosDuranteReconstruccion.clear();
+        }
+
+        long inicio = System.nanoTime();
+        IndiceInvertido nuevo = new IndiceInvertido();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SQL_TEXTOS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> nuevo.indexar(rs.getLong("id_producto"), rs.getString("nombre"),
+                rs.getString("categoria"), rs.getString("descripcion")));
+
+        synchronized (monitor) {
+            cambiosDuranteReconstruccion.forEach(cambio -> cambio.accept(nuevo));
+            cambiosDuranteReconstruccion.clear();
+            reconstruyendo = false;
+            indice = nuevo;
+        }
+
+        log.info("Índice de búsqueda construido: {} productos en {} ms",
+                nuevo.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ============================================================
+    // ACTUALIZACIÓN INCREMENTAL
+    // ============================================================
+
+    public void indexarTrasCommit(Producto producto) {
+        long id = producto.getIdProducto();
+        String nombre = producto.getNombre();
+        String categoria = producto.getCategoria();
+        String descripcion = producto.getDescripcion();
+        trasCommit(indiceActual -> indiceActual.indexar(id, nombre, categoria, descripcion));
+    }
+
+    public void eliminarTrasCommit(Long idProducto) {
+        trasCommit(indiceActual -> indiceActual.eliminar(idProducto));
+    }
+
+    private void trasCommit(Consumer<IndiceInvertido> cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(cambio);
+                }
+            });
+        } else {
+            aplicar(cambio);
+        }
+    }
+
+    private void aplicar(Consumer<IndiceInvertido> cambio) {
+        synchronized (monitor) {
+            if (reconstruyendo) {
+                cambiosDuranteReconstruccion.add(cambio);
+            }
+            if (indice != null) {
+                cambio.accept(indice);
+            }
+        }
+    }
+}
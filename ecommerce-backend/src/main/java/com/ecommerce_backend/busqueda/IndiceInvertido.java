@@ -0,0 +1,458 @@
+package com.ecommerce_backend.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre, categoría y descripción de los productos.
+ *
+ * - Términos normalizados (minúsculas, sin tildes, sin stopwords) con su peso por producto:
+ *   una aparición en el nombre pesa más que en la categoría, y esta más que en la descripción.
+ * - Trigramas de cada término para encontrar candidatos con errores de tipeo
+ *   (1 error desde 4 letras, 2 desde 8), que se confirman con distancia de edición.
+ * - Vocabulario ordenado para completar prefijos ("celu" encuentra "celular").
+ *
+ * Todos los términos de la consulta deben coincidir (AND). El puntaje es la suma, por término
+ * de la consulta, de factor de coincidencia × idf × peso del término en el producto.
+ *
+ * Es seguro para uso concurrente: las búsquedas comparten un read lock y los cambios
+ * toman el write lock.
+ */
+public final class IndiceInvertido {
+
+    private static final float PESO_NOMBRE = 3f;
+    private static final float PESO_CATEGORIA = 2f;
+    private static final float PESO_DESCRIPCION = 1f;
+
+    /**
+     * Saturación del peso (como k1 en BM25): repetir un término no lo hace dominar el puntaje
+     */
+    private static final float SATURACION = 1.2f;
+
+    private static final float FACTOR_EXACTO = 1f;
+    private static final float FACTOR_PREFIJO = 0.7f;
+    private static final float FACTOR_UN_ERROR = 0.5f;
+    private static final float FACTOR_DOS_ERRORES = 0.3f;
+
+    private static final int LARGO_MINIMO_TERMINO = 2;
+    private static final int LARGO_MINIMO_UN_ERROR = 4;
+    private static final int LARGO_MINIMO_DOS_ERRORES = 8;
+    private static final int MAXIMO_EXPANSIONES_PREFIJO = 200;
+
+    /**
+     * Latin-1 y Latin Extendido-A/B en minúsculas y sin marcas diacríticas ("Á" -> 'a', "ñ" -> 'n')
+     */
+    private static final char[] PLEGADO = new char[0x250];
+
+    static {
+        Pattern diacriticos = Pattern.compile("\\p{M}+");
+        for (char c = 0; c < PLEGADO.length; c++) {
+            String base = diacriticos.matcher(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD)).replaceAll("");
+            PLEGADO[c] = Character.toLowerCase(base.isEmpty() ? c : base.charAt(0));
+        }
+    }
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "del", "la", "las", "el", "los", "un", "una", "unos", "unas", "y", "o", "en",
+            "con", "sin", "para", "por", "que", "al", "se", "su", "sus", "es", "lo", "mas");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Set<String>> terminosPorTrigrama = new HashMap<>();
+    private final NavigableSet<String> vocabulario = new TreeSet<>();
+
+    // Cada producto ocupa un slot: las postings guardan ints en lugar de Longs
+    private final Map<Long, Integer> slotPorId = new HashMap<>();
+    private final Deque<Integer> slotsLibres = new ArrayDeque<>();
+    private long[] idPorSlot = new long[1024];
+    private String[][] terminosPorSlot = new String[1024][];
+    private int siguienteSlot;
+
+    // ============================================================
+    // ACTUALIZACIÓN
+    // ============================================================
+
+    /**
+     * Agrega o reemplaza un producto en el índice
+     */
+    public void indexar(long idProducto, String nombre, String categoria, String descripcion) {
+        Map<String, Float> pesos = new HashMap<>();
+        acumular(pesos, nombre, PESO_NOMBRE);
+        acumular(pesos, categoria, PESO_CATEGORIA);
+        acumular(pesos, descripcion, PESO_DESCRIPCION);
+
+        lock.writeLock().lock();
+        try {
+            quitar(idProducto);
+            int slot = asignarSlot(idProducto);
+            terminosPorSlot[slot] = pesos.keySet().toArray(String[]::new);
+            pesos.forEach((termino, peso) -> postings.computeIfAbsent(termino, this::registrarTermino)
+                    .agregar(slot, peso * (SATURACION + 1) / (peso + SATURACION)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(long idProducto) {
+        lock.writeLock().lock();
+        try {
+            quitar(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return slotPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============================================================
+    // BÚSQUEDA
+    // ============================================================
+
+    /**
+     * IDs de los productos que coinciden con todos los términos de la consulta,
+     * de mayor a menor relevancia (a igual puntaje, por ID)
+     */
+    public List<Long> buscar(String consulta, int maximo) {
+        List<String> tokens = tokenizar(consulta).stream().distinct().toList();
+        if (tokens.isEmpty() || maximo <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Acumuladores densos por slot: sin boxing aunque coincidan decenas de miles de productos
+            float[] total = new float[siguienteSlot];
+            float[] delToken = new float[siguienteSlot];
+            int[] coincidencias = new int[siguienteSlot];
+            int[] tocados = new int[0];
+            int cantidadTocados = 0;
+
+            for (int ronda = 0; ronda < tokens.size(); ronda++) {
+                tocados = new int[Math.max(16, cantidadTocados)];
+                cantidadTocados = 0;
+
+                for (Map.Entry<String, Float> expansion : expandir(tokens.get(ronda)).entrySet()) {
+                    Postings lista = postings.get(expansion.getKey());
+                    float base = expansion.getValue() * (float) Math.log(1 + (double) slotPorId.size() / lista.tamano);
+                    for (int i = 0; i < lista.tamano; i++) {
+                        int slot = lista.slots[i];
+                        // Solo siguen en carrera los productos que coincidieron con todos los tokens anteriores
+                        if (coincidencias[slot] != ronda) {
+                            continue;
+                        }
+                        float puntaje = base * lista.pesos[i];
+                        if (delToken[slot] == 0) {
+                            if (cantidadTocados == tocados.length) {
+                                tocados = Arrays.copyOf(tocados, cantidadTocados * 2);
+                            }
+                            tocados[cantidadTocados++] = slot;
+                        }
+                        delToken[slot] = Math.max(delToken[slot], puntaje);
+                    }
+                }
+
+                if (cantidadTocados == 0) {
+                    return List.of();
+                }
+                for (int i = 0; i < cantidadTocados; i++) {
+                    int slot = tocados[i];
+                    total[slot] += delToken[slot];
+                    delToken[slot] = 0;
+                    coincidencias[slot] = ronda + 1;
+                }
+            }
+            return mejores(total, tocados, cantidadTocados, maximo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Términos del vocabulario que cuentan como coincidencia del token, con su factor
+     */
+    private Map<String, Float> expandir(String token) {
+        Map<String, Float> terminos = new HashMap<>();
+        if (postings.containsKey(token)) {
+            terminos.put(token, FACTOR_EXACTO);
+        }
+
+        int expansiones = 0;
+        for (String termino : vocabulario.subSet(token, false, token + Character.MAX_VALUE, false)) {
+            if (++expansiones > MAXIMO_EXPANSIONES_PREFIJO) {
+                break;
+            }
+            terminos.put(termino, FACTOR_PREFIJO);
+        }
+
+        // Los números (modelos, medidas) no toleran errores: "13" no debe encontrar "14"
+        int maximoErrores = tieneDigitos(token) ? 0
+                : token.length() >= LARGO_MINIMO_DOS_ERRORES ? 2
+                : token.length() >= LARGO_MINIMO_UN_ERROR ? 1 : 0;
+        if (maximoErrores == 0) {
+            return terminos;
+        }
+
+        // Cada error de tipeo altera a lo más 3 trigramas del término
+        Set<String> trigramas = trigramas(token);
+        int minimoCompartidos = Math.max(1, trigramas.size() - 3 * maximoErrores);
+        Map<String, Integer> compartidos = new HashMap<>();
+        for (String trigrama : trigramas) {
+            for (String termino : terminosPorTrigrama.getOrDefault(trigrama, Set.of())) {
+                compartidos.merge(termino, 1, Integer::sum);
+            }
+        }
+
+        compartidos.forEach((termino, cantidad) -> {
+            if (cantidad >= minimoCompartidos && !terminos.containsKey(termino)
+                    && Math.abs(termino.length() - token.length()) <= maximoErrores) {
+                int distancia = distancia(token, termino, maximoErrores);
+                if (distancia == 1) {
+                    terminos.put(termino, FACTOR_UN_ERROR);
+                } else if (distancia == 2) {
+                    terminos.put(termino, FACTOR_DOS_ERRORES);
+                }
+            }
+        });
+        return terminos;
+    }
+
+    private List<Long> mejores(float[] puntajes, int[] slots, int cantidad, int maximo) {
+        // Min-heap con los "maximo" mejores: no ordena todos los resultados
+        PriorityQueue<Integer> heap = new PriorityQueue<>(maximo,
+                (a, b) -> compararRelevancia(puntajes, a, b));
+        for (int i = 0; i < cantidad; i++) {
+            int slot = slots[i];
+            if (heap.size() < maximo) {
+                heap.offer(slot);
+            } else if (compararRelevancia(puntajes, slot, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(slot);
+            }
+        }
+
+        Long[] ids = new Long[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = idPorSlot[heap.poll()];
+        }
+        return Arrays.asList(ids);
+    }
+
+    private int compararRelevancia(float[] puntajes, int a, int b) {
+        int comparacion = Float.compare(puntajes[a], puntajes[b]);
+        return comparacion != 0 ? comparacion : Long.compare(idPorSlot[b], idPorSlot[a]);
+    }
+
+    // ============================================================
+    // ESTRUCTURAS INTERNAS (con el write lock tomado)
+    // ============================================================
+
+    private int asignarSlot(long idProducto) {
+        Integer slot = slotsLibres.poll();
+        if (slot == null) {
+            slot = siguienteSlot++;
+            if (slot == idPorSlot.length) {
+                idPorSlot = Arrays.copyOf(idPorSlot, slot * 2);
+                terminosPorSlot = Arrays.copyOf(terminosPorSlot, slot * 2);
+            }
+        }
+        idPorSlot[slot] = idProducto;
+        slotPorId.put(idProducto, slot);
+        return slot;
+    }
+
+    private void quitar(long idProducto) {
+        Integer slot = slotPorId.remove(idProducto);
+        if (slot == null) {
+            return;
+        }
+        for (String termino : terminosPorSlot[slot]) {
+            Postings lista = postings.get(termino);
+            lista.quitar(slot);
+            if (lista.tamano == 0) {
+                postings.remove(termino);
+                olvidarTermino(termino);
+            }
+        }
+        terminosPorSlot[slot] = null;
+        slotsLibres.push(slot);
+    }
+
+    private Postings registrarTermino(String termino) {
+        vocabulario.add(termino);
+        if (tieneDigitos(termino)) {
+            return new Postings();
+        }
+        for (String trigrama : trigramas(termino)) {
+            terminosPorTrigrama.computeIfAbsent(trigrama, t -> new HashSet<>()).add(termino);
+        }
+        return new Postings();
+    }
+
+    private void olvidarTermino(String termino) {
+        vocabulario.remove(termino);
+        if (tieneDigitos(termino)) {
+            return;
+        }
+        for (String trigrama : trigramas(termino)) {
+            Set<String> terminos = terminosPorTrigrama.get(trigrama);
+            terminos.remove(termino);
+            if (terminos.isEmpty()) {
+                terminosPorTrigrama.remove(trigrama);
+            }
+        }
+    }
+
+    /**
+     * Productos (slots) que contienen un término, con su peso. Quitar es O(n), pero
+     * solo ocurre al editar o eliminar un producto.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private float[] pesos = new float[4];
+        private int tamano;
+
+        void agregar(int slot, float peso) {
+            if (tamano == slots.length) {
+                slots = Arrays.copyOf(slots, tamano * 2);
+                pesos = Arrays.copyOf(pesos, tamano * 2);
+            }
+            slots[tamano] = slot;
+            pesos[tamano] = peso;
+            tamano++;
+        }
+
+        void quitar(int slot) {
+            for (int i = 0; i < tamano; i++) {
+                if (slots[i] == slot) {
+                    tamano--;
+                    slots[i] = slots[tamano];
+                    pesos[i] = pesos[tamano];
+                    return;
+                }
+            }
+        }
+    }
+
+    // ============================================================
+    // TEXTO
+    // ============================================================
+
+    /**
+     * Minúsculas sin tildes ni diéresis; el resto de los caracteres separa términos
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+
+        char[] plegado = new char[texto.length()];
+        for (int i = 0; i < plegado.length; i++) {
+            plegado[i] = plegar(texto.charAt(i));
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int inicio = -1;
+        for (int i = 0; i <= plegado.length; i++) {
+            char c = i < plegado.length ? plegado[i] : ' ';
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (inicio < 0) {
+                    inicio = i;
+                }
+            } else if (inicio >= 0) {
+                if (i - inicio >= LARGO_MINIMO_TERMINO) {
+                    String termino = new String(plegado, inicio, i - inicio);
+                    if (!STOPWORDS.contains(termino)) {
+                        tokens.add(termino);
+                    }
+                }
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static char plegar(char c) {
+        return c < PLEGADO.length ? PLEGADO[c] : Character.toLowerCase(c);
+    }
+
+    private static boolean tieneDigitos(String termino) {
+        for (int i = 0; i < termino.length(); i++) {
+            if (Character.isDigit(termino.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void acumular(Map<String, Float> pesos, String texto, float peso) {
+        for (String token : tokenizar(texto)) {
+            pesos.merge(token, peso, Float::sum);
+        }
+    }
+
+    /**
+     * Trigramas del término con bordes marcados ("^ce", "cel", ..., "ar$")
+     */
+    private static Set<String> trigramas(String termino) {
+        String conBordes = "^" + termino + "$";
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= conBordes.length(); i++) {
+            trigramas.add(conBordes.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    /**
+     * Distancia de edición con transposiciones (Damerau-Levenshtein restringida).
+     * Corta apenas supera el máximo y en ese caso retorna maximo + 1.
+     */
+    static int distancia(String a, String b, int maximo) {
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    actual[j] = Math.min(actual[j], anterior2[j - 2] + 1);
+                }
+                minimoFila = Math.min(minimoFila, actual[j]);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] reciclado = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = reciclado;
+        }
+        return Math.min(anterior[b.length()], maximo + 1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.ecommerce_backend.cache;
+
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.dto.ProductoResponseDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache en memoria de las lecturas del catálogo (producto por ID y páginas de productos).
+ *
+ * - Expulsión por tamaño y por tiempo (catalogo.cache.*)
+ * - Invalidación tras el commit de cada cambio de producto: solo se descartan el
+ *   producto y las páginas cuyo rango de IDs lo incluye (una página cubre los IDs
+ *   entre su cursor y su último producto; la última página, hasta el infinito)
+ * - Aciertos y fallos expuestos en /actuator/metrics/cache.gets
+ */
+@Component
+@Slf4j
+public class CacheCatalogo {
+
+    private final Cache<Long, ProductoResponseDTO> productos;
+    private final Cache<ClavePagina, PaginaCacheada> paginas;
+
+    // Cambia con cada invalidación: una página leída antes de un cambio no se guarda después
+    private final AtomicLong generacion = new AtomicLong();
+
+    // Last-Modified de todo el catálogo (epoch ms): avanza con cada alta, cambio o eliminación y nunca
+    // retrocede. Empieza en el arranque: lo modificado antes (incluidas eliminaciones) queda cubierto
+    private final AtomicLong ultimaModificacion = new AtomicLong(System.currentTimeMillis());
+
+    // Otras copias del catálogo (InstantaneaCatalogo) que se invalidan junto con esta
+    private final List<Consumer<Set<Long>>> oyentes = new CopyOnWriteArrayList<>();
+
+    public CacheCatalogo(
+            @Value("${catalogo.cache.ttl-seg:300}") long ttlSegundos,
+            @Value("${catalogo.cache.max-productos:10000}") long maxProductos,
+            @Value("${catalogo.cache.max-paginas:2000}") long maxPaginas,
+            MeterRegistry meterRegistry) {
+        this.productos = Caffeine.newBuilder()
+                .maximumSize(maxProductos)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        this.paginas = Caffeine.newBuilder()
+                .maximumSize(maxPaginas)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, productos, "catalogo.productos");
+        CaffeineCacheMetrics.monitor(meterRegistry, paginas, "catalogo.paginas");
+    }
+
+    private record ClavePagina(String categoria, long despuesDe, int limite) {
+    }
+
+    /**
+     * Página guardada junto con el último ID que cubre
+     */
+    private record PaginaCacheada(PaginaDTO<ProductoResumenDTO> pagina, long hastaId) {
+    }
+
+    // ============================================================
+    // LECTURAS
+    // ============================================================
+
+    public ProductoResponseDTO obtenerProducto(Long idProducto, Function<Long, ProductoResponseDTO> cargar) {
+        // Una invalidación concurrente espera a que termine la carga y luego la descarta
+        return productos.get(idProducto, cargar);
+    }
+
+    /**
+     * @param categoria null para el listado completo
+     */
+    public PaginaDTO<ProductoResumenDTO> obtenerPagina(String categoria, long despuesDe, int limite,
+                                                        Supplier<PaginaDTO<ProductoResumenDTO>> cargar) {
+        ClavePagina clave = new ClavePagina(categoria, despuesDe, limite);
+        PaginaCacheada cacheada = paginas.getIfPresent(clave);
+        if (cacheada != null) {
+            return cacheada.pagina();
+        }
+
+        long generacionLeida = generacion.get();
+        PaginaDTO<ProductoResumenDTO> pagina = cargar.get();
+        if (generacion.get() == generacionLeida) {
+            PaginaCacheada nueva = new PaginaCacheada(pagina, hastaId(pagina));
+            paginas.put(clave, nueva);
+            // Una invalidación entre la comprobación y el put ya recorrió las páginas sin ver esta:
+            // se vuelve a comprobar y se descarta (invalidar incrementa la generación antes de recorrer)
+            if (generacion.get() != generacionLeida) {
+                paginas.asMap().remove(clave, nueva);
+            }
+        }
+        return pagina;
+    }
+
+    private static long hastaId(PaginaDTO<ProductoResumenDTO> pagina) {
+        List<ProductoResumenDTO> contenido = pagina.getContenido();
+        if (!Boolean.TRUE.equals(pagina.getHayMas()) || contenido.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        return contenido.get(contenido.size() - 1).getIdProducto();
+    }
+
+    // ============================================================
+    // INVALIDACIÓN
+    // ============================================================
+
+    /**
+     * Descarta los productos (y las páginas que los contienen) cuando la transacción
+     * actual hace commit, o de inmediato si no hay transacción
+     */
+    public void invalidarTrasCommit(Collection<Long> idsProductos) {
+        if (idsProductos.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new TreeSet<>(idsProductos);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar(ids);
+                }
+            });
+        } else {
+            invalidar(ids);
+        }
+    }
+
+    public void invalidarTrasCommit(Long idProducto) {
+        invalidarTrasCommit(List.of(idProducto));
+    }
+
+    /**
+     * Última modificación de cualquier producto del catálogo. Para una página, se lee antes
+     * de armarla: así nunca es posterior a los datos que contiene
+     */
+    public ZonedDateTime ultimaModificacion() {
+        return Instant.ofEpochMilli(ultimaModificacion.get()).atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * Registra una acción que recibe los IDs de cada invalidación, después de limpiar esta cache
+     */
+    public void alInvalidar(Consumer<Set<Long>> oyente) {
+        oyentes.add(oyente);
+    }
+
+    private void invalidar(Set<Long> ids) {
+        ultimaModificacion.accumulateAndGet(System.currentTimeMillis(), Math::max);
+        generacion.incrementAndGet();
+        productos.invalidateAll(ids);
+        // Un cambio de categoría conserva el ID, así que se revisan las páginas de todas las categorías
+        paginas.asMap().entrySet().removeIf(entrada -> ids.stream().anyMatch(id ->
+                id > entrada.getKey().despuesDe() && id <= entrada.getValue().hastaId()));
+        log.debug("Cache del catálogo invalidada para productos {}", ids);
+        oyentes.forEach(oyente -> oyente.accept(ids));
+    }
+}
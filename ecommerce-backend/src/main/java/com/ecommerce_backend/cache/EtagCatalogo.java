@@ -0,0 +1,71 @@
+package com.ecommerce_backend.cache;
+
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.dto.ProductoResponseDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import org.springframework.http.CacheControl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * ETags fuertes y Last-Modified de las respuestas del catálogo.
+ *
+ * Se calculan a partir de (ID, versión) de cada producto, que ya vienen en el DTO
+ * (normalmente desde CacheCatalogo): comprobar un If-None-Match no requiere
+ * consultar la base de datos ni serializar la respuesta.
+ *
+ * El Last-Modified de las páginas no sale de sus productos (una eliminación no lo movería
+ * y podría retroceder): es la marca de todo el catálogo, CacheCatalogo.ultimaModificacion.
+ */
+public final class EtagCatalogo {
+
+    /**
+     * Cachés (navegador, CDN) pueden guardar la respuesta, pero deben revalidarla siempre
+     */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private EtagCatalogo() {
+    }
+
+    /**
+     * @param campos campos pedidos con fields= (null si la respuesta es completa)
+     */
+    public static String etag(ProductoResponseDTO producto, Set<String> campos) {
+        String etag = producto.getIdProducto() + "-" + producto.getVersion();
+        return "\"" + (campos != null ? etag + "-" + Integer.toHexString(campos.hashCode()) : etag) + "\"";
+    }
+
+    /**
+     * Resumen de la página: qué productos contiene, en qué versión, si hay más páginas
+     * y qué campos se pidieron
+     */
+    public static String etag(PaginaDTO<ProductoResumenDTO> pagina, Set<String> campos) {
+        StringBuilder firma = new StringBuilder(pagina.getContenido().size() * 16)
+                .append(campos).append('|')
+                .append(pagina.getHayMas()).append('|');
+        for (ProductoResumenDTO producto : pagina.getContenido()) {
+            firma.append(producto.getIdProducto()).append(':').append(producto.getVersion()).append(',');
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(firma.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public static ZonedDateTime ultimaModificacion(ProductoResponseDTO producto) {
+        return enZona(producto.getFechaModificacion());
+    }
+
+    private static ZonedDateTime enZona(LocalDateTime fecha) {
+        return fecha != null ? fecha.atZone(ZoneId.systemDefault()) : null;
+    }
+}
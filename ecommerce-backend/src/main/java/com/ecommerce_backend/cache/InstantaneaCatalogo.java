@@ -0,0 +1,237 @@
+package com.ecommerce_backend.cache;
+
+import com.ecommerce_backend.dto.ApiResponseDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
+import com.ecommerce_backend.service.ProductoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantánea del listado público del catálogo (GET /api/productos) ya serializada y comprimida.
+ *
+ * - Cada página (sin fields= y con el límite configurado, por defecto LIMITE_MAXIMO: el que
+ *   envía el frontend al recorrer el catálogo con apiRequestTodasLasPaginas) se guarda como
+ *   el JSON de la respuesta en gzip, junto con su ETag y Last-Modified: servirla no carga
+ *   entidades ni serializa nada
+ * - Tras el commit de un cambio de producto se descartan las páginas cuyo rango de IDs
+ *   lo incluye (esas solicitudes van por la ruta normal) y un hilo propio las regenera
+ * - Cada refresco-ms se regenera completa, igual que el TTL de CacheCatalogo cubre
+ *   los cambios hechos fuera de la aplicación
+ * - El timestamp de la respuesta es el del momento en que se generó la página
+ */
+@Component
+@ConditionalOnProperty(prefix = "catalogo.instantanea", name = "habilitado", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class InstantaneaCatalogo {
+
+    private final ProductoService productoService;
+    private final ObjectMapper objectMapper;
+    private final CacheCatalogo cacheCatalogo;
+    private final int limite;
+    private final int maxPaginas;
+    private final long retardoMs;
+
+    // Páginas por ID de inicio (despuesDe); cada una cubre los IDs (despuesDe, hastaId]
+    private final ConcurrentSkipListMap<Long, PaginaSerializada> paginas = new ConcurrentSkipListMap<>();
+    // IDs cambiados desde que empezó la regeneración en curso
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean programada = new AtomicBoolean();
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "instantanea-catalogo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public InstantaneaCatalogo(
+            ProductoService productoService,
+            ObjectMapper objectMapper,
+            CacheCatalogo cacheCatalogo,
+            @Value("${catalogo.instantanea.limite:" + CursorPaginacion.LIMITE_MAXIMO + "}") int limite,
+            @Value("${catalogo.instantanea.max-paginas:2000}") int maxPaginas,
+            @Value("${catalogo.instantanea.retardo-ms:200}") long retardoMs) {
+        this.productoService = productoService;
+        this.objectMapper = objectMapper;
+        this.cacheCatalogo = cacheCatalogo;
+        this.limite = limite;
+        this.maxPaginas = maxPaginas;
+        this.retardoMs = retardoMs;
+        cacheCatalogo.alInvalidar(this::invalidar);
+    }
+
+    /**
+     * Página lista para enviar: el JSON de la respuesta en gzip y sus validadores
+     *
+     * @param etag ETag de la variante gzip (el de la página con sufijo -gzip)
+     */
+    public record PaginaSerializada(byte[] gzip, String etag, ZonedDateTime ultimaModificacion, long hastaId) {
+    }
+
+    /**
+     * Página de la instantánea que corresponde a la solicitud, si está generada
+     */
+    public Optional<PaginaSerializada> obtener(String cursor, int limite) {
+        if (limite != this.limite) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(paginas.get(CursorPaginacion.decodificar(cursor)));
+    }
+
+    /**
+     * true si el Accept-Encoding de la solicitud admite gzip (sin q=0)
+     */
+    public static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            String nombre = partes[0].trim();
+            if (nombre.equalsIgnoreCase("gzip") || nombre.equals("*")) {
+                return partes.length == 1 || !partes[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // ============================================================
+    // REGENERACIÓN
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void generarAlIniciar() {
+        ejecutor.execute(() -> regenerar(true));
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.instantanea.refresco-ms:300000}",
+            initialDelayString = "${catalogo.instantanea.refresco-ms:300000}")
+    public void refrescar() {
+        ejecutor.execute(() -> regenerar(true));
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Llamado por CacheCatalogo tras el commit de un cambio de productos
+     */
+    private void invalidar(Set<Long> ids) {
+        // Primero se registran los IDs: una página generada en paralelo los verá al instalarse
+        pendientes.addAll(ids);
+        paginas.entrySet().removeIf(entrada -> afectada(entrada.getKey(), entrada.getValue().hastaId(), ids));
+        if (programada.compareAndSet(false, true)) {
+            ejecutor.schedule(() -> {
+                programada.set(false);
+                regenerar(false);
+            }, retardoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Recorre la cadena de páginas desde el inicio y genera las que faltan
+     * (todas si completa es true). Corre siempre en el hilo del ejecutor.
+     */
+    private void regenerar(boolean completa) {
+        try {
+            long inicio = System.nanoTime();
+            pendientes.removeAll(List.copyOf(pendientes));
+
+            Set<Long> visitadas = new HashSet<>();
+            int generadas = 0;
+            long despuesDe = 0;
+            while (visitadas.size() < maxPaginas) {
+                visitadas.add(despuesDe);
+                PaginaSerializada pagina = completa ? null : paginas.get(despuesDe);
+                if (pagina == null) {
+                    pagina = generar(despuesDe);
+                    paginas.put(despuesDe, pagina);
+                    // Un cambio confirmado mientras se leía la página la deja atrás: se descarta
+                    if (afectada(despuesDe, pagina.hastaId(), pendientes)) {
+                        paginas.remove(despuesDe, pagina);
+                    }
+                    generadas++;
+                }
+                if (pagina.hastaId() == Long.MAX_VALUE) {
+                    break;
+                }
+                despuesDe = pagina.hastaId();
+            }
+            // Páginas que quedaron fuera de la cadena (cambió dónde empieza cada una)
+            paginas.keySet().retainAll(visitadas);
+
+            log.debug("Instantánea del catálogo: {} páginas generadas de {} en {} ms",
+                    generadas, visitadas.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Las páginas que faltan se sirven por la ruta normal hasta la próxima regeneración
+            log.warn("No se pudo regenerar la instantánea del catálogo: {}", e.getMessage());
+        }
+    }
+
+    private PaginaSerializada generar(long despuesDe) {
+        ZonedDateTime ultimaModificacion = cacheCatalogo.ultimaModificacion();
+        PaginaDTO<ProductoResumenDTO> pagina = productoService.obtenerTodosLosProductos(
+                despuesDe == 0 ? null : CursorPaginacion.codificar(despuesDe), limite);
+        try {
+            // Mismo cuerpo que ProductoController.obtenerTodosLosProductos
+            byte[] json = objectMapper.writeValueAsBytes(ApiResponseDTO.success(
+                    "Se encontraron " + pagina.getCantidad() + " productos", pagina));
+            String etag = EtagCatalogo.etag(pagina, null);
+            return new PaginaSerializada(comprimir(json), etag.substring(0, etag.length() - 1) + "-gzip\"",
+                    ultimaModificacion, hastaId(pagina));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4);
+        // Se comprime una sola vez por página: conviene el nivel máximo
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(json);
+        }
+        return salida.toByteArray();
+    }
+
+    private static long hastaId(PaginaDTO<ProductoResumenDTO> pagina) {
+        List<ProductoResumenDTO> contenido = pagina.getContenido();
+        if (!Boolean.TRUE.equals(pagina.getHayMas()) || contenido.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        return contenido.get(contenido.size() - 1).getIdProducto();
+    }
+
+    private static boolean afectada(long despuesDe, long hastaId, Set<Long> ids) {
+        return ids.stream().anyMatch(id -> id > despuesDe && id <= hastaId);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce_backend.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view para todas las rutas menos /auth/**.
+ *
+ * Con open-in-view la conexión JDBC queda tomada desde la primera consulta hasta el fin
+ * de la solicitud: un login o registro la retendría mientras espera el hash BCrypt
+ * en la cola de PasswordEncoderAcotado. Reemplaza al de Spring Boot (spring.jpa.open-in-view: false).
+ */
+@Configuration
+public class OpenInViewConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OpenInViewConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/auth/**");
+    }
+}
@@ -3,6 +3,8 @@ package com.ecommerce_backend.controller;
 import com.ecommerce_backend.dto.ApiResponseDTO;
 import com.ecommerce_backend.dto.ClienteRequestDTO;
 import com.ecommerce_backend.dto.ClienteResponseDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
 import com.ecommerce_backend.service.ClienteService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,8 +13,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/clientes")
 @RequiredArgsConstructor
@@ -47,24 +47,28 @@ public class ClienteController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponseDTO<List<ClienteResponseDTO>>> obtenerTodosLosClientes() {
-        log.info("GET /api/clientes - Obteniendo todos los clientes");
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<ClienteResponseDTO>>> obtenerTodosLosClientes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite) {
+        log.info("GET /api/clientes - Obteniendo página de clientes");
 
-        List<ClienteResponseDTO> clientes = clienteService.obtenerTodosLosClientes();
+        PaginaDTO<ClienteResponseDTO> clientes = clienteService.obtenerTodosLosClientes(cursor, limite);
 
         return ResponseEntity.ok(ApiResponseDTO.success(
-                "Se encontraron " + clientes.size() + " clientes",
+                "Se encontraron " + clientes.getCantidad() + " clientes",
                 clientes
         ));
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<ApiResponseDTO<List<ClienteResponseDTO>>> buscarClientesPorNombre(
-            @RequestParam String nombre) {
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<ClienteResponseDTO>>> buscarClientesPorNombre(
+            @RequestParam String nombre,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite) {
 
         log.info("GET /api/clientes/buscar?nombre={}", nombre);
 
-        List<ClienteResponseDTO> clientes = clienteService.buscarClientesPorNombre(nombre);
+        PaginaDTO<ClienteResponseDTO> clientes = clienteService.buscarClientesPorNombre(nombre, cursor, limite);
 
         return ResponseEntity.ok(ApiResponseDTO.success("Búsqueda completada", clientes));
     }
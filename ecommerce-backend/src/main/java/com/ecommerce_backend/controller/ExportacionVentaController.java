@@ -0,0 +1,70 @@
+package com.ecommerce_backend.controller;
+
+import com.ecommerce_backend.exception.BusinessException;
+import com.ecommerce_backend.exportacion.ExportadorVentas;
+import com.ecommerce_backend.exportacion.FormatoExportacion;
+import com.ecommerce_backend.model.EstadoVenta;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Exportación masiva de ventas con sus detalles (NDJSON o CSV).
+ *
+ * La respuesta se escribe en streaming mientras se recorren las filas,
+ * por eso no usa el envoltorio ApiResponseDTO.
+ */
+@RestController
+@RequestMapping("/api/ventas")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ExportacionVentaController {
+
+    private final ExportadorVentas exportadorVentas;
+
+    @GetMapping("/exportar")
+    public void exportarVentas(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String estado,
+            HttpServletResponse response) throws IOException {
+
+        // Validar todo antes de empezar a escribir: después ya no se puede cambiar el status
+        FormatoExportacion formatoExportacion = FormatoExportacion.desdeTexto(formato);
+        if (formatoExportacion == null) {
+            throw new BusinessException("Formato de exportación inválido: " + formato
+                    + ". Valores permitidos: " + Arrays.toString(FormatoExportacion.values()));
+        }
+        EstadoVenta estadoVenta = null;
+        if (estado != null) {
+            estadoVenta = EstadoVenta.desdeTexto(estado);
+            if (estadoVenta == null) {
+                throw new BusinessException("Estado de venta inválido: " + estado
+                        + ". Valores permitidos: " + Arrays.toString(EstadoVenta.values()));
+            }
+        }
+
+        log.info("GET /api/ventas/exportar - formato: {}, desde: {}, hasta: {}, estado: {}",
+                formatoExportacion, desde, hasta, estadoVenta);
+
+        response.setContentType(formatoExportacion.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"ventas." + formatoExportacion.getExtension() + "\"");
+
+        // "hasta" es inclusive para el usuario: se exporta hasta el final de ese día
+        exportadorVentas.exportar(formatoExportacion,
+                desde != null ? desde.atStartOfDay() : null,
+                hasta != null ? hasta.plusDays(1).atStartOfDay() : null,
+                estadoVenta,
+                response.getOutputStream());
+    }
+}
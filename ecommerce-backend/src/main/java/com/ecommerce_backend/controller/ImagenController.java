@@ -0,0 +1,164 @@
+package com.ecommerce_backend.controller;
+
+import com.ecommerce_backend.dto.ApiResponseDTO;
+import com.ecommerce_backend.exception.ResourceNotFoundException;
+import com.ecommerce_backend.imagen.AlmacenImagenes;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/imagenes")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ImagenController {
+
+    /**
+     * El contenido de una referencia nunca cambia: se puede cachear para siempre
+     */
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic().immutable().getHeaderValue();
+
+    /**
+     * Bajo este tamaño copiar es más barato que preparar un sendfile (mismo umbral que el DefaultServlet de Tomcat)
+     */
+    private static final long UMBRAL_SENDFILE = 48 * 1024;
+
+    // Atributos de Tomcat para enviar el archivo con sendfile (sin pasar por la JVM)
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private final AlmacenImagenes almacenImagenes;
+
+    /**
+     * Sube una imagen (el body son los bytes, con su Content-Type) y retorna su URL
+     */
+    @PostMapping(consumes = "image/*")
+    public ResponseEntity<ApiResponseDTO<String>> subirImagen(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+            @RequestBody byte[] contenido) {
+
+        String referencia = almacenImagenes.guardar(contenido, tipo.getType() + "/" + tipo.getSubtype());
+        String url = almacenImagenes.url(referencia);
+
+        return ResponseEntity
+                .created(URI.create(url))
+                .body(ApiResponseDTO.success("Imagen guardada", url));
+    }
+
+    @GetMapping("/{referencia}")
+    public void servirImagen(
+            @PathVariable String referencia,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        Path archivo = almacenImagenes.buscar(referencia)
+                .orElseThrow(() -> new ResourceNotFoundException("Imagen no encontrada: " + referencia));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        // Un SVG subido no debe poder ejecutar scripts en el origen de la API
+        response.setHeader("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox");
+
+        // El hash del contenido es un ETag fuerte: cualquier coincidencia es un 304
+        String etag = "\"" + referencia.substring(0, referencia.indexOf('.')) + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        long tamano = Files.size(archivo);
+        long inicio = 0;
+        long longitud = tamano;
+
+        List<HttpRange> rangos = rangosSolicitados(request, etag);
+        if (rangos.size() == 1) {
+            try {
+                inicio = rangos.get(0).getRangeStart(tamano);
+                longitud = rangos.get(0).getRangeEnd(tamano) - inicio + 1;
+            } catch (IllegalArgumentException e) {
+                longitud = 0;
+            }
+            if (inicio >= tamano || longitud <= 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + inicio + "-" + (inicio + longitud - 1) + "/" + tamano);
+        }
+        // Varios rangos en una misma solicitud se responden con el archivo completo (RFC 9110 lo permite)
+
+        response.setContentType(AlmacenImagenes.tipo(referencia).toString());
+        response.setContentLengthLong(longitud);
+        if (!"HEAD".equals(request.getMethod())) {
+            enviar(archivo, inicio, longitud, request, response);
+        }
+    }
+
+    /**
+     * Rangos del header Range; se ignoran si es inválido o si If-Range no coincide con el ETag
+     */
+    private List<HttpRange> rangosSolicitados(HttpServletRequest request, String etag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && !ifRange.equals(etag))) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Envía el archivo sin copiarlo al heap: sendfile de Tomcat para archivos grandes,
+     * FileChannel.transferTo hacia el socket en el resto de los casos
+     */
+    private void enviar(Path archivo, long inicio, long longitud,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (longitud >= UMBRAL_SENDFILE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, inicio + longitud);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(response.getOutputStream());
+            long enviados = 0;
+            while (enviados < longitud) {
+                long transferidos = canal.transferTo(inicio + enviados, longitud - enviados, destino);
+                if (transferidos <= 0) {
+                    break;
+                }
+                enviados += transferidos;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce_backend.controller;
+
+import com.ecommerce_backend.dto.ApiResponseDTO;
+import com.ecommerce_backend.dto.TicketVentaDTO;
+import com.ecommerce_backend.dto.VentaRequestDTO;
+import com.ecommerce_backend.idempotencia.AlmacenIdempotencia;
+import com.ecommerce_backend.idempotencia.RespuestaIdempotente;
+import com.ecommerce_backend.service.IngresoVentaService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Ingreso asíncrono de ventas (ventas.ingreso-asincrono.habilitado=true).
+ *
+ * El cliente lo solicita con el header "Prefer: respond-async". Si el modo no está
+ * habilitado, el header se ignora y VentaController procesa la venta de forma síncrona.
+ */
+@RestController
+@RequestMapping("/api/ventas")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(prefix = "ventas.ingreso-asincrono", name = "habilitado", havingValue = "true")
+public class IngresoVentaController {
+
+    private final IngresoVentaService ingresoVentaService;
+    private final AlmacenIdempotencia almacenIdempotencia;
+
+    @PostMapping(headers = "Prefer=respond-async")
+    public ResponseEntity<ApiResponseDTO<TicketVentaDTO>> encolarVenta(
+            @RequestHeader(value = VentaController.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody VentaRequestDTO dto) {
+
+        log.info("POST /api/ventas (async) - Encolando venta para cliente ID: {}", dto.getIdCliente());
+
+        // Un reintento con la misma Idempotency-Key recibe el mismo ticket
+        RespuestaIdempotente<TicketVentaDTO> respuesta = idempotencyKey == null
+                ? new RespuestaIdempotente<>(ingresoVentaService.encolarVenta(dto), false)
+                : almacenIdempotencia.ejecutar("ventas.encolar", idempotencyKey, dto,
+                        () -> ingresoVentaService.encolarVenta(dto));
+        TicketVentaDTO ticket = respuesta.valor();
+
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/ventas/tickets/" + ticket.getTicket())
+                .header(VentaController.IDEMPOTENT_REPLAYED, String.valueOf(respuesta.repetida()))
+                .body(ApiResponseDTO.success("Venta recibida, consulte el ticket para ver el resultado", ticket));
+    }
+
+    @GetMapping("/tickets/{ticket}")
+    public ResponseEntity<ApiResponseDTO<TicketVentaDTO>> consultarTicket(@PathVariable String ticket) {
+        TicketVentaDTO ticketVenta = ingresoVentaService.consultarTicket(ticket);
+
+        return ResponseEntity.ok(ApiResponseDTO.success("Estado del ticket", ticketVenta));
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce_backend.controller;
+
+import com.ecommerce_backend.dto.ApiResponseDTO;
+import com.ecommerce_backend.dto.DivergenciaInventarioDTO;
+import com.ecommerce_backend.inventario.InventarioEnMemoria;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventario")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(prefix = "inventario.memoria", name = "habilitado", havingValue = "true")
+public class InventarioController {
+
+    private final InventarioEnMemoria inventarioEnMemoria;
+
+    @GetMapping("/divergencia")
+    public ResponseEntity<ApiResponseDTO<List<DivergenciaInventarioDTO>>> obtenerDivergencia() {
+        List<DivergenciaInventarioDTO> divergencias = inventarioEnMemoria.calcularDivergencia();
+
+        return ResponseEntity.ok(ApiResponseDTO.success(
+                divergencias.size() + " productos con divergencia entre memoria y base de datos",
+                divergencias
+        ));
+    }
+}
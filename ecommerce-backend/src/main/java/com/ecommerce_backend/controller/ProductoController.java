@@ -1,17 +1,34 @@
 package com.ecommerce_backend.controller;
 
+import com.ecommerce_backend.cache.CacheCatalogo;
+import com.ecommerce_backend.cache.EtagCatalogo;
+import com.ecommerce_backend.cache.InstantaneaCatalogo;
 import com.ecommerce_backend.dto.ApiResponseDTO;
+import com.ecommerce_backend.dto.CatalogoFacetadoDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
 import com.ecommerce_backend.dto.ProductoRequestDTO;
 import com.ecommerce_backend.dto.ProductoResponseDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import com.ecommerce_backend.eventos.TransmisorCambiosProducto;
+import com.ecommerce_backend.facetas.FiltroFacetas;
+import com.ecommerce_backend.mapper.CamposParcialesMapper;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
 import com.ecommerce_backend.service.ProductoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -20,7 +37,13 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ProductoController {
 
+    private static final String CAMPO_ID = "idProducto";
+
     private final ProductoService productoService;
+    private final CacheCatalogo cacheCatalogo;
+    private final CamposParcialesMapper camposParcialesMapper;
+    private final Optional<InstantaneaCatalogo> instantaneaCatalogo;
+    private final TransmisorCambiosProducto transmisorCambiosProducto;
 
     @PostMapping
     public ResponseEntity<ApiResponseDTO<ProductoResponseDTO>> crearProducto(
@@ -36,46 +59,157 @@ public class ProductoController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponseDTO<ProductoResponseDTO>> obtenerProductoPorId(
-            @PathVariable Long id) {
+    public ResponseEntity<ApiResponseDTO<Object>> obtenerProductoPorId(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        Set<String> campos = camposParcialesMapper.parsear(fields, ProductoResponseDTO.class, CAMPO_ID);
         ProductoResponseDTO producto = productoService.obtenerProductoPorId(id);
 
-        return ResponseEntity.ok(ApiResponseDTO.success("Producto encontrado", producto));
+        // Con ETag/Last-Modified en la respuesta, Spring contesta 304 sin serializar el body
+        // si coincide el If-None-Match / If-Modified-Since de la solicitud
+        return ResponseEntity.ok()
+                .eTag(EtagCatalogo.etag(producto, campos))
+                .lastModified(EtagCatalogo.ultimaModificacion(producto))
+                .cacheControl(EtagCatalogo.CACHE_CONTROL)
+                .body(ApiResponseDTO.success("Producto encontrado",
+                        campos != null ? camposParcialesMapper.filtrar(producto, campos) : producto));
     }
 
+    /**
+     * Las páginas completas que ya están en la instantánea precomprimida se envían tal cual
+     * (gzip); el resto se arma desde CacheCatalogo
+     */
     @GetMapping
-    public ResponseEntity<ApiResponseDTO<List<ProductoResponseDTO>>> obtenerTodosLosProductos() {
-        List<ProductoResponseDTO> productos = productoService.obtenerTodosLosProductos();
-
-        return ResponseEntity.ok(ApiResponseDTO.success(
-                "Se encontraron " + productos.size() + " productos",
-                productos
-        ));
+    public ResponseEntity<?> obtenerTodosLosProductos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (fields == null && InstantaneaCatalogo.aceptaGzip(acceptEncoding)) {
+            Optional<InstantaneaCatalogo.PaginaSerializada> serializada =
+                    instantaneaCatalogo.flatMap(instantanea -> instantanea.obtener(cursor, limite));
+            if (serializada.isPresent()) {
+                return respuestaPrecomprimida(serializada.get());
+            }
+        }
+
+        Set<String> campos = camposParcialesMapper.parsear(fields, ProductoResumenDTO.class, CAMPO_ID);
+        ZonedDateTime ultimaModificacion = cacheCatalogo.ultimaModificacion();
+        PaginaDTO<ProductoResumenDTO> productos = productoService.obtenerTodosLosProductos(cursor, limite);
+
+        return respuestaCondicional(productos, campos, ultimaModificacion,
+                "Se encontraron " + productos.getCantidad() + " productos");
     }
 
     @GetMapping("/categoria/{categoria}")
-    public ResponseEntity<ApiResponseDTO<List<ProductoResponseDTO>>> obtenerProductosPorCategoria(
-            @PathVariable String categoria) {
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<?>>> obtenerProductosPorCategoria(
+            @PathVariable String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite,
+            @RequestParam(required = false) String fields) {
 
-        List<ProductoResponseDTO> productos = productoService.obtenerProductosPorCategoria(categoria);
+        Set<String> campos = camposParcialesMapper.parsear(fields, ProductoResumenDTO.class, CAMPO_ID);
+        ZonedDateTime ultimaModificacion = cacheCatalogo.ultimaModificacion();
+        PaginaDTO<ProductoResumenDTO> productos = productoService.obtenerProductosPorCategoria(categoria, cursor, limite);
 
-        return ResponseEntity.ok(ApiResponseDTO.success("Productos por categoría", productos));
+        return respuestaCondicional(productos, campos, ultimaModificacion, "Productos por categoría");
     }
 
     @GetMapping("/disponibles")
-    public ResponseEntity<ApiResponseDTO<List<ProductoResponseDTO>>> obtenerProductosDisponibles() {
-        List<ProductoResponseDTO> productos = productoService.obtenerProductosDisponibles();
-
-        return ResponseEntity.ok(ApiResponseDTO.success("Productos disponibles", productos));
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<?>>> obtenerProductosDisponibles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite,
+            @RequestParam(required = false) String fields) {
+        Set<String> campos = camposParcialesMapper.parsear(fields, ProductoResumenDTO.class, CAMPO_ID);
+        PaginaDTO<ProductoResumenDTO> productos = productoService.obtenerProductosDisponibles(cursor, limite);
+
+        return ResponseEntity.ok(ApiResponseDTO.success("Productos disponibles", paginaConCampos(productos, campos)));
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<ApiResponseDTO<List<ProductoResponseDTO>>> buscarProductosPorNombre(
-            @RequestParam String nombre) {
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<?>>> buscarProductosPorNombre(
+            @RequestParam String nombre,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite,
+            @RequestParam(required = false) String fields) {
+
+        Set<String> campos = camposParcialesMapper.parsear(fields, ProductoResumenDTO.class, CAMPO_ID);
+        PaginaDTO<ProductoResumenDTO> productos = productoService.buscarProductosPorNombre(nombre, cursor, limite);
+
+        return ResponseEntity.ok(ApiResponseDTO.success("Búsqueda completada", paginaConCampos(productos, campos)));
+    }
+
+    /**
+     * Catálogo filtrado por facetas, con conteos por categoría, rango de precio,
+     * estado de stock y disponibilidad (ej: ?categoria=Anime&categoria=Lujo&precioMax=2500000)
+     */
+    @GetMapping("/facetas")
+    public ResponseEntity<ApiResponseDTO<CatalogoFacetadoDTO>> consultarCatalogoFacetado(
+            @RequestParam(required = false) Set<String> categoria,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(required = false) Set<String> estadoStock,
+            @RequestParam(required = false) Boolean disponible,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite) {
+
+        FiltroFacetas filtro = new FiltroFacetas(categoria, precioMin, precioMax, estadoStock, disponible);
+        CatalogoFacetadoDTO catalogo = productoService.consultarCatalogoFacetado(filtro, cursor, limite);
+
+        return ResponseEntity.ok(ApiResponseDTO.success(
+                "Se encontraron " + catalogo.getTotal() + " productos", catalogo));
+    }
+
+    /**
+     * Productos comprados con más frecuencia junto con este ("frecuentemente comprados juntos")
+     */
+    @GetMapping("/{id}/relacionados")
+    public ResponseEntity<ApiResponseDTO<List<ProductoResumenDTO>>> obtenerProductosRelacionados(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") int limite) {
+        List<ProductoResumenDTO> productos = productoService.obtenerProductosRelacionados(id, limite);
+        return ResponseEntity.ok(ApiResponseDTO.success("Productos relacionados", productos));
+    }
 
-        List<ProductoResponseDTO> productos = productoService.buscarProductosPorNombre(nombre);
+    /**
+     * Stream SSE con los cambios de stock y precio (evento "producto"). Sin filtros recibe
+     * todos los productos (ej: ?producto=12&producto=15 o ?categoria=Anime)
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirCambios(
+            @RequestParam(required = false) Set<Long> producto,
+            @RequestParam(required = false) Set<String> categoria) {
+        return transmisorCambiosProducto.suscribir(producto, categoria);
+    }
+
+    /**
+     * @param ultimaModificacion marca del catálogo leída antes de armar la página
+     */
+    private ResponseEntity<ApiResponseDTO<PaginaDTO<?>>> respuestaCondicional(
+            PaginaDTO<ProductoResumenDTO> pagina, Set<String> campos, ZonedDateTime ultimaModificacion, String mensaje) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .eTag(EtagCatalogo.etag(pagina, campos))
+                .lastModified(ultimaModificacion)
+                .cacheControl(EtagCatalogo.CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        return respuesta.body(ApiResponseDTO.success(mensaje, paginaConCampos(pagina, campos)));
+    }
+
+    private ResponseEntity<byte[]> respuestaPrecomprimida(InstantaneaCatalogo.PaginaSerializada pagina) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .eTag(pagina.etag())
+                .cacheControl(EtagCatalogo.CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (pagina.ultimaModificacion() != null) {
+            respuesta.lastModified(pagina.ultimaModificacion());
+        }
+        return respuesta.body(pagina.gzip());
+    }
 
-        return ResponseEntity.ok(ApiResponseDTO.success("Búsqueda completada", productos));
+    private PaginaDTO<?> paginaConCampos(PaginaDTO<ProductoResumenDTO> pagina, Set<String> campos) {
+        return campos != null ? camposParcialesMapper.filtrar(pagina, campos) : pagina;
     }
 
     @PutMapping("/{id}")
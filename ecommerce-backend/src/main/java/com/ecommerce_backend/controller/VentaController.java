@@ -1,8 +1,16 @@
 package com.ecommerce_backend.controller;
 
 import com.ecommerce_backend.dto.ApiResponseDTO;
+import com.ecommerce_backend.dto.EstadisticaEstadoVentaDTO;
+import com.ecommerce_backend.dto.LoteVentasRequestDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.dto.ResultadoVentaDTO;
 import com.ecommerce_backend.dto.VentaRequestDTO;
 import com.ecommerce_backend.dto.VentaResponseDTO;
+import com.ecommerce_backend.idempotencia.AlmacenIdempotencia;
+import com.ecommerce_backend.idempotencia.RespuestaIdempotente;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
+import com.ecommerce_backend.service.EstadisticaVentaService;
 import com.ecommerce_backend.service.VentaService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -21,19 +29,45 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class VentaController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final VentaService ventaService;
+    private final EstadisticaVentaService estadisticaVentaService;
+    private final AlmacenIdempotencia almacenIdempotencia;
 
     @PostMapping
     public ResponseEntity<ApiResponseDTO<VentaResponseDTO>> procesarVenta(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Valid @RequestBody VentaRequestDTO dto) {
 
         log.info("POST /api/ventas - Procesando venta para cliente ID: {}", dto.getIdCliente());
 
-        VentaResponseDTO venta = ventaService.procesarVenta(dto);
+        // Sin Idempotency-Key se procesa siempre; con clave, un reintento repite la respuesta guardada
+        RespuestaIdempotente<VentaResponseDTO> venta = idempotencyKey == null
+                ? new RespuestaIdempotente<>(ventaService.procesarVenta(dto), false)
+                : almacenIdempotencia.ejecutar("ventas.procesar", idempotencyKey, dto,
+                        () -> ventaService.procesarVenta(dto));
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
-                .body(ApiResponseDTO.success("Venta procesada exitosamente", venta));
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(venta.repetida()))
+                .body(ApiResponseDTO.success("Venta procesada exitosamente", venta.valor()));
+    }
+
+    @PostMapping("/lote")
+    public ResponseEntity<ApiResponseDTO<List<ResultadoVentaDTO>>> procesarVentasEnLote(
+            @Valid @RequestBody LoteVentasRequestDTO dto) {
+
+        log.info("POST /api/ventas/lote - Procesando lote de {} ventas", dto.getVentas().size());
+
+        List<ResultadoVentaDTO> resultados = ventaService.procesarVentasEnLote(dto.getVentas());
+        long exitosas = resultados.stream().filter(ResultadoVentaDTO::getExitosa).count();
+
+        return ResponseEntity.ok(ApiResponseDTO.success(
+                "Lote procesado: " + exitosas + " ventas exitosas, " + (resultados.size() - exitosas) + " rechazadas",
+                resultados
+        ));
     }
 
     @GetMapping("/{id}")
@@ -46,33 +80,46 @@ public class VentaController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponseDTO<List<VentaResponseDTO>>> obtenerTodasLasVentas() {
-        List<VentaResponseDTO> ventas = ventaService.obtenerTodasLasVentas();
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<VentaResponseDTO>>> obtenerTodasLasVentas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite) {
+        PaginaDTO<VentaResponseDTO> ventas = ventaService.obtenerTodasLasVentas(cursor, limite);
 
         return ResponseEntity.ok(ApiResponseDTO.success(
-                "Se encontraron " + ventas.size() + " ventas",
+                "Se encontraron " + ventas.getCantidad() + " ventas",
                 ventas
         ));
     }
 
     @GetMapping("/cliente/{idCliente}")
-    public ResponseEntity<ApiResponseDTO<List<VentaResponseDTO>>> obtenerVentasPorCliente(
-            @PathVariable Long idCliente) {
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<VentaResponseDTO>>> obtenerVentasPorCliente(
+            @PathVariable Long idCliente,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite) {
 
-        List<VentaResponseDTO> ventas = ventaService.obtenerVentasPorCliente(idCliente);
+        PaginaDTO<VentaResponseDTO> ventas = ventaService.obtenerVentasPorCliente(idCliente, cursor, limite);
 
         return ResponseEntity.ok(ApiResponseDTO.success("Ventas del cliente", ventas));
     }
 
     @GetMapping("/estado/{estado}")
-    public ResponseEntity<ApiResponseDTO<List<VentaResponseDTO>>> obtenerVentasPorEstado(
-            @PathVariable String estado) {
+    public ResponseEntity<ApiResponseDTO<PaginaDTO<VentaResponseDTO>>> obtenerVentasPorEstado(
+            @PathVariable String estado,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPaginacion.LIMITE_POR_DEFECTO) int limite) {
 
-        List<VentaResponseDTO> ventas = ventaService.obtenerVentasPorEstado(estado);
+        PaginaDTO<VentaResponseDTO> ventas = ventaService.obtenerVentasPorEstado(estado, cursor, limite);
 
         return ResponseEntity.ok(ApiResponseDTO.success("Ventas por estado", ventas));
     }
 
+    @GetMapping("/estadisticas")
+    public ResponseEntity<ApiResponseDTO<List<EstadisticaEstadoVentaDTO>>> obtenerEstadisticasPorEstado() {
+        List<EstadisticaEstadoVentaDTO> estadisticas = estadisticaVentaService.obtenerEstadisticas();
+
+        return ResponseEntity.ok(ApiResponseDTO.success("Ventas e ingresos por estado", estadisticas));
+    }
+
     @PatchMapping("/{id}/estado")
     public ResponseEntity<ApiResponseDTO<VentaResponseDTO>> actualizarEstadoVenta(
             @PathVariable Long id,
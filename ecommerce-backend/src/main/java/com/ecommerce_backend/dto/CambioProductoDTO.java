@@ -0,0 +1,23 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * Evento "producto" de GET /api/productos/eventos: estado actual del stock y el precio
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CambioProductoDTO {
+    private Long idProducto;
+    private String categoria;
+    private BigDecimal precio;
+    private Integer stock;
+    private String estadoStock;
+    private Boolean disponible;
+}
@@ -0,0 +1,23 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogoFacetadoDTO {
+    private PaginaDTO<ProductoResumenDTO> productos;
+    // Productos que cumplen todos los filtros (no solo los de esta página)
+    private Long total;
+    // Cada conteo aplica los filtros de las demás facetas, no el de la propia
+    private Map<String, Long> categorias;
+    private Map<String, Long> estadosStock;
+    private List<RangoPrecioDTO> rangosPrecio;
+    private Map<String, Long> disponibilidad;
+}
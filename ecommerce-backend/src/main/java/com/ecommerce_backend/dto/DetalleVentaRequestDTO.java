@@ -15,6 +15,7 @@ public class DetalleVentaRequestDTO {
     @NotNull(message = "El ID del producto es obligatorio")
     private Long idProducto;
 
+    @NotNull(message = "La cantidad es obligatoria")
     @Min(value = 1, message = "La cantidad debe ser al menos 1")
     private Integer cantidad;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DivergenciaInventarioDTO {
+    private Long idProducto;
+    private Integer stockMemoria;
+    private Integer stockPersistido;
+    private Integer pendienteDeFlush;
+
+    // stockPersistido - stockMemoria (incluye pendientes y reservas en curso)
+    private Integer divergencia;
+}
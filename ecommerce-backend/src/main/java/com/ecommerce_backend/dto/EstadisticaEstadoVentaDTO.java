@@ -0,0 +1,17 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaEstadoVentaDTO {
+    private String estado;
+    private Long cantidad;
+    private BigDecimal ingresos;
+}
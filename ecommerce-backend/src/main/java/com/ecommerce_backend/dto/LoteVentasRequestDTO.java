@@ -0,0 +1,20 @@
+package com.ecommerce_backend.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoteVentasRequestDTO {
+
+    @NotEmpty(message = "El lote debe tener al menos una venta")
+    @Size(max = 1000, message = "El lote no puede exceder 1000 ventas")
+    // Cada venta se valida en el servicio: una venta mal formada se rechaza sola, no el lote completo
+    private List<VentaRequestDTO> ventas;
+}
@@ -0,0 +1,19 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaDTO<T> {
+    private List<T> contenido;
+    private Integer cantidad;
+    // Se envía como ?cursor= para obtener la página siguiente; null en la última página
+    private String siguienteCursor;
+    private Boolean hayMas;
+}
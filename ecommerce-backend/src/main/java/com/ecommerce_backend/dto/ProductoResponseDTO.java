@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Data
@@ -25,6 +26,8 @@ public class ProductoResponseDTO {
     private String imagen;
     private Map<String, Object> detalles;
     private Integer stock;
+    private Long version;
+    private LocalDateTime fechaModificacion;
 
     // Campos calculados
     private String estadoStock;
@@ -0,0 +1,36 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Representación liviana de un producto para los listados del catálogo.
+ * No incluye descripcion ni detalles: se obtienen con GET /api/productos/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoResumenDTO {
+
+    private Long idProducto;
+    private String nombre;
+    private String categoria;
+    private BigDecimal precio;
+    private BigDecimal precioAnterior;
+    private String descuento;
+    private String badgeColor;
+    private String imagen;
+    private Integer stock;
+    private Long version;
+    private LocalDateTime fechaModificacion;
+
+    // Campos calculados
+    private String estadoStock;
+    private Boolean disponible;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RangoPrecioDTO {
+    // [desde, hasta): null en los extremos abiertos
+    private BigDecimal desde;
+    private BigDecimal hasta;
+    private Long cantidad;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoVentaDTO {
+    // Posición de la venta dentro del lote recibido
+    private Integer indice;
+    private Boolean exitosa;
+    private VentaResponseDTO venta;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketVentaDTO {
+    private String ticket;
+
+    // EN_COLA, PROCESADA, RECHAZADA o ERROR (resultado desconocido: revisar las ventas del cliente antes de reintentar)
+    private String estado;
+    private VentaResponseDTO venta;
+    private String error;
+    private LocalDateTime creadoEn;
+    private LocalDateTime completadoEn;
+}
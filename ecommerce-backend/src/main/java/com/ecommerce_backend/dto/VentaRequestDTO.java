@@ -1,5 +1,6 @@
 package com.ecommerce_backend.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,5 +18,5 @@ public class VentaRequestDTO {
     private Long idCliente;
 
     @NotEmpty(message = "La venta debe tener al menos un producto")
-    private List<DetalleVentaRequestDTO> detalles;
+    private List<@NotNull(message = "El detalle no puede ser nulo") @Valid DetalleVentaRequestDTO> detalles;
 }
\ No newline at end of file
@@ -0,0 +1,373 @@
+package com.ecommerce_backend.eventos;
+
+import com.ecommerce_backend.cache.CacheCatalogo;
+import com.ecommerce_backend.dto.CambioProductoDTO;
+import com.ecommerce_backend.exception.ServicioSaturadoException;
+import com.ecommerce_backend.model.Producto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difunde por Server-Sent Events los cambios de stock, estado de stock y precio de los productos
+ * (GET /api/productos/eventos).
+ *
+ * - Se entera de los cambios por CacheCatalogo, tras el commit de ventas, cancelaciones,
+ *   actualizaciones de stock y ediciones de productos
+ * - Un solo hilo agrupa los IDs cambiados cada retardo-ms, los relee en una consulta y envía
+ *   solo los productos cuyo stock, precio o categoría cambió desde el último evento
+ * - Cada evento se serializa una vez y se encola en cada conexión suscrita; un pool de
+ *   hilos-envio hilos escribe las colas, así un cliente lento no demora a los demás
+ * - Una conexión que acumula cola-por-conexion eventos sin leer, o cuyo envío lleva más de
+ *   envio-timeout-ms bloqueado, se desconecta (el cliente vuelve a suscribirse)
+ * - Una conexión inactiva no ocupa ningún hilo
+ */
+@Component
+@Slf4j
+public class TransmisorCambiosProducto {
+
+    public static final String EVENTO = "producto";
+
+    private static final String SQL_PRODUCTOS = "SELECT id_producto, categoria, precio, stock FROM productos " +
+            "WHERE id_producto IN (%s)";
+    private static final int IDS_POR_CONSULTA = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxSuscripciones;
+    private final long retardoMs;
+    private final int colaPorConexion;
+    private final long envioTimeoutNs;
+
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final Set<Suscripcion> sinFiltro = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Suscripcion>> porProducto = new ConcurrentHashMap<>();
+    private final Map<String, Set<Suscripcion>> porCategoria = new ConcurrentHashMap<>();
+
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    // Último estado enviado de cada producto
+    private final Map<Long, CambioProductoDTO> enviados = new ConcurrentHashMap<>();
+    private final AtomicBoolean programado = new AtomicBoolean();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "eventos-productos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private final ExecutorService ejecutorEnvio;
+
+    public TransmisorCambiosProducto(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            CacheCatalogo cacheCatalogo,
+            @Value("${catalogo.eventos.timeout-ms:1800000}") long timeoutMs,
+            @Value("${catalogo.eventos.max-suscripciones:10000}") int maxSuscripciones,
+            @Value("${catalogo.eventos.retardo-ms:100}") long retardoMs,
+            @Value("${catalogo.eventos.cola-por-conexion:64}") int colaPorConexion,
+            @Value("${catalogo.eventos.hilos-envio:4}") int hilosEnvio,
+            @Value("${catalogo.eventos.envio-timeout-ms:10000}") long envioTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxSuscripciones = maxSuscripciones;
+        this.retardoMs = retardoMs;
+        this.colaPorConexion = colaPorConexion;
+        this.envioTimeoutNs = TimeUnit.MILLISECONDS.toNanos(envioTimeoutMs);
+        AtomicInteger hilos = new AtomicInteger();
+        this.ejecutorEnvio = Executors.newFixedThreadPool(hilosEnvio, tarea -> {
+            Thread hilo = new Thread(tarea, "eventos-productos-envio-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        cacheCatalogo.alInvalidar(this::marcar);
+    }
+
+    /**
+     * Conexión abierta, lo que pidió recibir (sin productos ni categorías: todo)
+     * y sus eventos por escribir
+     *
+     * @param enviando   true mientras hay una tarea de envío programada o corriendo para esta conexión
+     * @param envioDesde System.nanoTime() del envío en curso, 0 si no hay ninguno
+     * @param cerrada    la conexión se desconectó: la tarea de envío la completa y no escribe más
+     */
+    private record Suscripcion(SseEmitter emitter, Set<Long> productos, Set<String> categorias,
+                               ArrayBlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> cola,
+                               AtomicBoolean enviando, AtomicLong envioDesde, AtomicBoolean cerrada) {
+
+        // Cada conexión es distinta aunque pida lo mismo
+        @Override
+        public boolean equals(Object otro) {
+            return this == otro;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    // ============================================================
+    // SUSCRIPCIONES
+    // ============================================================
+
+    /**
+     * Abre una conexión SSE que recibe los cambios de los productos y categorías indicados
+     */
+    public SseEmitter suscribir(Set<Long> productos, Set<String> categorias) {
+        if (suscripciones.size() >= maxSuscripciones) {
+            throw new ServicioSaturadoException("Demasiadas conexiones de eventos abiertas, intente más tarde");
+        }
+        Suscripcion suscripcion = new Suscripcion(new SseEmitter(timeoutMs),
+                productos != null ? Set.copyOf(productos) : Set.of(),
+                categorias != null ? Set.copyOf(categorias) : Set.of(),
+                new ArrayBlockingQueue<>(colaPorConexion), new AtomicBoolean(), new AtomicLong(), new AtomicBoolean());
+
+        suscripciones.add(suscripcion);
+        if (suscripcion.productos().isEmpty() && suscripcion.categorias().isEmpty()) {
+            sinFiltro.add(suscripcion);
+        }
+        suscripcion.productos().forEach(id -> porProducto.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(suscripcion));
+        suscripcion.categorias().forEach(c -> porCategoria.computeIfAbsent(c, k -> ConcurrentHashMap.newKeySet()).add(suscripcion));
+
+        SseEmitter emitter = suscripcion.emitter();
+        emitter.onCompletion(() -> quitar(suscripcion));
+        emitter.onTimeout(() -> quitar(suscripcion));
+        emitter.onError(error -> quitar(suscripcion));
+        log.debug("Suscripción a eventos de productos abierta ({} activas)", suscripciones.size());
+        return emitter;
+    }
+
+    private void quitar(Suscripcion suscripcion) {
+        if (!suscripciones.remove(suscripcion)) {
+            return;
+        }
+        sinFiltro.remove(suscripcion);
+        suscripcion.productos().forEach(id -> porProducto.computeIfPresent(id, (k, conjunto) -> {
+            conjunto.remove(suscripcion);
+            return conjunto.isEmpty() ? null : conjunto;
+        }));
+        suscripcion.categorias().forEach(c -> porCategoria.computeIfPresent(c, (k, conjunto) -> {
+            conjunto.remove(suscripcion);
+            return conjunto.isEmpty() ? null : conjunto;
+        }));
+    }
+
+    public int cantidadSuscripciones() {
+        return suscripciones.size();
+    }
+
+    // ============================================================
+    // DIFUSIÓN
+    // ============================================================
+
+    /**
+     * Llamado por CacheCatalogo tras el commit de un cambio de productos
+     */
+    private void marcar(Set<Long> ids) {
+        if (suscripciones.isEmpty()) {
+            // Sin nadie escuchando no se envía nada: el último estado enviado deja de servir
+            ids.forEach(enviados::remove);
+            return;
+        }
+        pendientes.addAll(ids);
+        if (programado.compareAndSet(false, true)) {
+            ejecutor.schedule(() -> {
+                programado.set(false);
+                difundirPendientes();
+            }, retardoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void difundirPendientes() {
+        try {
+            List<Long> ids = new ArrayList<>(pendientes);
+            pendientes.removeAll(ids);
+            for (int desde = 0; desde < ids.size(); desde += IDS_POR_CONSULTA) {
+                List<Long> lote = ids.subList(desde, Math.min(desde + IDS_POR_CONSULTA, ids.size()));
+                String sql = SQL_PRODUCTOS.formatted(String.join(",", Collections.nCopies(lote.size(), "?")));
+                List<CambioProductoDTO> cambios = jdbcTemplate.query(sql, (rs, fila) -> CambioProductoDTO.builder()
+                        .idProducto(rs.getLong("id_producto"))
+                        .categoria(rs.getString("categoria"))
+                        .precio(rs.getBigDecimal("precio"))
+                        .stock(rs.getInt("stock"))
+                        .estadoStock(Producto.estadoStock(rs.getInt("stock")))
+                        .disponible(rs.getInt("stock") > 0)
+                        .build(), lote.toArray());
+                cambios.forEach(this::difundir);
+
+                // Los que no volvieron fueron eliminados
+                Set<Long> leidos = new HashSet<>();
+                cambios.forEach(cambio -> leidos.add(cambio.getIdProducto()));
+                lote.stream().filter(id -> !leidos.contains(id)).forEach(enviados::remove);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron difundir cambios de productos: {}", e.getMessage());
+        }
+    }
+
+    private void difundir(CambioProductoDTO cambio) {
+        CambioProductoDTO anterior = enviados.put(cambio.getIdProducto(), cambio);
+        if (anterior != null && Objects.equals(anterior.getStock(), cambio.getStock())
+                && anterior.getPrecio().compareTo(cambio.getPrecio()) == 0
+                && Objects.equals(anterior.getCategoria(), cambio.getCategoria())) {
+            return;
+        }
+
+        Set<Suscripcion> destino = new HashSet<>();
+        destino.addAll(sinFiltro);
+        destino.addAll(porProducto.getOrDefault(cambio.getIdProducto(), Set.of()));
+        destino.addAll(porCategoria.getOrDefault(cambio.getCategoria(), Set.of()));
+        // Si cambió de categoría, la anterior también se entera de que salió
+        if (anterior != null && !Objects.equals(anterior.getCategoria(), cambio.getCategoria())) {
+            destino.addAll(porCategoria.getOrDefault(anterior.getCategoria(), Set.of()));
+        }
+        if (destino.isEmpty()) {
+            return;
+        }
+
+        Set<ResponseBodyEmitter.DataWithMediaType> evento;
+        try {
+            evento = SseEmitter.event()
+                    .id(String.valueOf(secuencia.incrementAndGet()))
+                    .name(EVENTO)
+                    .data(objectMapper.writeValueAsString(cambio))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        destino.forEach(suscripcion -> encolar(suscripcion, evento));
+    }
+
+    /**
+     * Comentario SSE periódico: mantiene abiertas las conexiones a través de proxies
+     * y descubre las que el cliente ya cerró. Desconecta las que llevan un envío bloqueado
+     */
+    @Scheduled(fixedDelayString = "${catalogo.eventos.latido-ms:30000}")
+    public void latido() {
+        if (suscripciones.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> latido = SseEmitter.event().comment("").build();
+        long ahora = System.nanoTime();
+        for (Suscripcion suscripcion : List.copyOf(suscripciones)) {
+            long desde = suscripcion.envioDesde().get();
+            if (desde != 0 && ahora - desde > envioTimeoutNs) {
+                desconectar(suscripcion, "envío bloqueado");
+            } else {
+                encolar(suscripcion, latido);
+            }
+        }
+    }
+
+    // ============================================================
+    // ENVÍO POR CONEXIÓN
+    // ============================================================
+
+    /**
+     * Agrega un evento a la cola de la conexión sin bloquear; si está llena, el cliente no
+     * alcanza a leer y se desconecta
+     */
+    private void encolar(Suscripcion suscripcion, Set<ResponseBodyEmitter.DataWithMediaType> evento) {
+        if (!suscripcion.cola().offer(evento)) {
+            desconectar(suscripcion, "cola llena");
+            return;
+        }
+        programarEnvio(suscripcion);
+    }
+
+    private void programarEnvio(Suscripcion suscripcion) {
+        if (suscripcion.enviando().compareAndSet(false, true)) {
+            ejecutorEnvio.execute(() -> vaciar(suscripcion));
+        }
+    }
+
+    private void desconectar(Suscripcion suscripcion, String motivo) {
+        if (!suscripciones.contains(suscripcion)) {
+            return;
+        }
+        log.warn("Conexión de eventos de productos desconectada: {} ({} eventos sin enviar)",
+                motivo, suscripcion.cola().size());
+        quitar(suscripcion);
+        suscripcion.cerrada().set(true);
+        suscripcion.cola().clear();
+        // El emitter se completa en el hilo de envío: si hay un envío bloqueado, al terminar este
+        programarEnvio(suscripcion);
+    }
+
+    /**
+     * Escribe la cola de una conexión; una sola tarea por conexión a la vez
+     */
+    private void vaciar(Suscripcion suscripcion) {
+        while (true) {
+            if (suscripcion.cerrada().get()) {
+                // enviando queda en true: no se programa ningún envío más
+                suscripcion.cola().clear();
+                suscripcion.emitter().complete();
+                return;
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> evento = suscripcion.cola().poll();
+            if (evento == null) {
+                suscripcion.enviando().set(false);
+                // Un evento o una desconexión que llegó entre poll y set(false) no programó tarea
+                if ((suscripcion.cola().isEmpty() && !suscripcion.cerrada().get())
+                        || !suscripcion.enviando().compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (!enviar(suscripcion, evento)) {
+                return;
+            }
+        }
+    }
+
+    private boolean enviar(Suscripcion suscripcion, Set<ResponseBodyEmitter.DataWithMediaType> evento) {
+        suscripcion.envioDesde().set(System.nanoTime());
+        try {
+            suscripcion.emitter().send(evento);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Conexión cerrada por el cliente o ya completada
+            quitar(suscripcion);
+            suscripcion.cerrada().set(true);
+            suscripcion.cola().clear();
+            suscripcion.emitter().completeWithError(e);
+            return false;
+        } finally {
+            suscripcion.envioDesde().set(0);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+        ejecutorEnvio.shutdownNow();
+        List.copyOf(suscripciones).forEach(suscripcion -> suscripcion.emitter().complete());
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce_backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class DemasiadasSolicitudesException extends RuntimeException {
+    public DemasiadasSolicitudesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce_backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServicioSaturadoException extends RuntimeException {
+    public ServicioSaturadoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,277 @@
+package com.ecommerce_backend.exportacion;
+
+import com.ecommerce_backend.model.EstadoVenta;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exporta ventas con sus detalles directamente al stream de la respuesta.
+ *
+ * Las filas se leen con un cursor de base de datos (fetch size fijo, dentro de una
+ * transacción de solo lectura, como exige PostgreSQL) y se escriben a medida que
+ * llegan: en memoria nunca hay más que un lote de filas del driver, sin importar
+ * cuántas ventas se exporten.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExportadorVentas {
+
+    private static final String CONSULTA_BASE =
+            "SELECT v.id_venta, v.fecha_venta, v.estado, v.total, c.id_cliente, c.email, " +
+            "d.id_detalle, d.id_producto, p.nombre, d.cantidad, d.precio_unitario, d.subtotal " +
+            "FROM ventas v " +
+            "JOIN clientes c ON c.id_cliente = v.id_cliente " +
+            "LEFT JOIN detalle_ventas d ON d.id_venta = v.id_venta " +
+            "LEFT JOIN productos p ON p.id_producto = d.id_producto";
+
+    private static final String ENCABEZADO_CSV =
+            "id_venta,fecha_venta,estado,total,id_cliente,email_cliente," +
+            "id_detalle,id_producto,producto,cantidad,precio_unitario,subtotal";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${ventas.exportacion.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Escribe las ventas que cumplen los filtros (todos opcionales) en el formato indicado
+     *
+     * @param desde fecha de venta mínima (inclusive)
+     * @param hasta fecha de venta máxima (exclusive)
+     * @return cantidad de ventas exportadas
+     */
+    @Transactional(readOnly = true)
+    public long exportar(FormatoExportacion formato, LocalDateTime desde, LocalDateTime hasta,
+                         EstadoVenta estado, OutputStream salida) throws IOException {
+        StringBuilder sql = new StringBuilder(CONSULTA_BASE).append(" WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+        if (desde != null) {
+            sql.append(" AND v.fecha_venta >= ?");
+            parametros.add(Timestamp.valueOf(desde));
+        }
+        if (hasta != null) {
+            sql.append(" AND v.fecha_venta < ?");
+            parametros.add(Timestamp.valueOf(hasta));
+        }
+        if (estado != null) {
+            sql.append(" AND v.estado = ?");
+            parametros.add(estado.name());
+        }
+        sql.append(" ORDER BY v.id_venta, d.id_detalle");
+
+        EscritorVentas escritor = formato == FormatoExportacion.NDJSON
+                ? new EscritorNdjson(salida)
+                : new EscritorCsv(salida);
+
+        try {
+            jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < parametros.size(); i++) {
+                    ps.setObject(i + 1, parametros.get(i));
+                }
+                return ps;
+            }, escritor);
+            escritor.terminar();
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión a mitad de la exportación
+            throw e.getCause();
+        }
+
+        log.info("Exportación {} completada: {} ventas", formato, escritor.ventasExportadas);
+        return escritor.ventasExportadas;
+    }
+
+    // ============================================================
+    // ESCRITORES POR FORMATO
+    // ============================================================
+
+    /**
+     * Recibe las filas en orden (venta, detalle) y detecta el cambio de venta
+     */
+    private abstract static class EscritorVentas implements RowCallbackHandler {
+
+        private long ventaActual = -1;
+        long ventasExportadas;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long idVenta = rs.getLong("id_venta");
+                if (idVenta != ventaActual) {
+                    if (ventaActual != -1) {
+                        cerrarVenta();
+                    }
+                    ventaActual = idVenta;
+                    ventasExportadas++;
+                    abrirVenta(rs);
+                }
+                if (rs.getObject("id_detalle") != null) {
+                    escribirDetalle(rs);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void terminar() throws IOException {
+            if (ventaActual != -1) {
+                cerrarVenta();
+            }
+            finalizar();
+        }
+
+        abstract void abrirVenta(ResultSet rs) throws SQLException, IOException;
+
+        abstract void escribirDetalle(ResultSet rs) throws SQLException, IOException;
+
+        abstract void cerrarVenta() throws IOException;
+
+        abstract void finalizar() throws IOException;
+    }
+
+    private class EscritorNdjson extends EscritorVentas {
+
+        private final JsonGenerator json;
+
+        EscritorNdjson(OutputStream salida) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(salida)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        void abrirVenta(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("idVenta", rs.getLong("id_venta"));
+            json.writeStringField("fechaVenta", fecha(rs.getTimestamp("fecha_venta")));
+            json.writeStringField("estado", rs.getString("estado"));
+            json.writeNumberField("total", rs.getBigDecimal("total"));
+            json.writeNumberField("idCliente", rs.getLong("id_cliente"));
+            json.writeStringField("emailCliente", rs.getString("email"));
+            json.writeArrayFieldStart("detalles");
+        }
+
+        @Override
+        void escribirDetalle(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("idDetalle", rs.getLong("id_detalle"));
+            json.writeNumberField("idProducto", rs.getLong("id_producto"));
+            json.writeStringField("producto", rs.getString("nombre"));
+            json.writeNumberField("cantidad", rs.getInt("cantidad"));
+            json.writeNumberField("precioUnitario", rs.getBigDecimal("precio_unitario"));
+            json.writeNumberField("subtotal", rs.getBigDecimal("subtotal"));
+            json.writeEndObject();
+        }
+
+        @Override
+        void cerrarVenta() throws IOException {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        void finalizar() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static class EscritorCsv extends EscritorVentas {
+
+        private final Writer csv;
+        private String[] venta;
+        private boolean ventaConDetalles;
+
+        EscritorCsv(OutputStream salida) throws IOException {
+            this.csv = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            this.csv.write(ENCABEZADO_CSV);
+            this.csv.write('\n');
+        }
+
+        @Override
+        void abrirVenta(ResultSet rs) throws SQLException {
+            venta = new String[]{
+                    rs.getString("id_venta"),
+                    fecha(rs.getTimestamp("fecha_venta")),
+                    rs.getString("estado"),
+                    rs.getBigDecimal("total").toPlainString(),
+                    rs.getString("id_cliente"),
+                    rs.getString("email")
+            };
+            ventaConDetalles = false;
+        }
+
+        @Override
+        void escribirDetalle(ResultSet rs) throws SQLException, IOException {
+            escribirFila(rs.getString("id_detalle"), rs.getString("id_producto"), rs.getString("nombre"),
+                    rs.getString("cantidad"), rs.getBigDecimal("precio_unitario").toPlainString(),
+                    rs.getBigDecimal("subtotal").toPlainString());
+            ventaConDetalles = true;
+        }
+
+        @Override
+        void cerrarVenta() throws IOException {
+            // Una venta sin detalles igual aparece, con las columnas de detalle vacías
+            if (!ventaConDetalles) {
+                escribirFila(null, null, null, null, null, null);
+            }
+        }
+
+        @Override
+        void finalizar() throws IOException {
+            csv.flush();
+        }
+
+        private void escribirFila(String... detalle) throws IOException {
+            for (String campo : venta) {
+                csv.write(campoCsv(campo));
+                csv.write(',');
+            }
+            for (int i = 0; i < detalle.length; i++) {
+                if (i > 0) {
+                    csv.write(',');
+                }
+                csv.write(campoCsv(detalle[i]));
+            }
+            csv.write('\n');
+        }
+
+        private static String campoCsv(String valor) {
+            if (valor == null) {
+                return "";
+            }
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                return valor;
+            }
+            return '"' + valor.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static String fecha(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+}
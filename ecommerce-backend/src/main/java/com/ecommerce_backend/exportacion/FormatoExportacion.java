@@ -0,0 +1,40 @@
+package com.ecommerce_backend.exportacion;
+
+/**
+ * Formatos de exportación de ventas.
+ *
+ * NDJSON: una venta por línea, con sus detalles anidados.
+ * CSV: una fila por detalle, repitiendo los datos de la venta.
+ */
+public enum FormatoExportacion {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv; charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Convierte un texto (sin distinguir mayúsculas) en formato, o null si no existe
+     */
+    public static FormatoExportacion desdeTexto(String formato) {
+        for (FormatoExportacion valor : values()) {
+            if (valor.name().equalsIgnoreCase(formato)) {
+                return valor;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce_backend.facetas;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Filtros de la consulta facetada. Un filtro vacío o null no restringe.
+ * Dentro de una faceta los valores se combinan con OR, y entre facetas con AND.
+ */
+public record FiltroFacetas(
+        Set<String> categorias,
+        BigDecimal precioMin,
+        BigDecimal precioMax,
+        Set<String> estadosStock,
+        Boolean disponible) {
+}
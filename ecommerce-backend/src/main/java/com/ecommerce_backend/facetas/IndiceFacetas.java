@@ -0,0 +1,369 @@
+package com.ecommerce_backend.facetas;
+
+import com.ecommerce_backend.exception.BusinessException;
+import com.ecommerce_backend.model.Producto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índices de bits en memoria para la consulta facetada del catálogo
+ * (categoría, rango de precio, estado de stock y disponibilidad).
+ *
+ * - Un MapaBits por valor de cada faceta, indexado por ID de producto.
+ * - Una consulta recorre una sola vez las palabras de 64 bits: en cada palabra combina
+ *   los filtros con AND/OR, cuenta todas las facetas con bitCount y toma los IDs de la página.
+ * - Los cambios de productos y stock marcan sus IDs al hacer commit. Antes de cada consulta
+ *   esos productos se releen de la base de datos, así que el resultado nunca queda atrás
+ *   de un commit ya confirmado.
+ */
+@Component
+@Slf4j
+public class IndiceFacetas {
+
+    public static final List<String> ESTADOS_STOCK = List.of("AGOTADO", "POCAS_UNIDADES", "DISPONIBLE");
+
+    private static final String SQL_PRODUCTOS = "SELECT id_producto, categoria, precio, stock FROM productos";
+    private static final int IDS_POR_CONSULTA = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Límites entre rangos de precio, en centavos: el rango i es [limites[i-1], limites[i])
+     */
+    private final long[] limitesPrecio;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private final MapaBits todos = new MapaBits();
+    private final Map<String, MapaBits> porCategoria = new TreeMap<>();
+    private final Map<String, MapaBits> porEstado = new LinkedHashMap<>();
+    private final MapaBits[] porRangoPrecio;
+    private final Map<Integer, Entrada> entradas = new HashMap<>();
+    private volatile boolean cargado;
+
+    /**
+     * Valores indexados de un producto, para quitar sus bits al actualizarlo
+     */
+    private record Entrada(String categoria, String estado, int rango, long precio) {
+    }
+
+    public IndiceFacetas(
+            JdbcTemplate jdbcTemplate,
+            @Value("${catalogo.facetas.rangos-precio:50000,100000,500000,1000000,2500000,5000000}") long[] rangosPrecio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.limitesPrecio = new long[rangosPrecio.length];
+        for (int i = 0; i < rangosPrecio.length; i++) {
+            limitesPrecio[i] = rangosPrecio[i] * 100;
+        }
+        this.porRangoPrecio = new MapaBits[rangosPrecio.length + 1];
+        for (int i = 0; i < porRangoPrecio.length; i++) {
+            porRangoPrecio[i] = new MapaBits();
+        }
+        ESTADOS_STOCK.forEach(estado -> porEstado.put(estado, new MapaBits()));
+    }
+
+    /**
+     * Límites de los rangos de precio (en pesos), para rotular los conteos
+     */
+    public BigDecimal[] limitesPrecio() {
+        BigDecimal[] limites = new BigDecimal[limitesPrecio.length];
+        for (int i = 0; i < limites.length; i++) {
+            limites[i] = BigDecimal.valueOf(limitesPrecio[i] / 100);
+        }
+        return limites;
+    }
+
+    // ============================================================
+    // CARGA Y ACTUALIZACIÓN
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        lock.writeLock().lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            jdbcTemplate.query(SQL_PRODUCTOS, (RowCallbackHandler) this::indexar);
+            cargado = true;
+            log.info("Índice de facetas cargado: {} productos en {} ms",
+                    entradas.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca productos cuyo stock, precio o categoría cambió (o que se crearon o eliminaron);
+     * se releen antes de la siguiente consulta
+     */
+    public void marcarTrasCommit(Collection<Long> idsProductos) {
+        if (idsProductos.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(idsProductos);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendientes.addAll(ids);
+                }
+            });
+        } else {
+            pendientes.addAll(ids);
+        }
+    }
+
+    public void marcarTrasCommit(Long idProducto) {
+        marcarTrasCommit(List.of(idProducto));
+    }
+
+    private void refrescarPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(pendientes);
+            pendientes.removeAll(ids);
+            for (int desde = 0; desde < ids.size(); desde += IDS_POR_CONSULTA) {
+                List<Long> lote = ids.subList(desde, Math.min(desde + IDS_POR_CONSULTA, ids.size()));
+                // Los que no vuelvan en la consulta fueron eliminados
+                lote.forEach(id -> quitar(Math.toIntExact(id)));
+                jdbcTemplate.query(SQL_PRODUCTOS + " WHERE id_producto IN ("
+                                + String.join(",", Collections.nCopies(lote.size(), "?")) + ")",
+                        (RowCallbackHandler) this::indexar, lote.toArray());
+            }
+            log.debug("Índice de facetas actualizado para {} productos", ids.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexar(ResultSet rs) throws SQLException {
+        int id = Math.toIntExact(rs.getLong("id_producto"));
+        String categoria = rs.getString("categoria");
+        long precio = rs.getBigDecimal("precio").movePointRight(2).longValue();
+        String estado = Producto.estadoStock(rs.getInt("stock"));
+        int rango = rango(precio);
+
+        quitar(id);
+        entradas.put(id, new Entrada(categoria, estado, rango, precio));
+        todos.agregar(id);
+        if (categoria != null) {
+            porCategoria.computeIfAbsent(categoria, c -> new MapaBits()).agregar(id);
+        }
+        porEstado.get(estado).agregar(id);
+        porRangoPrecio[rango].agregar(id);
+    }
+
+    private void quitar(int id) {
+        Entrada entrada = entradas.remove(id);
+        if (entrada == null) {
+            return;
+        }
+        todos.quitar(id);
+        if (entrada.categoria() != null) {
+            porCategoria.get(entrada.categoria()).quitar(id);
+        }
+        porEstado.get(entrada.estado()).quitar(id);
+        porRangoPrecio[entrada.rango()].quitar(id);
+    }
+
+    private int rango(long precio) {
+        int rango = 0;
+        while (rango < limitesPrecio.length && precio >= limitesPrecio[rango]) {
+            rango++;
+        }
+        return rango;
+    }
+
+    // ============================================================
+    // CONSULTA
+    // ============================================================
+
+    /**
+     * Productos que cumplen los filtros (por ID, desde despuesDe) y conteos por faceta
+     *
+     * @param limite se devuelven hasta limite + 1 IDs para saber si hay otra página
+     */
+    public ResultadoFacetas consultar(FiltroFacetas filtro, long despuesDe, int limite) {
+        if (!cargado) {
+            cargar();
+        }
+        refrescarPendientes();
+        validar(filtro);
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<String, MapaBits>> categorias = new ArrayList<>(porCategoria.entrySet());
+            List<MapaBits> categoriasFiltro = seleccion(porCategoria, filtro.categorias());
+            List<MapaBits> estadosFiltro = seleccion(porEstado, filtro.estadosStock());
+            MapaBits agotados = porEstado.get("AGOTADO");
+            long precioMin = filtro.precioMin() != null
+                    ? filtro.precioMin().setScale(2, RoundingMode.CEILING).unscaledValue().longValue() : Long.MIN_VALUE;
+            long precioMax = filtro.precioMax() != null
+                    ? filtro.precioMax().setScale(2, RoundingMode.FLOOR).unscaledValue().longValue() : Long.MAX_VALUE;
+            boolean filtraPrecio = filtro.precioMin() != null || filtro.precioMax() != null;
+
+            long[] conteoCategorias = new long[categorias.size()];
+            long[] conteoEstados = new long[ESTADOS_STOCK.size()];
+            long[] conteoRangos = new long[porRangoPrecio.length];
+            long total = 0;
+            long conteoDisponibles = 0;
+            long conteoAgotados = 0;
+            List<Long> ids = new ArrayList<>();
+
+            int primeraPalabra = (int) Math.min(Math.max(0, despuesDe + 1) >>> 6, Integer.MAX_VALUE);
+            int palabras = todos.cantidadPalabras();
+            for (int w = 0; w < palabras; w++) {
+                long existentes = todos.palabra(w);
+                if (existentes == 0) {
+                    continue;
+                }
+
+                long fCategoria = categoriasFiltro == null ? existentes : unir(categoriasFiltro, w);
+                long fEstado = estadosFiltro == null ? existentes : unir(estadosFiltro, w);
+                long fPrecio = filtraPrecio ? filtrarPrecio(w, existentes, precioMin, precioMax) : existentes;
+                long fDisponible = filtro.disponible() == null ? existentes
+                        : filtro.disponible() ? existentes & ~agotados.palabra(w) : agotados.palabra(w);
+
+                long coincidentes = existentes & fCategoria & fEstado & fPrecio & fDisponible;
+                total += Long.bitCount(coincidentes);
+
+                // Conteo de cada faceta con los filtros de las demás
+                long sinCategoria = existentes & fEstado & fPrecio & fDisponible;
+                for (int i = 0; i < conteoCategorias.length; i++) {
+                    conteoCategorias[i] += Long.bitCount(categorias.get(i).getValue().palabra(w) & sinCategoria);
+                }
+                long sinEstado = existentes & fCategoria & fPrecio & fDisponible;
+                for (int i = 0; i < conteoEstados.length; i++) {
+                    conteoEstados[i] += Long.bitCount(porEstado.get(ESTADOS_STOCK.get(i)).palabra(w) & sinEstado);
+                }
+                long sinPrecio = existentes & fCategoria & fEstado & fDisponible;
+                for (int i = 0; i < conteoRangos.length; i++) {
+                    conteoRangos[i] += Long.bitCount(porRangoPrecio[i].palabra(w) & sinPrecio);
+                }
+                long sinDisponible = existentes & fCategoria & fEstado & fPrecio;
+                conteoAgotados += Long.bitCount(agotados.palabra(w) & sinDisponible);
+                conteoDisponibles += Long.bitCount(~agotados.palabra(w) & sinDisponible);
+
+                // IDs de la página: los bits de la palabra están en orden de ID
+                if (w >= primeraPalabra && ids.size() <= limite) {
+                    long restantes = coincidentes;
+                    while (restantes != 0 && ids.size() <= limite) {
+                        long id = ((long) w << 6) + Long.numberOfTrailingZeros(restantes);
+                        if (id > despuesDe) {
+                            ids.add(id);
+                        }
+                        restantes &= restantes - 1;
+                    }
+                }
+            }
+
+            Map<String, Long> porValorCategoria = new LinkedHashMap<>();
+            for (int i = 0; i < conteoCategorias.length; i++) {
+                porValorCategoria.put(categorias.get(i).getKey(), conteoCategorias[i]);
+            }
+            Map<String, Long> porValorEstado = new LinkedHashMap<>();
+            for (int i = 0; i < conteoEstados.length; i++) {
+                porValorEstado.put(ESTADOS_STOCK.get(i), conteoEstados[i]);
+            }
+
+            boolean hayMas = ids.size() > limite;
+            return new ResultadoFacetas(hayMas ? ids.subList(0, limite) : ids, hayMas, total,
+                    porValorCategoria, porValorEstado, conteoRangos, conteoDisponibles, conteoAgotados);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void validar(FiltroFacetas filtro) {
+        if (filtro.estadosStock() != null && !ESTADOS_STOCK.containsAll(filtro.estadosStock())) {
+            throw new BusinessException("Estado de stock inválido. Valores permitidos: " + ESTADOS_STOCK);
+        }
+        if (filtro.precioMin() != null && filtro.precioMax() != null
+                && filtro.precioMin().compareTo(filtro.precioMax()) > 0) {
+            throw new BusinessException("precioMin no puede ser mayor que precioMax");
+        }
+    }
+
+    /**
+     * Bitmaps de los valores elegidos, o null si la faceta no filtra
+     */
+    private static List<MapaBits> seleccion(Map<String, MapaBits> porValor, Set<String> valores) {
+        if (valores == null || valores.isEmpty()) {
+            return null;
+        }
+        List<MapaBits> seleccion = new ArrayList<>();
+        for (String valor : valores) {
+            MapaBits bits = porValor.get(valor);
+            if (bits != null) {
+                seleccion.add(bits);
+            }
+        }
+        return seleccion;
+    }
+
+    private static long unir(List<MapaBits> bitmaps, int w) {
+        long palabra = 0;
+        for (MapaBits bits : bitmaps) {
+            palabra |= bits.palabra(w);
+        }
+        return palabra;
+    }
+
+    /**
+     * Productos de la palabra w con precio en [min, max]. Los rangos completamente dentro
+     * se toman enteros; solo los de los bordes se revisan producto por producto.
+     */
+    private long filtrarPrecio(int w, long existentes, long min, long max) {
+        long palabra = 0;
+        for (int i = 0; i < porRangoPrecio.length; i++) {
+            long desde = i == 0 ? Long.MIN_VALUE : limitesPrecio[i - 1];
+            long hasta = i == limitesPrecio.length ? Long.MAX_VALUE : limitesPrecio[i] - 1;
+            if (hasta < min || desde > max) {
+                continue;
+            }
+            long bits = porRangoPrecio[i].palabra(w) & existentes;
+            if (desde >= min && hasta <= max) {
+                palabra |= bits;
+                continue;
+            }
+            while (bits != 0) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(bits);
+                long precio = entradas.get(id).precio();
+                if (precio >= min && precio <= max) {
+                    palabra |= 1L << id;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return palabra;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce_backend.facetas;
+
+import java.util.Arrays;
+
+/**
+ * Bitmap de IDs de producto sobre un long[] que crece a demanda.
+ *
+ * Los IDs son IDENTITY (densos), así que un bit por ID ocupa poco: 100.000 productos
+ * son ~12 KB por valor de faceta. Expone sus palabras de 64 bits para que IndiceFacetas
+ * combine varios bitmaps palabra a palabra.
+ */
+final class MapaBits {
+
+    private long[] palabras = new long[16];
+
+    void agregar(int id) {
+        int indice = id >>> 6;
+        if (indice >= palabras.length) {
+            palabras = Arrays.copyOf(palabras, Math.max(indice + 1, palabras.length * 2));
+        }
+        palabras[indice] |= 1L << id;
+    }
+
+    void quitar(int id) {
+        int indice = id >>> 6;
+        if (indice < palabras.length) {
+            palabras[indice] &= ~(1L << id);
+        }
+    }
+
+    /**
+     * Palabra i del bitmap (0 si el bitmap no llega hasta ahí)
+     */
+    long palabra(int i) {
+        return i < palabras.length ? palabras[i] : 0L;
+    }
+
+    int cantidadPalabras() {
+        return palabras.length;
+    }
+}
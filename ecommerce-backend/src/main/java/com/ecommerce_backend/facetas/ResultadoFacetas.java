@@ -0,0 +1,21 @@
+package com.ecommerce_backend.facetas;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IDs de la página pedida y conteos por faceta.
+ *
+ * El conteo de cada valor aplica todos los filtros excepto el de su propia faceta
+ * (conteo disjunto): muestra cuántos productos habría al elegir ese valor.
+ */
+public record ResultadoFacetas(
+        List<Long> ids,
+        boolean hayMas,
+        long total,
+        Map<String, Long> categorias,
+        Map<String, Long> estadosStock,
+        long[] rangosPrecio,
+        long disponibles,
+        long agotados) {
+}
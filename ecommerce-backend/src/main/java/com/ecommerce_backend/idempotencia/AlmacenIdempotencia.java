@@ -0,0 +1,108 @@
+package com.ecommerce_backend.idempotencia;
+
+import com.ecommerce_backend.exception.BusinessException;
+import com.ecommerce_backend.exception.DuplicateResourceException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Almacén acotado de claves Idempotency-Key con expiración por TTL.
+ *
+ * Se consulta antes de cualquier acceso a la base de datos: un reintento con la
+ * misma clave devuelve la respuesta guardada sin abrir una transacción.
+ *
+ * - Las claves se separan por usuario autenticado; sin usuario no se aceptan (400)
+ * - Un reintento mientras la operación original sigue en curso recibe 409
+ * - Reutilizar una clave con otra solicitud, o con otra operación (ej: la misma clave
+ *   en POST /api/ventas síncrono y con Prefer: respond-async), es un error (400)
+ * - Si la operación falla, la clave se libera para permitir el reintento
+ */
+@Component
+@Slf4j
+public class AlmacenIdempotencia {
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private final Cache<String, Entrada> entradas;
+
+    public AlmacenIdempotencia(
+            @Value("${idempotencia.ttl-min:60}") long ttlMinutos,
+            @Value("${idempotencia.max-claves:100000}") long maxClaves) {
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(maxClaves)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .build();
+    }
+
+    private static final class Entrada {
+        private final String operacion;
+        private final Object solicitud;
+        private volatile Object respuesta;
+
+        private Entrada(String operacion, Object solicitud) {
+            this.operacion = operacion;
+            this.solicitud = solicitud;
+        }
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave, o devuelve la respuesta ya guardada
+     *
+     * @param nombreOperacion  identifica la operación (y el tipo de su respuesta) dentro de la huella
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RespuestaIdempotente<T> ejecutar(String nombreOperacion, String clave, Object solicitud,
+                                                Supplier<T> operacion) {
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new BusinessException("La Idempotency-Key debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+
+        String claveUsuario = usuarioActual() + ":" + clave;
+        Entrada nueva = new Entrada(nombreOperacion, solicitud);
+        Entrada existente = entradas.asMap().putIfAbsent(claveUsuario, nueva);
+
+        if (existente != null) {
+            if (!existente.operacion.equals(nombreOperacion)) {
+                throw new BusinessException("La Idempotency-Key ya se usó con otra operación");
+            }
+            if (!existente.solicitud.equals(solicitud)) {
+                throw new BusinessException("La Idempotency-Key ya se usó con una solicitud distinta");
+            }
+            if (existente.respuesta == null) {
+                throw new DuplicateResourceException("Ya hay una solicitud en curso con esta Idempotency-Key");
+            }
+            log.info("Solicitud repetida con Idempotency-Key {}, se devuelve la respuesta guardada", clave);
+            return new RespuestaIdempotente<>((T) existente.respuesta, true);
+        }
+
+        try {
+            T respuesta = operacion.get();
+            nueva.respuesta = respuesta;
+            return new RespuestaIdempotente<>(respuesta, false);
+        } catch (RuntimeException e) {
+            entradas.asMap().remove(claveUsuario, nueva);
+            throw e;
+        }
+    }
+
+    /**
+     * Todos los anónimos compartirían un mismo espacio de claves: se exige un usuario autenticado
+     */
+    private String usuarioActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            throw new BusinessException("La Idempotency-Key requiere un usuario autenticado");
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,9 @@
+package com.ecommerce_backend.idempotencia;
+
+/**
+ * Resultado de una operación idempotente.
+ *
+ * @param valor     respuesta de la operación (original o repetida)
+ * @param repetida  true si se devolvió la respuesta guardada sin ejecutar la operación
+ */
+public record RespuestaIdempotente<T>(T valor, boolean repetida) {}
@@ -0,0 +1,214 @@
+package com.ecommerce_backend.imagen;
+
+import com.ecommerce_backend.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de imágenes direccionado por contenido en disco local.
+ *
+ * Cada imagen se guarda una sola vez como {sha256}.{extensión} (repartidas en
+ * subdirectorios por los dos primeros caracteres del hash). Esa referencia es lo
+ * único que queda en productos.imagen, y como su contenido nunca cambia se puede
+ * servir con caché inmutable.
+ *
+ * Las URLs que se entregan son absolutas (url-publica) cuando el frontend se sirve
+ * desde otro origen que la API: una ruta relativa se resolvería contra el frontend.
+ */
+@Component
+@Slf4j
+public class AlmacenImagenes {
+
+    /**
+     * Ruta pública de las imágenes (ver ImagenController)
+     */
+    public static final String RUTA_PUBLICA = "/api/imagenes/";
+
+    /**
+     * Largo máximo de productos.imagen: referencia, URL externa o ruta de assets
+     */
+    public static final int LARGO_MAXIMO_REFERENCIA = 500;
+
+    private static final Pattern REFERENCIA = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|gif|webp|avif|svg)");
+    private static final Pattern DATA_URI = Pattern.compile("^data:([\\w.+-]+/[\\w.+-]+)(;[^,]*)?;base64,", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, String> EXTENSIONES = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/jpg", "jpg",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "image/avif", "avif",
+            "image/svg+xml", "svg"
+    );
+
+    private static final Map<String, MediaType> TIPOS = Map.of(
+            "png", MediaType.IMAGE_PNG,
+            "jpg", MediaType.IMAGE_JPEG,
+            "gif", MediaType.IMAGE_GIF,
+            "webp", MediaType.parseMediaType("image/webp"),
+            "avif", MediaType.parseMediaType("image/avif"),
+            "svg", MediaType.parseMediaType("image/svg+xml")
+    );
+
+    private final Path directorio;
+    private final long tamanoMaximo;
+    // Prefijo de las URLs entregadas: origen público de la API + RUTA_PUBLICA (o solo RUTA_PUBLICA)
+    private final String prefijoUrl;
+
+    public AlmacenImagenes(
+            @Value("${imagenes.almacen.directorio:data/imagenes}") String directorio,
+            @Value("${imagenes.almacen.tamano-maximo:10485760}") long tamanoMaximo,
+            @Value("${imagenes.url-publica:}") String urlPublica) throws IOException {
+        this.directorio = Files.createDirectories(Path.of(directorio)).toAbsolutePath();
+        this.tamanoMaximo = tamanoMaximo;
+        this.prefijoUrl = urlPublica.strip().replaceAll("/+$", "") + RUTA_PUBLICA;
+        log.info("Almacén de imágenes en {}", this.directorio);
+    }
+
+    // ============================================================
+    // ESCRITURA
+    // ============================================================
+
+    /**
+     * Guarda la imagen (si no existía ya) y retorna su referencia
+     */
+    public String guardar(byte[] contenido, String contentType) {
+        String extension = contentType != null ? EXTENSIONES.get(contentType.toLowerCase()) : null;
+        if (extension == null) {
+            throw new BusinessException("Tipo de imagen no soportado: " + contentType
+                    + ". Tipos soportados: " + EXTENSIONES.keySet());
+        }
+        if (contenido.length == 0 || contenido.length > tamanoMaximo) {
+            throw new BusinessException("La imagen debe tener entre 1 y " + tamanoMaximo + " bytes");
+        }
+
+        String referencia = sha256(contenido) + "." + extension;
+        Path destino = ruta(referencia);
+        if (Files.exists(destino)) {
+            return referencia;
+        }
+
+        try {
+            Files.createDirectories(destino.getParent());
+            // Escritura atómica: nunca se sirve un archivo a medio escribir
+            Path temporal = Files.createTempFile(destino.getParent(), referencia, ".tmp");
+            try {
+                Files.write(temporal, contenido);
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen " + referencia, e);
+        }
+
+        log.debug("Imagen guardada: {} ({} bytes)", referencia, contenido.length);
+        return referencia;
+    }
+
+    /**
+     * Guarda el contenido de un data URI ("data:image/png;base64,...")
+     */
+    public String guardarDataUri(String dataUri) {
+        Matcher matcher = DATA_URI.matcher(dataUri);
+        if (!matcher.lookingAt()) {
+            throw new BusinessException("Data URI de imagen inválido: solo se aceptan imágenes en base64");
+        }
+
+        byte[] contenido;
+        try {
+            contenido = Base64.getMimeDecoder().decode(dataUri.substring(matcher.end()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Data URI de imagen inválido: base64 mal formado");
+        }
+        return guardar(contenido, matcher.group(1));
+    }
+
+    /**
+     * Valor a persistir en productos.imagen: los data URI se mueven al almacén,
+     * las URLs del propio almacén (absolutas o relativas) vuelven a su referencia y el
+     * resto (URLs externas, rutas de assets del frontend) se conserva tal cual.
+     */
+    public String normalizar(String imagen) {
+        if (imagen == null || imagen.isBlank()) {
+            return null;
+        }
+        if (esDataUri(imagen)) {
+            return guardarDataUri(imagen);
+        }
+        for (String prefijo : new String[]{prefijoUrl, RUTA_PUBLICA}) {
+            if (imagen.startsWith(prefijo) && esReferencia(imagen.substring(prefijo.length()))) {
+                return imagen.substring(prefijo.length());
+            }
+        }
+        if (imagen.length() > LARGO_MAXIMO_REFERENCIA) {
+            throw new BusinessException("La imagen debe ser un data URI o una URL de hasta "
+                    + LARGO_MAXIMO_REFERENCIA + " caracteres");
+        }
+        return imagen;
+    }
+
+    // ============================================================
+    // LECTURA
+    // ============================================================
+
+    /**
+     * Archivo de la imagen, si la referencia es válida y existe
+     */
+    public Optional<Path> buscar(String referencia) {
+        if (!esReferencia(referencia)) {
+            return Optional.empty();
+        }
+        Path archivo = ruta(referencia);
+        return Files.isRegularFile(archivo) ? Optional.of(archivo) : Optional.empty();
+    }
+
+    public static MediaType tipo(String referencia) {
+        return TIPOS.getOrDefault(referencia.substring(referencia.lastIndexOf('.') + 1),
+                MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * URL pública de lo guardado en productos.imagen (las URLs externas se devuelven tal cual)
+     */
+    public String url(String imagen) {
+        return imagen != null && esReferencia(imagen) ? prefijoUrl + imagen : imagen;
+    }
+
+    public static boolean esReferencia(String valor) {
+        return REFERENCIA.matcher(valor).matches();
+    }
+
+    public static boolean esDataUri(String valor) {
+        return valor.regionMatches(true, 0, "data:", 0, 5);
+    }
+
+    private Path ruta(String referencia) {
+        return directorio.resolve(referencia.substring(0, 2)).resolve(referencia);
+    }
+
+    private static String sha256(byte[] contenido) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
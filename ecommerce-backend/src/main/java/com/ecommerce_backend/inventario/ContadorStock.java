@@ -0,0 +1,130 @@
+package com.ecommerce_backend.inventario;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Contador de stock de un SKU repartido en varias celdas (stripes) independientes.
+ *
+ * Cada hilo empieza por "su" celda y solo recorre las demás si no le alcanza,
+ * así los compradores concurrentes de un mismo producto no compiten por el mismo
+ * CAS. Ninguna celda baja de cero, por lo que nunca se admite más de lo disponible.
+ *
+ * Las celdas se separan PADDING posiciones (64 bytes) para evitar false sharing.
+ */
+final class ContadorStock {
+
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray disponibles;
+    private final AtomicIntegerArray pendientes;
+
+    ContadorStock(int stockInicial, int stripes) {
+        this.stripes = stripes;
+        this.disponibles = new AtomicIntegerArray(stripes * PADDING);
+        this.pendientes = new AtomicIntegerArray(stripes * PADDING);
+
+        int base = stockInicial / stripes;
+        int resto = stockInicial % stripes;
+        for (int i = 0; i < stripes; i++) {
+            disponibles.set(i * PADDING, base + (i < resto ? 1 : 0));
+        }
+    }
+
+    /**
+     * Reserva la cantidad completa o nada (se devuelve lo tomado parcialmente)
+     */
+    boolean reservar(int cantidad) {
+        int inicio = celdaPropia();
+        int[] tomado = new int[stripes];
+        int restante = cantidad;
+
+        for (int i = 0; i < stripes && restante > 0; i++) {
+            int celda = (inicio + i) % stripes;
+            tomado[celda] = tomarHasta(celda, restante);
+            restante -= tomado[celda];
+        }
+
+        if (restante == 0) {
+            return true;
+        }
+
+        for (int celda = 0; celda < stripes; celda++) {
+            if (tomado[celda] > 0) {
+                disponibles.addAndGet(celda * PADDING, tomado[celda]);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Devuelve unidades al stock disponible (venta revertida o cancelada)
+     */
+    void devolver(int cantidad) {
+        disponibles.addAndGet(celdaPropia() * PADDING, cantidad);
+    }
+
+    /**
+     * Ajuste administrativo: suma si es positivo, descuenta hasta cero si es negativo
+     */
+    void ajustar(int delta) {
+        if (delta >= 0) {
+            devolver(delta);
+            return;
+        }
+        int restante = -delta;
+        for (int celda = 0; celda < stripes && restante > 0; celda++) {
+            restante -= tomarHasta(celda, restante);
+        }
+    }
+
+    /**
+     * Registra unidades vendidas (ya confirmadas) que aún no se persisten
+     */
+    void confirmar(int cantidad) {
+        pendientes.addAndGet(celdaPropia() * PADDING, cantidad);
+    }
+
+    /**
+     * Descuenta unidades pendientes que ya se persistieron
+     */
+    void persistido(int cantidad) {
+        pendientes.addAndGet(celdaPropia() * PADDING, -cantidad);
+    }
+
+    int disponible() {
+        int total = 0;
+        for (int celda = 0; celda < stripes; celda++) {
+            total += disponibles.get(celda * PADDING);
+        }
+        return total;
+    }
+
+    int pendiente() {
+        int total = 0;
+        for (int celda = 0; celda < stripes; celda++) {
+            total += pendientes.get(celda * PADDING);
+        }
+        return total;
+    }
+
+    private int tomarHasta(int celda, int maximo) {
+        int indice = celda * PADDING;
+        while (true) {
+            int actual = disponibles.get(indice);
+            if (actual <= 0) {
+                return 0;
+            }
+            int tomar = Math.min(actual, maximo);
+            if (disponibles.compareAndSet(indice, actual, actual - tomar)) {
+                return tomar;
+            }
+        }
+    }
+
+    private int celdaPropia() {
+        // Mezcla el id del hilo para repartir hilos consecutivos entre celdas
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 32) % stripes);
+    }
+}
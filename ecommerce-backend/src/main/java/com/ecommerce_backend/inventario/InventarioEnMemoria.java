@@ -0,0 +1,262 @@
+package com.ecommerce_backend.inventario;
+
+import com.ecommerce_backend.dto.DivergenciaInventarioDTO;
+import com.ecommerce_backend.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de inventario en memoria para ventas flash (opcional).
+ *
+ * Se habilita con inventario.memoria.habilitado=true. Mientras está activo:
+ * - procesarVenta admite o rechaza líneas contra contadores en memoria, sin bloquear filas
+ * - las unidades vendidas se anotan en inventario_pendiente dentro de la transacción de la
+ *   venta (inserts, sin tocar la fila del producto) y InventarioFlusher las aplica en lotes
+ * - al arrancar, el stock de cada producto es el persistido menos sus unidades pendientes:
+ *   una caída antes del flush no pierde ventas ni permite sobreventa
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventario.memoria", name = "habilitado", havingValue = "true")
+@Slf4j
+public class InventarioEnMemoria {
+
+    // Stock persistido y unidades pendientes en una sola consulta (misma foto de ambas tablas)
+    private static final String SQL_STOCK_Y_PENDIENTES =
+            "SELECT p.id_producto, p.stock, COALESCE(SUM(m.cantidad), 0) FROM productos p " +
+            "LEFT JOIN inventario_pendiente m ON m.id_producto = p.id_producto ";
+    private static final String SQL_AGRUPAR = "GROUP BY p.id_producto, p.stock";
+    private static final String SQL_INSERTAR_PENDIENTE =
+            "INSERT INTO inventario_pendiente (id_producto, cantidad) VALUES (?, ?)";
+    private static final String SQL_BORRAR_PENDIENTES =
+            "DELETE FROM inventario_pendiente WHERE id_producto = ?";
+
+    private final ProductoRepository productoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int stripes;
+    private final ConcurrentHashMap<Long, ContadorStock> contadores = new ConcurrentHashMap<>();
+
+    public InventarioEnMemoria(
+            ProductoRepository productoRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${inventario.memoria.stripes:8}") int stripes) {
+        this.productoRepository = productoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = stripes;
+    }
+
+    // ============================================================
+    // RECUPERACIÓN DESDE LA BASE DE DATOS
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarDesdeBaseDeDatos() {
+        int[] cargados = new int[1];
+        jdbcTemplate.query(SQL_STOCK_Y_PENDIENTES + SQL_AGRUPAR, rs -> {
+            long idProducto = rs.getLong(1);
+            int stock = rs.getInt(2);
+            int pendiente = rs.getInt(3);
+            contadores.computeIfAbsent(idProducto, id -> contadorConPendientes(stock, pendiente));
+            cargados[0]++;
+        });
+        log.info("Inventario en memoria cargado: {} productos", cargados[0]);
+    }
+
+    /**
+     * Registra un producto que aún no está en memoria con su stock persistido menos sus unidades pendientes
+     */
+    public void registrarSiAusente(Long idProducto) {
+        contadores.computeIfAbsent(idProducto, id -> {
+            int[] stockYPendiente = new int[2];
+            jdbcTemplate.query(SQL_STOCK_Y_PENDIENTES + "WHERE p.id_producto = ? " + SQL_AGRUPAR, rs -> {
+                stockYPendiente[0] = rs.getInt(2);
+                stockYPendiente[1] = rs.getInt(3);
+            }, id);
+            return contadorConPendientes(stockYPendiente[0], stockYPendiente[1]);
+        });
+    }
+
+    private ContadorStock contadorConPendientes(int stockPersistido, int pendiente) {
+        ContadorStock contador = nuevoContador(Math.max(0, stockPersistido - pendiente));
+        contador.confirmar(pendiente);
+        return contador;
+    }
+
+    // ============================================================
+    // RESERVAS DE VENTA
+    // ============================================================
+
+    /**
+     * Reserva todas las líneas de una venta o ninguna y las anota en inventario_pendiente.
+     * Al terminar la transacción actual las unidades se confirman (commit)
+     * o se devuelven (rollback), igual que la anotación.
+     *
+     * @return null si se reservó todo, o el ID del primer producto sin stock suficiente
+     */
+    public Long reservarVenta(Map<Long, Integer> cantidadesPorProducto) {
+        Map<Long, Integer> reservadas = new TreeMap<>();
+
+        for (Map.Entry<Long, Integer> entry : cantidadesPorProducto.entrySet()) {
+            ContadorStock contador = contadores.get(entry.getKey());
+            if (contador == null || !contador.reservar(entry.getValue())) {
+                reservadas.forEach(this::liberar);
+                return entry.getKey();
+            }
+            reservadas.put(entry.getKey(), entry.getValue());
+        }
+
+        List<Object[]> movimientos = reservadas.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        reservadas.forEach(InventarioEnMemoria.this::confirmar);
+                    } else {
+                        reservadas.forEach(InventarioEnMemoria.this::liberar);
+                    }
+                }
+            });
+            jdbcTemplate.batchUpdate(SQL_INSERTAR_PENDIENTE, movimientos);
+        } else {
+            try {
+                jdbcTemplate.batchUpdate(SQL_INSERTAR_PENDIENTE, movimientos);
+            } catch (RuntimeException e) {
+                reservadas.forEach(this::liberar);
+                throw e;
+            }
+            reservadas.forEach(this::confirmar);
+        }
+        return null;
+    }
+
+    private void confirmar(Long idProducto, Integer cantidad) {
+        ContadorStock contador = contadores.get(idProducto);
+        if (contador != null) {
+            contador.confirmar(cantidad);
+        }
+    }
+
+    private void liberar(Long idProducto, Integer cantidad) {
+        ContadorStock contador = contadores.get(idProducto);
+        if (contador != null) {
+            contador.devolver(cantidad);
+        }
+    }
+
+    // ============================================================
+    // CAMBIOS ESCRITOS DIRECTAMENTE EN LA BASE DE DATOS
+    // ============================================================
+
+    /**
+     * Refleja en memoria un ajuste de stock ya escrito en la BD (al hacer commit)
+     */
+    public void ajustarTrasCommit(Long idProducto, int delta) {
+        trasCommit(() -> {
+            ContadorStock contador = contadores.get(idProducto);
+            if (contador != null) {
+                contador.ajustar(delta);
+            }
+        });
+    }
+
+    /**
+     * Reemplaza el stock en memoria por un valor absoluto escrito en la BD.
+     * Descarta las unidades pendientes del producto (en la transacción actual): el valor nuevo ya es el real.
+     */
+    public void establecerTrasCommit(Long idProducto, Integer stock) {
+        jdbcTemplate.update(SQL_BORRAR_PENDIENTES, idProducto);
+        trasCommit(() -> contadores.put(idProducto, nuevoContador(stock)));
+    }
+
+    public void eliminarTrasCommit(Long idProducto) {
+        jdbcTemplate.update(SQL_BORRAR_PENDIENTES, idProducto);
+        trasCommit(() -> contadores.remove(idProducto));
+    }
+
+    private void trasCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    // ============================================================
+    // WRITE-BEHIND
+    // ============================================================
+
+    /**
+     * Descuenta de pendientes las unidades que InventarioFlusher ya aplicó en la BD
+     */
+    public void registrarPersistidos(Map<Long, Integer> deltas) {
+        deltas.forEach((idProducto, cantidad) -> {
+            ContadorStock contador = contadores.get(idProducto);
+            if (contador != null) {
+                contador.persistido(cantidad);
+            }
+        });
+    }
+
+    /**
+     * Descarta el contador de un producto cuyo stock persistido cambió por fuera del motor:
+     * la próxima venta lo carga de nuevo desde la base de datos
+     */
+    public void descartar(Long idProducto) {
+        contadores.remove(idProducto);
+    }
+
+    // ============================================================
+    // DIVERGENCIA MEMORIA / BASE DE DATOS
+    // ============================================================
+
+    /**
+     * Compara el stock en memoria con el persistido y retorna los productos que difieren
+     */
+    public List<DivergenciaInventarioDTO> calcularDivergencia() {
+        List<DivergenciaInventarioDTO> divergencias = new ArrayList<>();
+
+        for (ProductoRepository.StockProducto stock : productoRepository.findAllStock()) {
+            ContadorStock contador = contadores.get(stock.getIdProducto());
+            if (contador == null) {
+                continue;
+            }
+
+            int stockMemoria = contador.disponible();
+            int divergencia = stock.getStock() - stockMemoria;
+            if (divergencia != 0) {
+                divergencias.add(DivergenciaInventarioDTO.builder()
+                        .idProducto(stock.getIdProducto())
+                        .stockMemoria(stockMemoria)
+                        .stockPersistido(stock.getStock())
+                        .pendienteDeFlush(contador.pendiente())
+                        .divergencia(divergencia)
+                        .build());
+            }
+        }
+        return divergencias;
+    }
+
+    private ContadorStock nuevoContador(Integer stock) {
+        return new ContadorStock(stock != null ? stock : 0, stripes);
+    }
+}
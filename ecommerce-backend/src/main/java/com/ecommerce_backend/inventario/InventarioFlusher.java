@@ -0,0 +1,133 @@
+package com.ecommerce_backend.inventario;
+
+import com.ecommerce_backend.cache.CacheCatalogo;
+import com.ecommerce_backend.facetas.IndiceFacetas;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Aplica en lotes las unidades vendidas anotadas en inventario_pendiente.
+ *
+ * Cada lote, en una transacción:
+ * 1. lee las anotaciones más antiguas y bloquea sus productos ordenados por ID
+ *    (mismo orden que cualquier otro escritor, sin deadlocks)
+ * 2. borra las anotaciones; las que ya no están (stock reemplazado o producto eliminado
+ *    mientras tanto) no se aplican
+ * 3. descuenta el delta neto por producto solo si alcanza (stock >= delta)
+ *
+ * Si el stock persistido no alcanza (se cambió por fuera del motor), el producto queda en 0
+ * y se registra la sobreventa. Si la transacción falla, las anotaciones siguen en la tabla
+ * y se reintentan en el próximo flush.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventario.memoria", name = "habilitado", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InventarioFlusher {
+
+    private static final int TAMANIO_LOTE = 10_000;
+
+    private static final String SQL_LEER_PENDIENTES =
+            "SELECT id_movimiento, id_producto, cantidad FROM inventario_pendiente ORDER BY id_movimiento LIMIT ?";
+    private static final String SQL_BORRAR_PENDIENTE =
+            "DELETE FROM inventario_pendiente WHERE id_movimiento = ?";
+    private static final String SQL_DESCONTAR_STOCK =
+            "UPDATE productos SET stock = stock - ?, version = version + 1, fecha_modificacion = CURRENT_TIMESTAMP " +
+            "WHERE id_producto = ? AND stock >= ?";
+    private static final String SQL_SIN_STOCK =
+            "UPDATE productos SET stock = 0, version = version + 1, fecha_modificacion = CURRENT_TIMESTAMP " +
+            "WHERE id_producto = ?";
+
+    private final InventarioEnMemoria inventarioEnMemoria;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheCatalogo cacheCatalogo;
+    private final IndiceFacetas indiceFacetas;
+
+    @Scheduled(fixedDelayString = "${inventario.memoria.flush-ms:500}")
+    public synchronized void flush() {
+        try {
+            boolean lleno = true;
+            while (lleno) {
+                Lote lote = transactionTemplate.execute(status -> aplicarLote());
+                lleno = lote.leidos() == TAMANIO_LOTE;
+                if (!lote.deltas().isEmpty()) {
+                    inventarioEnMemoria.registrarPersistidos(lote.deltas());
+                    lote.sinStock().forEach(inventarioEnMemoria::descartar);
+                    cacheCatalogo.invalidarTrasCommit(lote.deltas().keySet());
+                    indiceFacetas.marcarTrasCommit(lote.deltas().keySet());
+                    log.debug("Flush de inventario: {} productos persistidos", lote.deltas().size());
+                }
+            }
+        } catch (DataAccessException e) {
+            // Las anotaciones no se borraron: se reintentan en el próximo flush
+            log.error("Error al persistir el inventario en memoria, se reintentará", e);
+        }
+    }
+
+    private Lote aplicarLote() {
+        List<long[]> movimientos = jdbcTemplate.query(SQL_LEER_PENDIENTES,
+                (rs, fila) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, TAMANIO_LOTE);
+        if (movimientos.isEmpty()) {
+            return new Lote(0, Collections.emptyMap(), Collections.emptySet());
+        }
+
+        // 1. Bloquear los productos en orden de ID
+        Set<Long> idsProductos = new TreeSet<>();
+        movimientos.forEach(movimiento -> idsProductos.add(movimiento[1]));
+        String marcadores = String.join(",", Collections.nCopies(idsProductos.size(), "?"));
+        jdbcTemplate.queryForList("SELECT id_producto FROM productos WHERE id_producto IN (" + marcadores +
+                ") ORDER BY id_producto FOR UPDATE", Long.class, idsProductos.toArray());
+
+        // 2. Borrar las anotaciones y sumar solo las que seguían en la tabla
+        int[] borradas = jdbcTemplate.batchUpdate(SQL_BORRAR_PENDIENTE,
+                movimientos.stream().map(movimiento -> new Object[]{movimiento[0]}).toList());
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (int i = 0; i < movimientos.size(); i++) {
+            if (borradas[i] != 0) {
+                deltas.merge(movimientos.get(i)[1], (int) movimientos.get(i)[2], Integer::sum);
+            }
+        }
+
+        // 3. Descontar con guarda; si no alcanza, el producto queda en 0
+        List<Object[]> parametros = new ArrayList<>(deltas.size());
+        deltas.forEach((idProducto, cantidad) -> parametros.add(new Object[]{cantidad, idProducto, cantidad}));
+        int[] actualizados = jdbcTemplate.batchUpdate(SQL_DESCONTAR_STOCK, parametros);
+        Set<Long> sinStock = new TreeSet<>();
+        for (int i = 0; i < parametros.size(); i++) {
+            if (actualizados[i] == 0) {
+                Long idProducto = (Long) parametros.get(i)[1];
+                // 0 filas en ambos UPDATE: el producto ya no existe y no hay stock que descontar
+                if (jdbcTemplate.update(SQL_SIN_STOCK, idProducto) > 0) {
+                    log.error("Sobreventa en el producto {}: el stock persistido no alcanzaba para {} unidades " +
+                            "vendidas, se deja en 0", idProducto, parametros.get(i)[0]);
+                    sinStock.add(idProducto);
+                }
+            }
+        }
+        return new Lote(movimientos.size(), deltas, sinStock);
+    }
+
+    @PreDestroy
+    public void flushAlCerrar() {
+        flush();
+    }
+
+    private record Lote(int leidos, Map<Long, Integer> deltas, Set<Long> sinStock) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce_backend.job;
+
+import com.ecommerce_backend.service.VentaService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Expira las ventas que llevan demasiado tiempo en PENDIENTE y devuelve su stock.
+ *
+ * Procesa chunks de tamano-chunk ventas, cada uno en su propia transacción corta,
+ * para no mantener bloqueadas muchas filas de productos a la vez.
+ *
+ * Métricas:
+ * - ventas.expiracion.filas: ventas expiradas (su tasa son las filas por segundo)
+ * - ventas.expiracion.filas.por.segundo: throughput de cada ejecución
+ * - ventas.expiracion.lock: duración de cada transacción de chunk (tiempo con locks tomados)
+ */
+@Component
+@ConditionalOnProperty(prefix = "ventas.expiracion", name = "habilitado", havingValue = "true")
+@Slf4j
+public class ExpiracionVentasJob {
+
+    private final VentaService ventaService;
+    private final long minutosPendiente;
+    private final int tamanoChunk;
+    private final Counter ventasExpiradas;
+    private final DistributionSummary filasPorSegundo;
+    private final Timer duracionLocks;
+
+    public ExpiracionVentasJob(
+            VentaService ventaService,
+            MeterRegistry meterRegistry,
+            @Value("${ventas.expiracion.minutos-pendiente:1440}") long minutosPendiente,
+            @Value("${ventas.expiracion.tamano-chunk:500}") int tamanoChunk) {
+        this.ventaService = ventaService;
+        this.minutosPendiente = minutosPendiente;
+        this.tamanoChunk = tamanoChunk;
+        this.ventasExpiradas = Counter.builder("ventas.expiracion.filas")
+                .description("Ventas PENDIENTE expiradas")
+                .register(meterRegistry);
+        this.filasPorSegundo = DistributionSummary.builder("ventas.expiracion.filas.por.segundo")
+                .description("Ventas expiradas por segundo en cada ejecución")
+                .register(meterRegistry);
+        this.duracionLocks = Timer.builder("ventas.expiracion.lock")
+                .description("Duración de cada transacción de chunk, con sus filas bloqueadas")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ventas.expiracion.intervalo-ms:300000}")
+    public void expirarVentasPendientes() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(minutosPendiente);
+        long inicio = System.nanoTime();
+        int total = 0;
+        int expiradasEnChunk;
+
+        do {
+            expiradasEnChunk = duracionLocks.record(() -> ventaService.expirarVentasPendientes(limite, tamanoChunk));
+            total += expiradasEnChunk;
+        } while (expiradasEnChunk == tamanoChunk);
+
+        if (total > 0) {
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            ventasExpiradas.increment(total);
+            filasPorSegundo.record(total / segundos);
+            log.info("Expiración de ventas: {} ventas en {} s ({} filas/s)",
+                    total, String.format("%.2f", segundos), String.format("%.1f", total / segundos));
+        }
+    }
+}
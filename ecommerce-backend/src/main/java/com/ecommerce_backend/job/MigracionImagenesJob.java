@@ -0,0 +1,96 @@
+package com.ecommerce_backend.job;
+
+import com.ecommerce_backend.cache.CacheCatalogo;
+import com.ecommerce_backend.exception.BusinessException;
+import com.ecommerce_backend.imagen.AlmacenImagenes;
+import com.ecommerce_backend.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mueve al AlmacenImagenes las imágenes que siguen embebidas como data URI en
+ * productos.imagen, dejando en la fila solo su referencia.
+ *
+ * Corre una vez al iniciar la aplicación. Recorre los productos por ID en chunks de
+ * tamano-chunk filas: escribe los archivos fuera de la transacción y luego actualiza
+ * el chunk en una transacción corta. Es idempotente: si se interrumpe, la siguiente
+ * ejecución continúa con las filas que aún tienen data URI.
+ *
+ * Deshabilitado por defecto: después de migrar, el archivo del almacén es la única copia
+ * de la imagen. Antes de habilitarlo, imagenes.almacen.directorio tiene que estar en
+ * almacenamiento persistente; en un sistema de archivos efímero el próximo redeploy
+ * pierde las imágenes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "imagenes.migracion", name = "habilitado", havingValue = "true")
+@Slf4j
+public class MigracionImagenesJob {
+
+    private final ProductoRepository productoRepository;
+    private final AlmacenImagenes almacenImagenes;
+    private final CacheCatalogo cacheCatalogo;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoChunk;
+
+    public MigracionImagenesJob(
+            ProductoRepository productoRepository,
+            AlmacenImagenes almacenImagenes,
+            CacheCatalogo cacheCatalogo,
+            TransactionTemplate transactionTemplate,
+            @Value("${imagenes.migracion.tamano-chunk:20}") int tamanoChunk) {
+        this.productoRepository = productoRepository;
+        this.almacenImagenes = almacenImagenes;
+        this.cacheCatalogo = cacheCatalogo;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanoChunk = tamanoChunk;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrarImagenesEmbebidas() {
+        long despuesDe = 0;
+        int migradas = 0;
+        int fallidas = 0;
+        List<ProductoRepository.ImagenProducto> chunk;
+
+        do {
+            chunk = productoRepository.findImagenesEmbebidas(despuesDe, Limit.of(tamanoChunk));
+
+            Map<Long, String> referencias = new LinkedHashMap<>();
+            for (ProductoRepository.ImagenProducto imagen : chunk) {
+                try {
+                    referencias.put(imagen.getIdProducto(), almacenImagenes.guardarDataUri(imagen.getImagen()));
+                } catch (BusinessException | UncheckedIOException e) {
+                    fallidas++;
+                    log.warn("No se pudo migrar la imagen del producto ID {}: {}", imagen.getIdProducto(), e.getMessage());
+                }
+            }
+
+            if (!referencias.isEmpty()) {
+                Integer actualizadas = transactionTemplate.execute(status -> referencias.entrySet().stream()
+                        .mapToInt(entry -> productoRepository.reemplazarImagenEmbebida(entry.getKey(), entry.getValue()))
+                        .sum());
+                cacheCatalogo.invalidarTrasCommit(referencias.keySet());
+                migradas += actualizadas != null ? actualizadas : 0;
+            }
+
+            if (!chunk.isEmpty()) {
+                despuesDe = chunk.get(chunk.size() - 1).getIdProducto();
+            }
+        } while (chunk.size() == tamanoChunk);
+
+        if (migradas > 0 || fallidas > 0) {
+            log.info("Migración de imágenes: {} productos migrados al almacén, {} con data URI inválido", migradas, fallidas);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce_backend.mapper;
+
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.exception.BusinessException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldsets: reduce un DTO a los campos pedidos con ?fields=a,b,c
+ */
+@Component
+public class CamposParcialesMapper {
+
+    private final Map<Class<?>, Set<String>> camposPorTipo = new ConcurrentHashMap<>();
+
+    /**
+     * Valida los campos pedidos contra las propiedades del DTO.
+     *
+     * @param campoId campo que siempre se incluye (identifica cada elemento)
+     * @return campos en el orden pedido, o null si no se pidió ninguno (respuesta completa)
+     */
+    public Set<String> parsear(String fields, Class<?> tipo, String campoId) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+
+        Set<String> permitidos = camposPorTipo.computeIfAbsent(tipo, t -> Arrays.stream(BeanUtils.getPropertyDescriptors(t))
+                .map(PropertyDescriptor::getName)
+                .filter(nombre -> !nombre.equals("class"))
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        Set<String> campos = new LinkedHashSet<>();
+        campos.add(campoId);
+        for (String campo : fields.split(",")) {
+            String nombre = campo.trim();
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            if (!permitidos.contains(nombre)) {
+                throw new BusinessException("Campo desconocido en fields: " + nombre
+                        + ". Campos disponibles: " + permitidos);
+            }
+            campos.add(nombre);
+        }
+        return campos;
+    }
+
+    public Map<String, Object> filtrar(Object dto, Set<String> campos) {
+        BeanWrapper bean = PropertyAccessorFactory.forBeanPropertyAccess(dto);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        for (String campo : campos) {
+            resultado.put(campo, bean.getPropertyValue(campo));
+        }
+        return resultado;
+    }
+
+    public PaginaDTO<Map<String, Object>> filtrar(PaginaDTO<?> pagina, Set<String> campos) {
+        List<Map<String, Object>> contenido = pagina.getContenido().stream()
+                .map(dto -> filtrar(dto, campos))
+                .toList();
+
+        return PaginaDTO.<Map<String, Object>>builder()
+                .contenido(contenido)
+                .cantidad(pagina.getCantidad())
+                .siguienteCursor(pagina.getSiguienteCursor())
+                .hayMas(pagina.getHayMas())
+                .build();
+    }
+}
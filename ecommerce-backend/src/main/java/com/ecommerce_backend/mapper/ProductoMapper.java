@@ -2,7 +2,10 @@ package com.ecommerce_backend.mapper;
 
 import com.ecommerce_backend.dto.ProductoRequestDTO;
 import com.ecommerce_backend.dto.ProductoResponseDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import com.ecommerce_backend.imagen.AlmacenImagenes;
 import com.ecommerce_backend.model.Producto;
+import com.ecommerce_backend.repository.ProductoRepository;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -11,6 +14,12 @@ import java.util.stream.Collectors;
 @Component
 public class ProductoMapper {
 
+    private final AlmacenImagenes almacenImagenes;
+
+    public ProductoMapper(AlmacenImagenes almacenImagenes) {
+        this.almacenImagenes = almacenImagenes;
+    }
+
     public Producto toEntity(ProductoRequestDTO dto) {
         Producto producto = new Producto();
         producto.setNombre(dto.getNombre());
@@ -36,14 +45,40 @@ public class ProductoMapper {
                 .precioAnterior(entity.getPrecioAnterior())
                 .descuento(entity.getDescuento())
                 .badgeColor(entity.getBadgeColor())
-                .imagen(entity.getImagen())
+                .imagen(almacenImagenes.url(entity.getImagen()))
                 .detalles(entity.getDetalles())
                 .stock(entity.getStock())
+                .version(entity.getVersion())
+                .fechaModificacion(entity.getFechaModificacion())
                 .estadoStock(entity.getEstadoStock())
                 .disponible(entity.isDisponible())
                 .build();
     }
 
+    public ProductoResumenDTO toResumenDTO(ProductoRepository.ResumenProducto resumen) {
+        return ProductoResumenDTO.builder()
+                .idProducto(resumen.getIdProducto())
+                .nombre(resumen.getNombre())
+                .categoria(resumen.getCategoria())
+                .precio(resumen.getPrecio())
+                .precioAnterior(resumen.getPrecioAnterior())
+                .descuento(resumen.getDescuento())
+                .badgeColor(resumen.getBadgeColor())
+                .imagen(almacenImagenes.url(resumen.getImagen()))
+                .stock(resumen.getStock())
+                .version(resumen.getVersion())
+                .fechaModificacion(resumen.getFechaModificacion())
+                .estadoStock(Producto.estadoStock(resumen.getStock()))
+                .disponible(Producto.isDisponible(resumen.getStock()))
+                .build();
+    }
+
+    public List<ProductoResumenDTO> toResumenDTOList(List<ProductoRepository.ResumenProducto> resumenes) {
+        return resumenes.stream()
+                .map(this::toResumenDTO)
+                .collect(Collectors.toList());
+    }
+
     public List<ProductoResponseDTO> toResponseDTOList(List<Producto> entities) {
         return entities.stream()
                 .map(this::toResponseDTO)
@@ -30,7 +30,7 @@ public class VentaMapper {
                 .cliente(clienteMapper.toResponseDTO(entity.getCliente()))
                 .fechaVenta(entity.getFechaVenta())
                 .total(entity.getTotal())
-                .estado(entity.getEstado())
+                .estado(entity.getEstado().name())
                 .detalles(detallesDTO)
                 .build();
     }
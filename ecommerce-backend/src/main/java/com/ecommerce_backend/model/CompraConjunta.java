@@ -0,0 +1,41 @@
+package com.ecommerce_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * Instantánea de la matriz de compras conjuntas: cuántas ventas no canceladas
+ * incluyen a la vez los dos productos (idProductoA < idProductoB).
+ *
+ * Hasta qué venta incluye y si se puede usar al iniciar está en InstantaneaComprasConjuntas.
+ */
+@Entity
+@Table(name = "compras_conjuntas")
+@IdClass(CompraConjunta.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompraConjunta {
+
+    @Id
+    @Column(name = "id_producto_a")
+    private Long idProductoA;
+
+    @Id
+    @Column(name = "id_producto_b")
+    private Long idProductoB;
+
+    @Column(nullable = false)
+    private Long cantidad;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long idProductoA;
+        private Long idProductoB;
+    }
+}
@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "detalle_ventas")
+@Table(name = "detalle_ventas", indexes = @Index(name = "idx_detalle_ventas_venta", columnList = "id_venta, id_detalle"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,46 @@
+package com.ecommerce_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Contador de ventas e ingresos por estado, mantenido en la misma transacción
+ * que cada cambio de estado.
+ *
+ * Cada estado se reparte en varias filas (slots) para que los checkouts
+ * concurrentes no compitan por la misma fila; el total es la suma de sus slots.
+ */
+@Entity
+@Table(name = "estadisticas_estado_venta")
+@IdClass(EstadisticaEstadoVenta.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticaEstadoVenta {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private EstadoVenta estado;
+
+    @Id
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Long cantidad;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal ingresos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private EstadoVenta estado;
+        private Integer slot;
+    }
+}
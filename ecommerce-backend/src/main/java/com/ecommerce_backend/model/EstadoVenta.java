@@ -0,0 +1,47 @@
+package com.ecommerce_backend.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Estados de una venta y sus transiciones permitidas.
+ *
+ * PENDIENTE → PAGADA → ENVIADA → COMPLETADA
+ * PENDIENTE y PAGADA también pueden pasar a CANCELADA.
+ * COMPLETADA y CANCELADA son estados finales.
+ */
+public enum EstadoVenta {
+    PENDIENTE,
+    PAGADA,
+    ENVIADA,
+    COMPLETADA,
+    CANCELADA;
+
+    /**
+     * Verifica si la venta puede pasar de este estado al estado indicado
+     */
+    public boolean puedeCambiarA(EstadoVenta nuevo) {
+        return transicionesPermitidas().contains(nuevo);
+    }
+
+    public Set<EstadoVenta> transicionesPermitidas() {
+        return switch (this) {
+            case PENDIENTE -> EnumSet.of(PAGADA, COMPLETADA, CANCELADA);
+            case PAGADA -> EnumSet.of(ENVIADA, COMPLETADA, CANCELADA);
+            case ENVIADA -> EnumSet.of(COMPLETADA);
+            case COMPLETADA, CANCELADA -> EnumSet.noneOf(EstadoVenta.class);
+        };
+    }
+
+    /**
+     * Convierte un texto (sin distinguir mayúsculas) en estado, o null si no existe
+     */
+    public static EstadoVenta desdeTexto(String estado) {
+        for (EstadoVenta valor : values()) {
+            if (valor.name().equalsIgnoreCase(estado)) {
+                return valor;
+            }
+        }
+        return null;
+    }
+}
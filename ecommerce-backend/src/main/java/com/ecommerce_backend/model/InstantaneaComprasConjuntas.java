@@ -0,0 +1,35 @@
+package com.ecommerce_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Estado de la instantánea de compras_conjuntas (una sola fila, id = 1).
+ *
+ * cerrada es true solo si la escribió el cierre ordenado de la aplicación: los pares incluyen
+ * todas las ventas confirmadas hasta entonces y al iniciar basta reproducir las posteriores
+ * a ultimaVenta. Si es false (la aplicación terminó sin guardar), la matriz se reconstruye
+ * desde detalle_ventas.
+ */
+@Entity
+@Table(name = "compras_conjuntas_instantanea")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstantaneaComprasConjuntas {
+
+    @Id
+    private Integer id;
+
+    @Column(name = "ultima_venta", nullable = false)
+    private Long ultimaVenta;
+
+    @Column(nullable = false)
+    private Boolean cerrada;
+
+    @Column(name = "fecha_guardado", nullable = false)
+    private LocalDateTime fechaGuardado;
+}
@@ -0,0 +1,32 @@
+package com.ecommerce_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Unidades vendidas con el motor de inventario en memoria que aún no se descuentan de productos.stock.
+ *
+ * Se insertan en la misma transacción que la venta y InventarioFlusher las aplica y borra
+ * en otra: el stock real de un producto es siempre stock menos la suma de sus movimientos,
+ * también después de una caída.
+ */
+@Entity
+@Table(name = "inventario_pendiente", indexes = @Index(name = "idx_inventario_pendiente_producto", columnList = "id_producto"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_movimiento")
+    private Long idMovimiento;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+}
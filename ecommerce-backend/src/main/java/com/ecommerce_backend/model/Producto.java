@@ -1,17 +1,26 @@
 package com.ecommerce_backend.model;
 
+import com.ecommerce_backend.imagen.AlmacenImagenes;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
-@Table(name = "productos")
+// Los índices parciales (stock > 0) están en schema-postgresql.sql: JPA no puede declararlos
+@Table(name = "productos", indexes = {
+        @Index(name = "idx_productos_categoria_id", columnList = "categoria, id_producto"),
+        @Index(name = "idx_productos_stock", columnList = "stock")
+})
+@DynamicUpdate  // Solo escribe columnas modificadas: editar un producto no pisa el stock concurrente
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,7 +52,11 @@ public class Producto {
     @Column(name = "badge_color", length = 20)
     private String badgeColor;
 
-    @Column(columnDefinition = "TEXT")
+    /**
+     * Referencia al AlmacenImagenes ({sha256}.{ext}), URL externa o ruta de assets del frontend.
+     * Los bytes de la imagen nunca se guardan en esta tabla.
+     */
+    @Column(length = AlmacenImagenes.LARGO_MAXIMO_REFERENCIA)
     private String imagen;
 
     @JdbcTypeCode(SqlTypes.JSON)
@@ -53,6 +66,25 @@ public class Producto {
     @Column(nullable = false)
     private Integer stock = 0;
 
+    // ============================================================
+    // VERSIÓN (ETag / Last-Modified)
+    // ============================================================
+    // Solo se modifican con UPDATEs SQL ("version = version + 1"), nunca desde la entidad:
+    // así dos cambios concurrentes no pueden terminar con el mismo número de versión.
+
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long version = 0L;
+
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "fecha_modificacion", nullable = false, updatable = false)
+    private LocalDateTime fechaModificacion;
+
+    @PrePersist
+    protected void onCreate() {
+        this.fechaModificacion = LocalDateTime.now();
+    }
+
     // ============================================================
     // MÉTODOS DE UTILIDAD
     // ============================================================
@@ -61,6 +93,10 @@ public class Producto {
      * Verifica si el producto está disponible
      */
     public boolean isDisponible() {
+        return isDisponible(stock);
+    }
+
+    public static boolean isDisponible(Integer stock) {
         return stock != null && stock > 0;
     }
 
@@ -75,6 +111,10 @@ public class Producto {
      * Obtiene el estado del stock como texto
      */
     public String getEstadoStock() {
+        return estadoStock(stock);
+    }
+
+    public static String estadoStock(Integer stock) {
         if (stock == null || stock == 0) {
             return "AGOTADO";
         } else if (stock <= 3) {
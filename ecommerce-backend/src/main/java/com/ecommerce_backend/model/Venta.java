@@ -9,12 +9,27 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "ventas")
+@NamedEntityGraph(name = Venta.GRAFO_COMPLETO,
+        attributeNodes = {
+                @NamedAttributeNode("cliente"),
+                @NamedAttributeNode(value = "detalles", subgraph = "detalles")
+        },
+        subgraphs = @NamedSubgraph(name = "detalles", attributeNodes = @NamedAttributeNode("producto")))
+@Table(name = "ventas", indexes = {
+        @Index(name = "idx_ventas_estado_id", columnList = "estado, id_venta"),
+        @Index(name = "idx_ventas_cliente_id", columnList = "id_cliente, id_venta"),
+        @Index(name = "idx_ventas_fecha", columnList = "fecha_venta")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Venta {
 
+    /**
+     * Venta con cliente, detalles y productos: todo lo que usa VentaMapper, en una sola consulta
+     */
+    public static final String GRAFO_COMPLETO = "Venta.completa";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_venta")
@@ -30,8 +45,9 @@ public class Venta {
     @Column(nullable = false, precision = 12, scale = 2)
     private BigDecimal total;
 
-    @Column(length = 20)
-    private String estado = "PENDIENTE";
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoVenta estado = EstadoVenta.PENDIENTE;
 
     @OneToMany(mappedBy = "venta", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<DetalleVenta> detalles;
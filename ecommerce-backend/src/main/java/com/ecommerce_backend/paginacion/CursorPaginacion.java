@@ -0,0 +1,107 @@
+package com.ecommerce_backend.paginacion;
+
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.exception.BusinessException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Paginación por cursor (keyset) sobre el ID de la entidad.
+ *
+ * El cursor es opaco para el cliente: codifica el último ID entregado, y la
+ * siguiente página se lee con "WHERE id > :despuesDe ORDER BY id LIMIT n",
+ * que usa el índice y cuesta lo mismo en la página 1 que en la 10.000.
+ *
+ * Los resultados ordenados por relevancia (búsqueda) no siguen el orden del ID:
+ * su cursor codifica la posición en el ranking.
+ */
+public final class CursorPaginacion {
+
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    private static final String PREFIJO = "id:";
+    private static final String PREFIJO_POSICION = "pos:";
+
+    private CursorPaginacion() {
+    }
+
+    /**
+     * Decodifica el cursor recibido. Sin cursor se empieza desde el principio (ID 0).
+     */
+    public static long decodificar(String cursor) {
+        return decodificar(cursor, PREFIJO);
+    }
+
+    public static String codificar(long ultimoId) {
+        return codificar(PREFIJO, ultimoId);
+    }
+
+    /**
+     * Posición desde la que sigue un listado ordenado por relevancia (0 sin cursor)
+     */
+    public static int decodificarPosicion(String cursor) {
+        long posicion = decodificar(cursor, PREFIJO_POSICION);
+        if (posicion < 0 || posicion > Integer.MAX_VALUE - LIMITE_MAXIMO - 1) {
+            throw new BusinessException("Cursor de paginación inválido");
+        }
+        return (int) posicion;
+    }
+
+    public static String codificarPosicion(int posicion) {
+        return codificar(PREFIJO_POSICION, posicion);
+    }
+
+    private static long decodificar(String cursor, String prefijo) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith(prefijo)) {
+                throw new IllegalArgumentException(valor);
+            }
+            return Long.parseLong(valor.substring(prefijo.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Cursor de paginación inválido");
+        }
+    }
+
+    private static String codificar(String prefijo, long valor) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((prefijo + valor).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Valida el tamaño de página pedido. Se consulta uno más para saber si hay otra página.
+     */
+    public static Limit limiteConsulta(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new BusinessException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return Limit.of(limite + 1);
+    }
+
+    /**
+     * Arma la página a partir de las filas consultadas (hasta limite + 1)
+     *
+     * @param id extrae el ID de cada fila para generar el siguiente cursor
+     */
+    public static <E, T> PaginaDTO<T> construirPagina(List<E> filas, int limite,
+                                                      Function<E, Long> id, Function<List<E>, List<T>> mapper) {
+        boolean hayMas = filas.size() > limite;
+        List<E> pagina = hayMas ? filas.subList(0, limite) : filas;
+        String siguienteCursor = hayMas ? codificar(id.apply(pagina.get(pagina.size() - 1))) : null;
+
+        return PaginaDTO.<T>builder()
+                .contenido(mapper.apply(pagina))
+                .cantidad(pagina.size())
+                .siguienteCursor(siguienteCursor)
+                .hayMas(hayMas)
+                .build();
+    }
+}
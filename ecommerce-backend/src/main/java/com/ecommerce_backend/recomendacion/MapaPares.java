@@ -0,0 +1,123 @@
+package com.ecommerce_backend.recomendacion;
+
+/**
+ * Contadores por par de productos en una tabla hash de direccionamiento abierto
+ * (long -> int, sin objetos por entrada).
+ *
+ * La clave empaqueta el par ordenado (menor << 32 | mayor), así (a, b) y (b, a) son la misma.
+ * Los IDs empiezan en 1, de modo que la clave 0 marca una posición libre. Las entradas que
+ * llegan a 0 se borran desplazando hacia atrás las siguientes (sin lápidas).
+ */
+final class MapaPares {
+
+    private static final long LIBRE = 0L;
+
+    private long[] claves;
+    private int[] valores;
+    private int mascara;
+    private int tamano;
+
+    MapaPares() {
+        this(1024);
+    }
+
+    MapaPares(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(16, capacidadInicial * 2 - 1));
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+    }
+
+    static long clave(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    static int menor(long clave) {
+        return (int) (clave >>> 32);
+    }
+
+    static int mayor(long clave) {
+        return (int) clave;
+    }
+
+    int obtener(long clave) {
+        for (int i = indice(clave); claves[i] != LIBRE; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return valores[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Suma delta al contador del par (nunca baja de 0) y devuelve el valor anterior
+     */
+    int sumar(long clave, int delta) {
+        int i = indice(clave);
+        while (claves[i] != LIBRE) {
+            if (claves[i] == clave) {
+                int anterior = valores[i];
+                int nuevo = Math.max(0, anterior + delta);
+                if (nuevo == 0) {
+                    eliminarEn(i);
+                } else {
+                    valores[i] = nuevo;
+                }
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        if (delta > 0) {
+            claves[i] = clave;
+            valores[i] = delta;
+            if (++tamano * 2 > claves.length) {
+                redimensionar();
+            }
+        }
+        return 0;
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    private int indice(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void eliminarEn(int posicion) {
+        int libre = posicion;
+        for (int i = (posicion + 1) & mascara; claves[i] != LIBRE; i = (i + 1) & mascara) {
+            // La entrada en i puede ocupar el hueco si este queda entre su posición ideal e i
+            int ideal = indice(claves[i]);
+            if (((i - ideal) & mascara) >= ((i - libre) & mascara)) {
+                claves[libre] = claves[i];
+                valores[libre] = valores[i];
+                libre = i;
+            }
+        }
+        claves[libre] = LIBRE;
+        valores[libre] = 0;
+        tamano--;
+    }
+
+    private void redimensionar() {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        claves = new long[clavesAnteriores.length * 2];
+        valores = new int[clavesAnteriores.length * 2];
+        mascara = claves.length - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != LIBRE) {
+                int j = indice(clavesAnteriores[i]);
+                while (claves[j] != LIBRE) {
+                    j = (j + 1) & mascara;
+                }
+                claves[j] = clavesAnteriores[i];
+                valores[j] = valoresAnteriores[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,526 @@
+package com.ecommerce_backend.recomendacion;
+
+import com.ecommerce_backend.exception.BusinessException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Matriz de compras conjuntas en memoria para "frecuentemente comprados juntos"
+ * (GET /api/productos/{id}/relacionados).
+ *
+ * - Por cada par de productos distintos de una venta se cuenta una compra conjunta
+ *   (por venta, sin ponderar cantidades). Solo se guardan los pares con cuenta > 0.
+ * - procesarVenta y el lote suman tras el commit; cancelar y expirar ventas restan tras el commit.
+ * - Los relacionados de cada producto se ordenan una vez y quedan en caché hasta que cambia
+ *   alguno de sus pares: una consulta solo copia los primeros K.
+ * - Cada instantanea-ms los pares cambiados se escriben en compras_conjuntas y la última venta
+ *   incluida en compras_conjuntas_instantanea.
+ * - Al iniciar, si la instantánea la escribió un cierre ordenado se carga y se reproducen las
+ *   ventas posteriores a la última incluida. Si la aplicación terminó sin guardar, la instantánea
+ *   no tiene las ventas confirmadas ni las cancelaciones posteriores a ella (una venta con ID menor
+ *   puede confirmar después): la matriz se reconstruye desde detalle_ventas y la instantánea se
+ *   reescribe completa, así los errores no se arrastran de un inicio al siguiente.
+ */
+@Component
+@Slf4j
+public class MatrizCompras {
+
+    private static final String SQL_INSTANTANEA = "SELECT id_producto_a, id_producto_b, cantidad FROM compras_conjuntas";
+    private static final String SQL_VENTAS_POSTERIORES = "SELECT d.id_venta, d.id_producto FROM detalle_ventas d " +
+            "JOIN ventas v ON v.id_venta = d.id_venta " +
+            "WHERE d.id_venta > ? AND v.estado <> 'CANCELADA' ORDER BY d.id_venta";
+    private static final String SQL_CANCELADAS_POSTERIORES = "SELECT id_venta FROM ventas " +
+            "WHERE id_venta > ? AND estado = 'CANCELADA'";
+    private static final String SQL_PRODUCTOS_DE_VENTAS = "SELECT id_venta, id_producto FROM detalle_ventas " +
+            "WHERE id_venta IN (%s)";
+    private static final String SQL_ACTUALIZAR_PAR = "UPDATE compras_conjuntas SET cantidad = ? " +
+            "WHERE id_producto_a = ? AND id_producto_b = ?";
+    private static final String SQL_INSERTAR_PAR = "INSERT INTO compras_conjuntas " +
+            "(id_producto_a, id_producto_b, cantidad) VALUES (?, ?, ?)";
+    private static final String SQL_ELIMINAR_PAR = "DELETE FROM compras_conjuntas " +
+            "WHERE id_producto_a = ? AND id_producto_b = ?";
+    private static final String SQL_VACIAR = "DELETE FROM compras_conjuntas";
+    private static final String SQL_ESTADO = "SELECT ultima_venta, cerrada FROM compras_conjuntas_instantanea " +
+            "WHERE id = 1";
+    private static final String SQL_ACTUALIZAR_ESTADO = "UPDATE compras_conjuntas_instantanea " +
+            "SET ultima_venta = ?, cerrada = ?, fecha_guardado = CURRENT_TIMESTAMP WHERE id = 1";
+    private static final String SQL_INSERTAR_ESTADO = "INSERT INTO compras_conjuntas_instantanea " +
+            "(id, ultima_venta, cerrada, fecha_guardado) VALUES (1, ?, ?, CURRENT_TIMESTAMP)";
+    private static final int IDS_POR_CONSULTA = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRelacionados;
+    private final int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private MapaPares pares = new MapaPares();
+    private Map<Integer, Vecinos> vecinos = new HashMap<>();
+    // Relacionados ordenados por producto: (cantidad << 32) | (Integer.MAX_VALUE - vecino), descendente
+    private final Map<Integer, long[]> mejores = new ConcurrentHashMap<>();
+    // Pares cambiados desde la última instantánea
+    private Set<Long> sucios = new HashSet<>();
+    // Tras una reconstrucción la instantánea se escribe completa (puede tener pares que ya no existen)
+    private boolean reescribir;
+    // Una cancelación confirmó antes de la carga: la instantánea puede contar esa venta
+    private boolean descartarInstantanea;
+    private long ultimaVenta;
+    // Ventas que la carga ya contó (o ya vio canceladas) y cuyo aviso de commit puede llegar después
+    private Set<Long> vistasEnCarga = new HashSet<>();
+    private Set<Long> canceladasEnCarga = new HashSet<>();
+    private volatile boolean cargada;
+
+    public MatrizCompras(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${recomendaciones.max-relacionados:20}") int maxRelacionados,
+            @Value("${recomendaciones.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxRelacionados = maxRelacionados;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Productos con los que un producto compartió alguna venta (lista de adyacencia)
+     */
+    private static final class Vecinos {
+
+        private int[] ids = new int[4];
+        private int cantidad;
+
+        void agregar(int id) {
+            if (cantidad == ids.length) {
+                ids = Arrays.copyOf(ids, cantidad * 2);
+            }
+            ids[cantidad++] = id;
+        }
+
+        void quitar(int id) {
+            for (int i = 0; i < cantidad; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--cantidad];
+                    return;
+                }
+            }
+        }
+    }
+
+    // ============================================================
+    // CONSULTA
+    // ============================================================
+
+    /**
+     * IDs de los productos comprados más veces junto con el indicado, de mayor a menor
+     * (a igual cantidad, el de menor ID primero)
+     */
+    public List<Long> relacionados(long idProducto, int limite) {
+        if (limite < 1 || limite > maxRelacionados) {
+            throw new BusinessException("El límite debe estar entre 1 y " + maxRelacionados);
+        }
+        if (!cargada) {
+            cargar();
+        }
+        if (idProducto < 1 || idProducto > Integer.MAX_VALUE) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Se calcula y guarda con el lock de lectura tomado: ningún cambio puede quedar entremedio
+            long[] orden = mejores.computeIfAbsent((int) idProducto, this::ordenarVecinos);
+            List<Long> ids = new ArrayList<>(Math.min(limite, orden.length));
+            for (int i = 0; i < orden.length && i < limite; i++) {
+                ids.add((long) (Integer.MAX_VALUE - (int) orden[i]));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] ordenarVecinos(int idProducto) {
+        Vecinos lista = vecinos.get(idProducto);
+        if (lista == null) {
+            return new long[0];
+        }
+        long[] orden = new long[lista.cantidad];
+        for (int i = 0; i < lista.cantidad; i++) {
+            int vecino = lista.ids[i];
+            orden[i] = ((long) pares.obtener(MapaPares.clave(idProducto, vecino)) << 32) | (Integer.MAX_VALUE - vecino);
+        }
+        Arrays.sort(orden);
+        int cantidad = Math.min(maxRelacionados, orden.length);
+        long[] primeros = new long[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            primeros[i] = orden[orden.length - 1 - i];
+        }
+        return primeros;
+    }
+
+    // ============================================================
+    // ACTUALIZACIÓN
+    // ============================================================
+
+    /**
+     * Suma los pares de productos de la venta cuando la transacción confirma
+     */
+    public void registrarTrasCommit(Long idVenta, Collection<Long> idsProductos) {
+        int[] productos = aEnteros(idsProductos);
+        if (productos.length < 2) {
+            return;
+        }
+        alConfirmar(() -> registrar(idVenta, productos));
+    }
+
+    /**
+     * Lee (dentro de la transacción) los productos de las ventas canceladas y resta
+     * sus pares cuando la transacción confirma
+     */
+    public void descontarTrasCommit(List<Long> idsVentas) {
+        Map<Long, List<Long>> productosPorVenta = new LinkedHashMap<>();
+        for (int desde = 0; desde < idsVentas.size(); desde += IDS_POR_CONSULTA) {
+            List<Long> lote = idsVentas.subList(desde, Math.min(desde + IDS_POR_CONSULTA, idsVentas.size()));
+            String sql = SQL_PRODUCTOS_DE_VENTAS.formatted(String.join(",", Collections.nCopies(lote.size(), "?")));
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> productosPorVenta
+                    .computeIfAbsent(rs.getLong("id_venta"), id -> new ArrayList<>())
+                    .add(rs.getLong("id_producto")), lote.toArray());
+        }
+
+        Map<Long, int[]> compras = new LinkedHashMap<>();
+        productosPorVenta.forEach((idVenta, productos) -> {
+            int[] enteros = aEnteros(productos);
+            if (enteros.length >= 2) {
+                compras.put(idVenta, enteros);
+            }
+        });
+        if (!compras.isEmpty()) {
+            alConfirmar(() -> compras.forEach(this::descontar));
+        }
+    }
+
+    private void registrar(long idVenta, int[] productos) {
+        lock.writeLock().lock();
+        try {
+            // Antes de la carga no se aplica: la venta ya confirmada la leerá la carga
+            if (!cargada || vistasEnCarga.remove(idVenta)) {
+                return;
+            }
+            aplicar(productos, 1);
+            ultimaVenta = Math.max(ultimaVenta, idVenta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void descontar(long idVenta, int[] productos) {
+        lock.writeLock().lock();
+        try {
+            if (!cargada) {
+                descartarInstantanea = true;
+                return;
+            }
+            if (canceladasEnCarga.remove(idVenta)) {
+                return;
+            }
+            aplicar(productos, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void aplicar(int[] productos, int delta) {
+        for (int i = 0; i < productos.length; i++) {
+            for (int j = i + 1; j < productos.length; j++) {
+                if (sumar(pares, vecinos, productos[i], productos[j], delta)) {
+                    sucios.add(MapaPares.clave(productos[i], productos[j]));
+                    mejores.remove(productos[i]);
+                    mejores.remove(productos[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Suma delta al par y mantiene las listas de adyacencia
+     *
+     * @return false si el par no cambió (restar a un par que no existe)
+     */
+    private static boolean sumar(MapaPares pares, Map<Integer, Vecinos> vecinos, int a, int b, int delta) {
+        int anterior = pares.sumar(MapaPares.clave(a, b), delta);
+        if (anterior == 0) {
+            if (delta <= 0) {
+                return false;
+            }
+            vecinos.computeIfAbsent(a, id -> new Vecinos()).agregar(b);
+            vecinos.computeIfAbsent(b, id -> new Vecinos()).agregar(a);
+        } else if (anterior + delta <= 0) {
+            quitarVecino(vecinos, a, b);
+            quitarVecino(vecinos, b, a);
+        }
+        return true;
+    }
+
+    private static void quitarVecino(Map<Integer, Vecinos> vecinos, int id, int vecino) {
+        Vecinos lista = vecinos.get(id);
+        if (lista != null) {
+            lista.quitar(vecino);
+            if (lista.cantidad == 0) {
+                vecinos.remove(id);
+            }
+        }
+    }
+
+    /**
+     * IDs distintos y ordenados; los que no caben en un int no participan de la matriz
+     */
+    private static int[] aEnteros(Collection<Long> ids) {
+        return ids.stream()
+                .filter(id -> id != null && id > 0 && id <= Integer.MAX_VALUE)
+                .mapToInt(Long::intValue)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    // ============================================================
+    // CARGA E INSTANTÁNEA
+    // ============================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        lock.writeLock().lock();
+        try {
+            if (cargada) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            MapaPares nuevosPares = new MapaPares();
+            Map<Integer, Vecinos> nuevosVecinos = new HashMap<>();
+
+            // Última venta de una instantánea escrita al cerrar; null si hay que reconstruir
+            Long marca = jdbcTemplate.query(SQL_ESTADO, (ResultSetExtractor<Long>) rs ->
+                    rs.next() && rs.getBoolean("cerrada") ? rs.getLong("ultima_venta") : null);
+            boolean reconstruir = marca == null || descartarInstantanea;
+            if (reconstruir) {
+                marca = 0L;
+            } else {
+                jdbcTemplate.query(SQL_INSTANTANEA, (RowCallbackHandler) rs -> {
+                    long cantidad = rs.getLong("cantidad");
+                    if (cantidad > 0) {
+                        sumar(nuevosPares, nuevosVecinos, rs.getInt("id_producto_a"), rs.getInt("id_producto_b"),
+                                (int) Math.min(cantidad, Integer.MAX_VALUE));
+                    }
+                });
+            }
+
+            Set<Long> reproducidas = new HashSet<>();
+            Set<Long> canceladas = new HashSet<>(jdbcTemplate.queryForList(SQL_CANCELADAS_POSTERIORES, Long.class, marca));
+            Set<Long> tocados = new HashSet<>();
+            long ultima = reproducir(marca, nuevosPares, nuevosVecinos, reproducidas, tocados);
+            // Hasta el próximo cierre ordenado la instantánea no sirve para iniciar
+            guardarEstado(ultima, false);
+
+            pares = nuevosPares;
+            vecinos = nuevosVecinos;
+            mejores.clear();
+            ultimaVenta = ultima;
+            vistasEnCarga = reproducidas;
+            canceladasEnCarga = canceladas;
+            // Los pares de las ventas reproducidas aún no están en la instantánea
+            sucios.addAll(tocados);
+            reescribir = reconstruir;
+            cargada = true;
+            log.info("Matriz de compras conjuntas {}: {} pares, {} ventas reproducidas en {} ms",
+                    reconstruir ? "reconstruida desde detalle_ventas" : "cargada desde la instantánea",
+                    nuevosPares.tamano(), reproducidas.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suma los pares de las ventas no canceladas posteriores a la instantánea
+     *
+     * @return ID de la última venta reproducida (o despuesDe si no hubo ninguna)
+     */
+    private long reproducir(long despuesDe, MapaPares nuevosPares, Map<Integer, Vecinos> nuevosVecinos,
+                            Set<Long> reproducidas, Set<Long> tocados) {
+        List<Long> productosVenta = new ArrayList<>();
+        long[] actual = {0, despuesDe};
+        RowCallbackHandler porFila = rs -> {
+            long idVenta = rs.getLong("id_venta");
+            if (idVenta != actual[0] && actual[0] != 0) {
+                sumarVenta(aEnteros(productosVenta), nuevosPares, nuevosVecinos, tocados);
+                productosVenta.clear();
+            }
+            actual[0] = idVenta;
+            actual[1] = Math.max(actual[1], idVenta);
+            reproducidas.add(idVenta);
+            productosVenta.add(rs.getLong("id_producto"));
+        };
+
+        // Cursor de base de datos: las filas se procesan sin materializar el resultado
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(SQL_VENTAS_POSTERIORES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, despuesDe);
+            return ps;
+        }, porFila));
+        sumarVenta(aEnteros(productosVenta), nuevosPares, nuevosVecinos, tocados);
+        return actual[1];
+    }
+
+    private static void sumarVenta(int[] productos, MapaPares pares, Map<Integer, Vecinos> vecinos,
+                                   Set<Long> tocados) {
+        for (int i = 0; i < productos.length; i++) {
+            for (int j = i + 1; j < productos.length; j++) {
+                sumar(pares, vecinos, productos[i], productos[j], 1);
+                tocados.add(MapaPares.clave(productos[i], productos[j]));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recomendaciones.instantanea-ms:600000}",
+            initialDelayString = "${recomendaciones.instantanea-ms:600000}")
+    public void guardarInstantanea() {
+        guardar(false);
+    }
+
+    @PreDestroy
+    public void guardarAlCerrar() {
+        guardar(true);
+    }
+
+    /**
+     * Escribe en compras_conjuntas los pares que cambiaron (todos tras una reconstrucción)
+     * y en compras_conjuntas_instantanea la última venta incluida
+     *
+     * @param alCerrar true en el cierre ordenado: la instantánea queda lista para el próximo inicio
+     */
+    private void guardar(boolean alCerrar) {
+        List<Object[]> actualizados = new ArrayList<>();
+        List<Object[]> eliminados = new ArrayList<>();
+        Set<Long> claves;
+        boolean completa;
+        long marca;
+
+        lock.writeLock().lock();
+        try {
+            if (!cargada || (sucios.isEmpty() && !reescribir && !alCerrar)) {
+                return;
+            }
+            claves = sucios;
+            sucios = new HashSet<>();
+            completa = reescribir;
+            reescribir = false;
+            marca = ultimaVenta;
+            if (completa) {
+                vecinos.forEach((a, lista) -> {
+                    for (int i = 0; i < lista.cantidad; i++) {
+                        int b = lista.ids[i];
+                        if (a < b) {
+                            actualizados.add(new Object[]{(long) pares.obtener(MapaPares.clave(a, b)), (long) a, (long) b});
+                        }
+                    }
+                });
+            } else {
+                for (long clave : claves) {
+                    long a = MapaPares.menor(clave);
+                    long b = MapaPares.mayor(clave);
+                    int cantidad = pares.obtener(clave);
+                    if (cantidad > 0) {
+                        actualizados.add(new Object[]{(long) cantidad, a, b});
+                    } else {
+                        eliminados.add(new Object[]{a, b});
+                    }
+                }
+            }
+            // Tras la primera instantánea ya no quedan avisos de commit anteriores a la carga
+            vistasEnCarga = new HashSet<>();
+            canceladasEnCarga = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> nuevos = new ArrayList<>();
+                if (completa) {
+                    jdbcTemplate.update(SQL_VACIAR);
+                    actualizados.forEach(fila -> nuevos.add(new Object[]{fila[1], fila[2], fila[0]}));
+                } else {
+                    int[] filas = jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_PAR, actualizados);
+                    for (int i = 0; i < filas.length; i++) {
+                        if (filas[i] == 0) {
+                            Object[] fila = actualizados.get(i);
+                            nuevos.add(new Object[]{fila[1], fila[2], fila[0]});
+                        }
+                    }
+                }
+                jdbcTemplate.batchUpdate(SQL_INSERTAR_PAR, nuevos);
+                jdbcTemplate.batchUpdate(SQL_ELIMINAR_PAR, eliminados);
+                guardarEstado(marca, alCerrar);
+            });
+            log.debug("Instantánea de compras conjuntas{}: {} pares escritos, {} eliminados (hasta venta {})",
+                    completa ? " completa" : "", actualizados.size(), eliminados.size(), marca);
+        } catch (DataAccessException e) {
+            lock.writeLock().lock();
+            try {
+                sucios.addAll(claves);
+                reescribir |= completa;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Error al guardar la instantánea de compras conjuntas, se reintentará", e);
+        }
+    }
+
+    /**
+     * Última venta incluida en la instantánea y si la escribió un cierre ordenado
+     */
+    private void guardarEstado(long ultima, boolean cerrada) {
+        if (jdbcTemplate.update(SQL_ACTUALIZAR_ESTADO, ultima, cerrada) == 0) {
+            jdbcTemplate.update(SQL_INSERTAR_ESTADO, ultima, cerrada);
+        }
+    }
+}
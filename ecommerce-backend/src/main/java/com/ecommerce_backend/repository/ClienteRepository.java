@@ -1,7 +1,10 @@
 package com.ecommerce_backend.repository;
 
 import com.ecommerce_backend.model.Cliente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -19,24 +22,42 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
 
     List<Cliente> findByNombreContainingIgnoreCase(String nombre);
 
+    // ═══════════════════════════════════════════
+    // PAGINACIÓN POR CURSOR (keyset sobre id_cliente)
+    // ═══════════════════════════════════════════
+
+    @Query("SELECT c FROM Cliente c WHERE c.idCliente > :despuesDe ORDER BY c.idCliente")
+    List<Cliente> findPagina(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    @Query("SELECT c FROM Cliente c WHERE LOWER(c.nombre) LIKE LOWER(CONCAT('%', :nombre, '%')) " +
+            "AND c.idCliente > :despuesDe ORDER BY c.idCliente")
+    List<Cliente> findPaginaPorNombre(@Param("nombre") String nombre,
+                                      @Param("despuesDe") Long despuesDe, Limit limite);
+
     // ═══════════════════════════════════════════
     // NUEVOS MÉTODOS PARA AUTENTICACIÓN JWT
     // ═══════════════════════════════════════════
 
+    // Comparan LOWER(email) para usar uq_clientes_email_lower (schema-postgresql.sql);
+    // el IgnoreCase derivado de Spring Data genera UPPER() y no usaría el índice.
+
     /**
      * Busca cliente por email ignorando mayúsculas/minúsculas
      * Usado por Spring Security para cargar el usuario
      */
-    Optional<Cliente> findByEmailIgnoreCase(String email);
+    @Query("SELECT c FROM Cliente c WHERE LOWER(c.email) = LOWER(:email)")
+    Optional<Cliente> findByEmailIgnoreCase(@Param("email") String email);
 
     /**
      * Verifica si existe un email (ignorando case)
      * Usado en el registro para evitar duplicados
      */
-    boolean existsByEmailIgnoreCase(String email);
+    @Query("SELECT COUNT(c) > 0 FROM Cliente c WHERE LOWER(c.email) = LOWER(:email)")
+    boolean existsByEmailIgnoreCase(@Param("email") String email);
 
     /**
      * Busca clientes activos por email
      */
-    Optional<Cliente> findByEmailIgnoreCaseAndActivoTrue(String email);
+    @Query("SELECT c FROM Cliente c WHERE LOWER(c.email) = LOWER(:email) AND c.activo = true")
+    Optional<Cliente> findByEmailIgnoreCaseAndActivoTrue(@Param("email") String email);
 }
\ No newline at end of file
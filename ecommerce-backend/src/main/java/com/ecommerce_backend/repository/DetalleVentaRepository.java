@@ -2,10 +2,25 @@ package com.ecommerce_backend.repository;
 
 import com.ecommerce_backend.model.DetalleVenta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface DetalleVentaRepository extends JpaRepository<DetalleVenta, Long> {
     List<DetalleVenta> findByVenta_IdVenta(Long idVenta);
+
+    /**
+     * Suma las cantidades vendidas por producto en un conjunto de ventas
+     */
+    @Query("SELECT d.producto.idProducto AS idProducto, SUM(d.cantidad) AS cantidad FROM DetalleVenta d " +
+            "WHERE d.venta.idVenta IN :idsVentas GROUP BY d.producto.idProducto")
+    List<CantidadProducto> sumarCantidadesPorProducto(@Param("idsVentas") Collection<Long> idsVentas);
+
+    interface CantidadProducto {
+        Long getIdProducto();
+        Long getCantidad();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.ecommerce_backend.repository;
+
+import com.ecommerce_backend.model.EstadisticaEstadoVenta;
+import com.ecommerce_backend.model.EstadoVenta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface EstadisticaEstadoVentaRepository
+        extends JpaRepository<EstadisticaEstadoVenta, EstadisticaEstadoVenta.Clave> {
+
+    /**
+     * Suma (o resta, con valores negativos) ventas e ingresos a un slot de un estado
+     */
+    @Modifying
+    @Query("UPDATE EstadisticaEstadoVenta e SET e.cantidad = e.cantidad + :cantidad, e.ingresos = e.ingresos + :ingresos " +
+            "WHERE e.estado = :estado AND e.slot = :slot")
+    int incrementar(@Param("estado") EstadoVenta estado, @Param("slot") Integer slot,
+                    @Param("cantidad") Long cantidad, @Param("ingresos") BigDecimal ingresos);
+
+    /**
+     * Totales por estado: lee un número fijo de filas, sin importar cuántas ventas existan
+     */
+    @Query("SELECT e.estado AS estado, SUM(e.cantidad) AS cantidad, SUM(e.ingresos) AS ingresos " +
+            "FROM EstadisticaEstadoVenta e GROUP BY e.estado")
+    List<ResumenEstado> resumirPorEstado();
+
+    @Query("SELECT COALESCE(SUM(e.cantidad), 0) FROM EstadisticaEstadoVenta e WHERE e.estado = :estado")
+    Long contarPorEstado(@Param("estado") EstadoVenta estado);
+
+    interface ResumenEstado {
+        EstadoVenta getEstado();
+        Long getCantidad();
+        BigDecimal getIngresos();
+    }
+}
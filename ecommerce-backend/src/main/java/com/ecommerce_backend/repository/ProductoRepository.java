@@ -1,16 +1,25 @@
 package com.ecommerce_backend.repository;
 
 import com.ecommerce_backend.model.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
 
     // ============================================================
     // BÚSQUEDAS BÁSICAS (ya existían)
@@ -20,6 +29,42 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
 
+    // ============================================================
+    // PAGINACIÓN POR CURSOR (keyset sobre id_producto)
+    // ============================================================
+    // Los listados leen solo las columnas de ResumenProducto: descripcion y detalles
+    // (TEXT/jsonb) nunca se traen de la base de datos. Una imagen aún embebida como
+    // data URI (pendiente de MigracionImagenesJob) se omite del listado.
+
+    String SELECT_RESUMEN = "SELECT p.idProducto AS idProducto, p.nombre AS nombre, p.categoria AS categoria, p.precio AS precio, " +
+            "p.precioAnterior AS precioAnterior, p.descuento AS descuento, p.badgeColor AS badgeColor, " +
+            "CASE WHEN p.imagen LIKE 'data:%' THEN NULL ELSE p.imagen END AS imagen, " +
+            "p.stock AS stock, p.version AS version, p.fechaModificacion AS fechaModificacion FROM Producto p ";
+
+    @Query(SELECT_RESUMEN + "WHERE p.idProducto > :despuesDe ORDER BY p.idProducto")
+    List<ResumenProducto> findPagina(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Usa el índice (categoria, id_producto)
+     */
+    @Query(SELECT_RESUMEN + "WHERE p.categoria = :categoria AND p.idProducto > :despuesDe ORDER BY p.idProducto")
+    List<ResumenProducto> findPaginaPorCategoria(@Param("categoria") String categoria,
+                                          @Param("despuesDe") Long despuesDe, Limit limite);
+
+    @Query(SELECT_RESUMEN + "WHERE p.stock > 0 AND p.idProducto > :despuesDe ORDER BY p.idProducto")
+    List<ResumenProducto> findPaginaDisponibles(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    @Query(SELECT_RESUMEN + "WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%')) " +
+            "AND p.idProducto > :despuesDe ORDER BY p.idProducto")
+    List<ResumenProducto> findPaginaPorNombre(@Param("nombre") String nombre,
+                                       @Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Resúmenes de los productos indicados, en cualquier orden (resultados del índice de búsqueda)
+     */
+    @Query(SELECT_RESUMEN + "WHERE p.idProducto IN :ids")
+    List<ResumenProducto> findResumenesByIds(@Param("ids") Collection<Long> ids);
+
     // ============================================================
     // BÚSQUEDAS POR STOCK
     // ============================================================
@@ -50,20 +95,56 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     // OPERACIONES DE STOCK
     // ============================================================
 
+    /**
+     * Carga y bloquea (SELECT ... FOR UPDATE) los productos de una venta en una sola consulta.
+     * El ORDER BY fija el orden de adquisición de locks para evitar deadlocks entre checkouts.
+     * Se cargan como solo lectura: el stock se modifica con reducirStock, no con dirty checking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT p FROM Producto p WHERE p.idProducto IN :ids ORDER BY p.idProducto")
+    List<Producto> findAllByIdParaVenta(@Param("ids") Collection<Long> ids);
+
     /**
      * Reduce el stock de un producto (retorna filas afectadas)
      */
     @Modifying
-    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad WHERE p.idProducto = :id AND p.stock >= :cantidad")
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1, " +
+            "p.fechaModificacion = LOCAL DATETIME WHERE p.idProducto = :id AND p.stock >= :cantidad")
     int reducirStock(@Param("id") Long idProducto, @Param("cantidad") Integer cantidad);
 
     /**
      * Aumenta el stock de un producto
      */
     @Modifying
-    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad WHERE p.idProducto = :id")
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, p.version = p.version + 1, " +
+            "p.fechaModificacion = LOCAL DATETIME WHERE p.idProducto = :id")
     int aumentarStock(@Param("id") Long idProducto, @Param("cantidad") Integer cantidad);
 
+    /**
+     * Nueva versión tras editar el producto desde la entidad (sus columnas de versión no son actualizables)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.version = p.version + 1, p.fechaModificacion = LOCAL DATETIME " +
+            "WHERE p.idProducto = :id")
+    int incrementarVersion(@Param("id") Long idProducto);
+
+    // ============================================================
+    // MIGRACIÓN DE IMÁGENES EMBEBIDAS
+    // ============================================================
+
+    @Query("SELECT p.idProducto AS idProducto, p.imagen AS imagen FROM Producto p " +
+            "WHERE p.idProducto > :despuesDe AND p.imagen LIKE 'data:%' ORDER BY p.idProducto")
+    List<ImagenProducto> findImagenesEmbebidas(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Reemplaza el data URI por su referencia en el almacén (si nadie cambió la imagen entretanto)
+     */
+    @Modifying
+    @Query("UPDATE Producto p SET p.imagen = :referencia, p.version = p.version + 1, " +
+            "p.fechaModificacion = LOCAL DATETIME WHERE p.idProducto = :id AND p.imagen LIKE 'data:%'")
+    int reemplazarImagenEmbebida(@Param("id") Long idProducto, @Param("referencia") String referencia);
+
     // ============================================================
     // ESTADÍSTICAS
     // ============================================================
@@ -76,4 +157,34 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
     @Query("SELECT COALESCE(SUM(p.stock), 0) FROM Producto p")
     Long sumTotalStock();
+
+    /**
+     * Stock persistido de todos los productos, sin cargar las entidades completas
+     */
+    @Query("SELECT p.idProducto AS idProducto, p.stock AS stock FROM Producto p")
+    List<StockProducto> findAllStock();
+
+    interface ResumenProducto {
+        Long getIdProducto();
+        String getNombre();
+        String getCategoria();
+        BigDecimal getPrecio();
+        BigDecimal getPrecioAnterior();
+        String getDescuento();
+        String getBadgeColor();
+        String getImagen();
+        Integer getStock();
+        Long getVersion();
+        LocalDateTime getFechaModificacion();
+    }
+
+    interface ImagenProducto {
+        Long getIdProducto();
+        String getImagen();
+    }
+
+    interface StockProducto {
+        Long getIdProducto();
+        Integer getStock();
+    }
 }
\ No newline at end of file
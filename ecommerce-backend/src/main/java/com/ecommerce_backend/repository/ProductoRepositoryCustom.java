@@ -0,0 +1,19 @@
+package com.ecommerce_backend.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Descuenta stock de varios productos en un único batch JDBC de updates condicionales.
+     *
+     * @return IDs de los productos cuyo update no afectó filas (stock insuficiente o inexistente)
+     */
+    List<Long> reducirStockEnLote(Map<Long, Integer> cantidadesPorProducto);
+
+    /**
+     * Devuelve stock a varios productos en un único batch JDBC, un UPDATE por producto
+     */
+    void aumentarStockEnLote(Map<Long, Integer> cantidadesPorProducto);
+}
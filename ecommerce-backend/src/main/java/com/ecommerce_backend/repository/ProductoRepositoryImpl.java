@@ -0,0 +1,52 @@
+package com.ecommerce_backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación JDBC de ProductoRepositoryCustom
+ */
+@RequiredArgsConstructor
+public class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    private static final String SQL_REDUCIR_STOCK =
+            "UPDATE productos SET stock = stock - ?, version = version + 1, fecha_modificacion = CURRENT_TIMESTAMP " +
+            "WHERE id_producto = ? AND stock >= ?";
+
+    private static final String SQL_AUMENTAR_STOCK =
+            "UPDATE productos SET stock = stock + ?, version = version + 1, fecha_modificacion = CURRENT_TIMESTAMP " +
+            "WHERE id_producto = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> reducirStockEnLote(Map<Long, Integer> cantidadesPorProducto) {
+        List<Long> ids = new ArrayList<>(cantidadesPorProducto.keySet());
+        List<Object[]> parametros = ids.stream()
+                .map(id -> new Object[]{cantidadesPorProducto.get(id), id, cantidadesPorProducto.get(id)})
+                .toList();
+
+        int[] filasAfectadas = jdbcTemplate.batchUpdate(SQL_REDUCIR_STOCK, parametros);
+
+        List<Long> sinStock = new ArrayList<>();
+        for (int i = 0; i < filasAfectadas.length; i++) {
+            if (filasAfectadas[i] == 0) {
+                sinStock.add(ids.get(i));
+            }
+        }
+        return sinStock;
+    }
+
+    @Override
+    public void aumentarStockEnLote(Map<Long, Integer> cantidadesPorProducto) {
+        List<Object[]> parametros = cantidadesPorProducto.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+
+        jdbcTemplate.batchUpdate(SQL_AUMENTAR_STOCK, parametros);
+    }
+}
@@ -1,18 +1,93 @@
 package com.ecommerce_backend.repository;
 
+import com.ecommerce_backend.model.EstadoVenta;
 import com.ecommerce_backend.model.Venta;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface VentaRepository extends JpaRepository<Venta, Long> {
+public interface VentaRepository extends JpaRepository<Venta, Long>, VentaRepositoryCustom {
     List<Venta> findByCliente_IdCliente(Long idCliente);
-    List<Venta> findByEstado(String estado);
+    List<Venta> findByEstado(EstadoVenta estado);
 
-    @Query("SELECT SUM(v.total) FROM Venta v WHERE v.cliente.idCliente = :idCliente AND v.estado = 'COMPLETADA'")
+    // ============================================
+    // LECTURAS PARA RESPUESTAS (grafo completo, sin N+1)
+    // ============================================
+
+    @EntityGraph(Venta.GRAFO_COMPLETO)
+    @Query("SELECT v FROM Venta v WHERE v.idVenta = :idVenta")
+    Optional<Venta> findConDetallesById(@Param("idVenta") Long idVenta);
+
+    /**
+     * Carga el grafo completo de una página de ventas. Los IDs se obtienen antes
+     * con las consultas de página: un LIMIT junto a un fetch de colección se aplicaría en memoria.
+     */
+    @EntityGraph(Venta.GRAFO_COMPLETO)
+    @Query("SELECT v FROM Venta v WHERE v.idVenta IN :ids ORDER BY v.idVenta")
+    List<Venta> findConDetallesByIds(@Param("ids") Collection<Long> ids);
+
+    // ============================================
+    // PAGINACIÓN POR CURSOR (keyset sobre id_venta)
+    // ============================================
+
+    @Query("SELECT v.idVenta FROM Venta v WHERE v.idVenta > :despuesDe ORDER BY v.idVenta")
+    List<Long> findIdsPagina(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Usa el índice (id_cliente, id_venta)
+     */
+    @Query("SELECT v.idVenta FROM Venta v WHERE v.cliente.idCliente = :idCliente AND v.idVenta > :despuesDe " +
+            "ORDER BY v.idVenta")
+    List<Long> findIdsPaginaPorCliente(@Param("idCliente") Long idCliente,
+                                       @Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Usa el índice (estado, id_venta)
+     */
+    @Query("SELECT v.idVenta FROM Venta v WHERE v.estado = :estado AND v.idVenta > :despuesDe ORDER BY v.idVenta")
+    List<Long> findIdsPaginaPorEstado(@Param("estado") EstadoVenta estado,
+                                      @Param("despuesDe") Long despuesDe, Limit limite);
+
+    @Query("SELECT SUM(v.total) FROM Venta v WHERE v.cliente.idCliente = :idCliente AND v.estado = com.ecommerce_backend.model.EstadoVenta.COMPLETADA")
     BigDecimal calcularTotalVentasPorCliente(@Param("idCliente") Long idCliente);
+
+    /**
+     * Carga y bloquea (SELECT ... FOR UPDATE) una venta antes de cambiar su estado: el mismo lock
+     * que toma el job de expiración, así dos cancelaciones no devuelven el stock dos veces
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Venta v WHERE v.idVenta = :idVenta")
+    Optional<Venta> findParaActualizarById(@Param("idVenta") Long idVenta);
+
+    /**
+     * Bloquea (FOR UPDATE) un chunk de ventas PENDIENTE anteriores al límite, en orden de ID
+     */
+    @Query(value = "SELECT id_venta FROM ventas WHERE estado = 'PENDIENTE' AND fecha_venta < :limite " +
+            "ORDER BY id_venta LIMIT :tamano FOR UPDATE", nativeQuery = true)
+    List<Long> bloquearPendientesAnterioresA(@Param("limite") LocalDateTime limite, @Param("tamano") int tamano);
+
+    /**
+     * Suma los totales de varias ventas (para mover sus ingresos entre contadores de estado)
+     */
+    @Query("SELECT COALESCE(SUM(v.total), 0) FROM Venta v WHERE v.idVenta IN :ids")
+    BigDecimal sumarTotales(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Cambia el estado de varias ventas en un solo UPDATE
+     */
+    @Modifying
+    @Query("UPDATE Venta v SET v.estado = :estado WHERE v.idVenta IN :ids")
+    int actualizarEstadoEnLote(@Param("ids") Collection<Long> ids, @Param("estado") EstadoVenta estado);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.ecommerce_backend.repository;
+
+import com.ecommerce_backend.model.Venta;
+
+import java.util.List;
+
+public interface VentaRepositoryCustom {
+
+    /**
+     * Inserta ventas y sus detalles con batches JDBC (un round trip por tabla)
+     * y asigna los IDs generados a las entidades recibidas.
+     */
+    void insertarEnLote(List<Venta> ventas);
+}
@@ -0,0 +1,98 @@
+package com.ecommerce_backend.repository;
+
+import com.ecommerce_backend.model.DetalleVenta;
+import com.ecommerce_backend.model.Venta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementación JDBC de VentaRepositoryCustom.
+ *
+ * Las entidades usan IDENTITY, que impide a Hibernate agrupar los INSERT;
+ * aquí se envían en un único batch por tabla y se leen las claves generadas.
+ */
+@RequiredArgsConstructor
+public class VentaRepositoryImpl implements VentaRepositoryCustom {
+
+    private static final String SQL_INSERTAR_VENTA =
+            "INSERT INTO ventas (id_cliente, fecha_venta, total, estado) VALUES (?, ?, ?, ?)";
+
+    private static final String SQL_INSERTAR_DETALLE =
+            "INSERT INTO detalle_ventas (id_venta, id_producto, cantidad, precio_unitario, subtotal) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertarEnLote(List<Venta> ventas) {
+        if (ventas.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        ventas.stream().filter(v -> v.getFechaVenta() == null).forEach(v -> v.setFechaVenta(ahora));
+
+        KeyHolder clavesVentas = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(SQL_INSERTAR_VENTA, new String[]{"id_venta"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Venta venta = ventas.get(i);
+                        ps.setLong(1, venta.getCliente().getIdCliente());
+                        ps.setObject(2, venta.getFechaVenta());
+                        ps.setBigDecimal(3, venta.getTotal());
+                        ps.setString(4, venta.getEstado().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ventas.size();
+                    }
+                },
+                clavesVentas);
+        asignarClaves(clavesVentas, ventas, Venta::setIdVenta);
+
+        List<DetalleVenta> detalles = ventas.stream().flatMap(v -> v.getDetalles().stream()).toList();
+
+        KeyHolder clavesDetalles = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(SQL_INSERTAR_DETALLE, new String[]{"id_detalle"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        DetalleVenta detalle = detalles.get(i);
+                        ps.setLong(1, detalle.getVenta().getIdVenta());
+                        ps.setLong(2, detalle.getProducto().getIdProducto());
+                        ps.setInt(3, detalle.getCantidad());
+                        ps.setBigDecimal(4, detalle.getPrecioUnitario());
+                        ps.setBigDecimal(5, detalle.getSubtotal());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return detalles.size();
+                    }
+                },
+                clavesDetalles);
+        asignarClaves(clavesDetalles, detalles, DetalleVenta::setIdDetalle);
+    }
+
+    private <T> void asignarClaves(KeyHolder claves, List<T> entidades, BiConsumer<T, Long> setter) {
+        List<Map<String, Object>> filas = claves.getKeyList();
+        for (int i = 0; i < entidades.size(); i++) {
+            // Una sola columna generada por fila; el nombre exacto depende del driver
+            Number id = (Number) filas.get(i).values().iterator().next();
+            setter.accept(entidades.get(i), id.longValue());
+        }
+    }
+}
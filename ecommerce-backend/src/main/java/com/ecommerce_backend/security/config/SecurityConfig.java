@@ -1,7 +1,11 @@
 package com.ecommerce_backend.security.config;
 
+import com.ecommerce_backend.security.hash.PasswordEncoderAcotado;
 import com.ecommerce_backend.security.jwt.JwtAuthenticationFilter;
+import com.ecommerce_backend.security.limite.LimiteAutenticacionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,7 +14,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -27,6 +30,7 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
+    private final LimiteAutenticacionFilter limiteAutenticacionFilter;
 
     /**
      * Configura la cadena de filtros de seguridad HTTP
@@ -57,6 +61,9 @@ public class SecurityConfig {
                         // Productos - GET público (ver catálogo)
                         .requestMatchers(HttpMethod.GET, "/api/productos/**").permitAll()
 
+                        // Imágenes del catálogo - GET público
+                        .requestMatchers(HttpMethod.GET, "/api/imagenes/**").permitAll()
+
                         // Documentación Swagger (si la agregas después)
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 
@@ -72,7 +79,10 @@ public class SecurityConfig {
                 )
 
                 // Agregar el filtro JWT antes del filtro estándar de autenticación
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+
+                // Límite de intentos de login y registro, antes de cualquier hash BCrypt
+                .addFilterBefore(limiteAutenticacionFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -102,8 +112,9 @@ public class SecurityConfig {
         // Permitir envío de credenciales (cookies, auth headers)
         configuration.setAllowCredentials(true);
 
-        // Exponer el header Authorization en la respuesta
-        configuration.setExposedHeaders(List.of("Authorization"));
+        // Exponer headers propios en la respuesta
+        configuration.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed", "Location", "ETag", "Last-Modified",
+                "Accept-Ranges", "Content-Range"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -112,11 +123,17 @@ public class SecurityConfig {
     }
 
     /**
-     * Encoder para hashear contraseñas con BCrypt
+     * Encoder para hashear contraseñas con BCrypt, en un pool acotado fuera de los hilos de Tomcat
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${contrasenas.hash.costo:10}") int costo,
+            @Value("${contrasenas.hash.hilos:0}") int hilos,
+            @Value("${contrasenas.hash.cola:100}") int cola,
+            MeterRegistry meterRegistry) {
+        // hilos = 0: uno por CPU
+        int hilosPool = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        return new PasswordEncoderAcotado(costo, hilosPool, cola, meterRegistry);
     }
 
     /**
@@ -0,0 +1,132 @@
+package com.ecommerce_backend.security.hash;
+
+import com.ecommerce_backend.exception.DemasiadasSolicitudesException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt en un pool propio de tantos hilos como CPUs, con una cola acotada.
+ *
+ * - Los hilos de Tomcat solo esperan el resultado: una ráfaga de logins o registros usa
+ *   a lo más "hilos" CPUs y no deja sin CPU al resto del tráfico
+ * - Con la cola llena se rechaza de inmediato con 429 (DemasiadasSolicitudesException)
+ * - upgradeEncoding es true si el hash se generó con otro costo: Spring Security lo
+ *   vuelve a generar con el costo configurado al iniciar sesión (ClienteDetallesService.updatePassword)
+ *
+ * Métricas:
+ * - contrasenas.hash: duración de cada hash o verificación (tag operacion)
+ * - contrasenas.hash.espera: tiempo en cola antes de empezar
+ * - contrasenas.hash.cola: tareas en cola
+ * - contrasenas.hash.rechazados: solicitudes rechazadas con la cola llena
+ */
+public class PasswordEncoderAcotado implements PasswordEncoder, AutoCloseable {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final int costo;
+    private final ThreadPoolExecutor ejecutor;
+    private final Timer duracionHash;
+    private final Timer duracionVerificacion;
+    private final Timer espera;
+    private final Counter rechazados;
+
+    public PasswordEncoderAcotado(int costo, int hilos, int cola, MeterRegistry meterRegistry) {
+        this.bcrypt = new BCryptPasswordEncoder(costo);
+        this.costo = costo;
+
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasenas-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.duracionHash = Timer.builder("contrasenas.hash")
+                .description("Duración de cada hash o verificación BCrypt")
+                .tag("operacion", "hash")
+                .register(meterRegistry);
+        this.duracionVerificacion = Timer.builder("contrasenas.hash")
+                .description("Duración de cada hash o verificación BCrypt")
+                .tag("operacion", "verificacion")
+                .register(meterRegistry);
+        this.espera = Timer.builder("contrasenas.hash.espera")
+                .description("Tiempo en cola antes de calcular el hash")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("contrasenas.hash.rechazados")
+                .description("Solicitudes rechazadas con la cola de hash llena")
+                .register(meterRegistry);
+        Gauge.builder("contrasenas.hash.cola", ejecutor, pool -> pool.getQueue().size())
+                .description("Tareas de hash en cola")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(duracionHash, () -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(duracionVerificacion, () -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * true si el hash usa un costo distinto del configurado ($2a$10$...: costo 10)
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(6) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != costo;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private <T> T ejecutar(Timer duracion, Callable<T> tarea) {
+        long encolada = System.nanoTime();
+        Future<T> resultado;
+        try {
+            resultado = ejecutor.submit(() -> {
+                espera.record(System.nanoTime() - encolada, TimeUnit.NANOSECONDS);
+                return duracion.recordCallable(tarea);
+            });
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new DemasiadasSolicitudesException("Demasiadas solicitudes de autenticación, intente nuevamente en unos segundos");
+        }
+
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se esperaba el hash de la contraseña", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -1,16 +1,21 @@
 package com.ecommerce_backend.security.jwt;
 
+import com.ecommerce_backend.security.model.ClientePrincipal;
+import com.ecommerce_backend.security.revocacion.RevocacionClientes;
 import com.ecommerce_backend.security.service.ClienteDetallesService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,17 +28,31 @@ import java.io.IOException;
  * Flujo:
  * 1. Lee el header "Authorization"
  * 2. Verifica formato "Bearer TOKEN"
- * 3. Extrae el email del token
- * 4. Carga el usuario desde la BD
- * 5. Valida el token
- * 6. Establece la autenticación en el SecurityContext
+ * 3. Verifica firma y expiración del token (una sola vez)
+ * 4. Arma el usuario desde los claims (ID, activo, roles) si RevocacionClientes confirma en
+ *    memoria que la cuenta sigue activa: sin consultar la BD. Si no lo confirma
+ *    (eliminada, desactivada o aún no refrescada), con jwt.principal-sin-estado=false o con
+ *    tokens sin el claim del ID, lo carga desde la BD
+ * 5. Establece la autenticación en el SecurityContext
  */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final ClienteDetallesService clienteDetallesService;
+    private final RevocacionClientes revocacionClientes;
+    private final boolean principalSinEstado;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            ClienteDetallesService clienteDetallesService,
+            RevocacionClientes revocacionClientes,
+            @Value("${jwt.principal-sin-estado:true}") boolean principalSinEstado) {
+        this.jwtService = jwtService;
+        this.clienteDetallesService = clienteDetallesService;
+        this.revocacionClientes = revocacionClientes;
+        this.principalSinEstado = principalSinEstado;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -53,44 +72,60 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // 3. Extraer el token (quitar "Bearer ")
+        // 3. Extraer el token (quitar "Bearer ") y verificarlo
         final String token = authHeader.substring(7);
-
-        // 4. Extraer el email del token
-        final String userEmail;
+        final Claims claims;
         try {
-            userEmail = jwtService.extractUsername(token);
-        } catch (Exception e) {
-            // Token mal formado, continuar sin autenticación
+            claims = jwtService.extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido, mal formado o expirado: continuar sin autenticación
             filterChain.doFilter(request, response);
             return;
         }
 
-        // 5. Si hay email y no hay autenticación previa en el contexto
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            // 6. Cargar el usuario desde la BD
-            UserDetails userDetails = clienteDetallesService.loadUserByUsername(userEmail);
+        // 4. Si hay email y no hay autenticación previa en el contexto
+        if (claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolverUsuario(claims);
 
-            // 7. Validar el token
-            if (jwtService.isTokenValid(token, userDetails.getUsername())) {
-
-                // 8. Crear objeto de autenticación
+            if (userDetails != null) {
+                // 5. Crear objeto de autenticación
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,  // No necesitamos las credenciales aquí
                         userDetails.getAuthorities()
                 );
 
-                // 9. Agregar detalles de la petición
+                // 6. Agregar detalles de la petición
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // 10. Establecer la autenticación en el contexto de seguridad
+                // 7. Establecer la autenticación en el contexto de seguridad
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
 
-        // 11. Continuar con la cadena de filtros
+        // 8. Continuar con la cadena de filtros
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Usuario del token, o null si la cuenta está desactivada, eliminada o no existe
+     */
+    private UserDetails resolverUsuario(Claims claims) {
+        ClientePrincipal principal = principalSinEstado ? jwtService.extractPrincipal(claims) : null;
+        if (principal != null) {
+            if (!principal.isEnabled()) {
+                return null;
+            }
+            if (revocacionClientes.estaConfirmadoActivo(principal.getClienteId())) {
+                return principal;
+            }
+        }
+
+        // Cargar el usuario desde la BD (rechaza cuentas eliminadas o desactivadas)
+        try {
+            return clienteDetallesService.loadUserByUsername(claims.getSubject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.ecommerce_backend.security.jwt;
 
+import com.ecommerce_backend.security.model.ClientePrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -20,12 +32,23 @@ import java.util.function.Function;
  * - Generación de tokens
  * - Validación de tokens
  * - Extracción de datos (claims)
+ *
+ * El parser se construye una vez. Los claims ya verificados quedan en un cache acotado,
+ * indexado por el SHA-256 del token, hasta que el token expira: un cliente que repite
+ * el mismo token paga la verificación HMAC y el parseo una sola vez.
  */
 @Service
 public class JwtService {
 
+    // Claims con los que se arma el ClientePrincipal sin consultar la BD
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_ACTIVO = "activo";
+    public static final String CLAIM_ROLES = "roles";
+
     private final Key signingKey;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final Cache<ClaveToken, Claims> verificados;
 
     /**
      * Constructor que inicializa la clave de firma y tiempo de expiración
@@ -33,7 +56,9 @@ public class JwtService {
      */
     public JwtService(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expiration) {
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.cache.max-tokens:100000}") long maxTokens,
+            MeterRegistry meterRegistry) {
 
         // Validar que el secret tenga al menos 32 caracteres (256 bits para HS256)
         if (secret == null || secret.length() < 32) {
@@ -44,6 +69,43 @@ public class JwtService {
 
         this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expiration;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verificados = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(new HastaExpirar())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verificados, "jwt.tokens");
+    }
+
+    /**
+     * Primeros 128 bits del SHA-256 del token
+     */
+    private record ClaveToken(long alto, long bajo) {
+    }
+
+    /**
+     * Cada token sale del cache en el instante en que expira
+     */
+    private static final class HastaExpirar implements Expiry<ClaveToken, Claims> {
+
+        @Override
+        public long expireAfterCreate(ClaveToken clave, Claims claims, long ahora) {
+            long restanteMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return Math.max(0, restanteMs) * 1_000_000;
+        }
+
+        @Override
+        public long expireAfterUpdate(ClaveToken clave, Claims claims, long ahora, long duracionActual) {
+            return expireAfterCreate(clave, claims, ahora);
+        }
+
+        @Override
+        public long expireAfterRead(ClaveToken clave, Claims claims, long ahora, long duracionActual) {
+            return duracionActual;
+        }
     }
 
     /**
@@ -55,6 +117,19 @@ public class JwtService {
         return generateToken(email, new HashMap<>());
     }
 
+    /**
+     * Genera un token JWT que incluye el ID del cliente, si está activo y sus roles
+     * @param principal El cliente autenticado
+     * @return Token JWT firmado
+     */
+    public String generateToken(ClientePrincipal principal) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_ID, principal.getClienteId());
+        claims.put(CLAIM_ACTIVO, principal.isEnabled());
+        claims.put(CLAIM_ROLES, List.copyOf(principal.getRoles()));
+        return generateToken(principal.getUsername(), claims);
+    }
+
     /**
      * Genera un token JWT con claims adicionales
      * @param email El email del usuario
@@ -97,14 +172,48 @@ public class JwtService {
     }
 
     /**
-     * Extrae todos los claims del token
+     * Extrae todos los claims del token, verificando firma y expiración.
+     * Los claims devueltos pueden estar compartidos con otras peticiones: son de solo lectura.
+     * @throws JwtException si el token es inválido, está mal formado o expiró
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public Claims extractAllClaims(String token) {
+        ClaveToken clave = digerir(token);
+        Claims claims = verificados.getIfPresent(clave);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            // Sin expiración no se guarda: no habría cuándo sacarlo del cache
+            if (claims.getExpiration() != null) {
+                verificados.put(clave, claims);
+            }
+        }
+        return claims;
+    }
+
+    private static ClaveToken digerir(String token) {
+        try {
+            ByteBuffer hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new ClaveToken(hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Arma el principal desde los claims ya verificados
+     * @return null si el token no trae el ID del cliente (emitido antes de incluirlo)
+     */
+    public ClientePrincipal extractPrincipal(Claims claims) {
+        Number id = claims.get(CLAIM_ID, Number.class);
+        if (id == null) {
+            return null;
+        }
+        Collection<?> roles = claims.get(CLAIM_ROLES, Collection.class);
+        return ClientePrincipal.desdeClaims(
+                id.longValue(),
+                claims.getSubject(),
+                Boolean.TRUE.equals(claims.get(CLAIM_ACTIVO, Boolean.class)),
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of());
     }
 
     /**
@@ -115,8 +224,9 @@ public class JwtService {
      */
     public boolean isTokenValid(String token, String email) {
         try {
-            final String tokenEmail = extractUsername(token);
-            return tokenEmail.equalsIgnoreCase(email) && !isTokenExpired(token);
+            // Un solo parseo para el email y la expiración
+            final Claims claims = extractAllClaims(token);
+            return claims.getSubject().equalsIgnoreCase(email) && !isTokenExpired(claims);
         } catch (JwtException | IllegalArgumentException e) {
             // Token inválido, mal formado o expirado
             return false;
@@ -126,7 +236,7 @@ public class JwtService {
     /**
      * Verifica si el token ha expirado
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 }
\ No newline at end of file
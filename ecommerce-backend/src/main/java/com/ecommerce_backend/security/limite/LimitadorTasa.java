@@ -0,0 +1,146 @@
+package com.ecommerce_backend.security.limite;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket por clave, sin locks: cada clave es un solo AtomicLong.
+ *
+ * Se guarda el instante teórico en que el bucket vuelve a estar lleno (GCRA):
+ * consumir un token es correrlo un intervalo con compareAndSet, y se rechaza si quedaría
+ * más de capacidad intervalos por delante. Las claves se reparten en franjas
+ * (ConcurrentHashMap independientes); una clave cuyo bucket ya se llenó de nuevo equivale
+ * a una nueva y se descarta.
+ *
+ * - La limpieza completa corre solo desde la tarea programada, nunca en la solicitud
+ * - Con la franja llena, una clave nueva desaloja la más antigua si su bucket ya se llenó;
+ *   si no, se rechaza (429) hasta que se llene: desalojar un bucket vacío le devolvería
+ *   todos sus tokens
+ */
+final class LimitadorTasa {
+
+    private final long intervaloNs;
+    private final long rafagaNs;
+    private final int maxClavesPorFranja;
+    private final Franja[] franjas;
+
+    /**
+     * Claves de una franja y su orden de llegada (puede tener claves ya descartadas,
+     * que se saltan al desalojar y se quitan en la limpieza)
+     */
+    private record Franja(ConcurrentHashMap<String, AtomicLong> claves, ConcurrentLinkedDeque<String> orden) {
+    }
+
+    /**
+     * @param capacidad  solicitudes seguidas permitidas con el bucket lleno
+     * @param porMinuto  tokens que se recuperan por minuto
+     * @param maxClaves  claves en memoria como máximo (repartidas entre las franjas)
+     */
+    LimitadorTasa(int capacidad, int porMinuto, int maxClaves, int cantidadFranjas) {
+        this.intervaloNs = TimeUnit.MINUTES.toNanos(1) / Math.max(1, porMinuto);
+        this.rafagaNs = intervaloNs * Math.max(1, capacidad);
+        this.maxClavesPorFranja = Math.max(1, maxClaves / cantidadFranjas);
+        this.franjas = new Franja[cantidadFranjas];
+        for (int i = 0; i < cantidadFranjas; i++) {
+            franjas[i] = new Franja(new ConcurrentHashMap<>(), new ConcurrentLinkedDeque<>());
+        }
+    }
+
+    /**
+     * Consume un token de la clave
+     *
+     * @return 0 si se permitió, o los nanosegundos que faltan para el próximo token
+     *         (o para que se libere espacio, si no hay lugar para una clave nueva)
+     */
+    long consumir(String clave) {
+        return consumir(clave, System.nanoTime());
+    }
+
+    long consumir(String clave, long ahora) {
+        Franja franja = franja(clave);
+        AtomicLong lleno = franja.claves().get(clave);
+        if (lleno == null) {
+            if (franja.claves().size() >= maxClavesPorFranja) {
+                long espera = desalojarMasAntigua(franja, ahora);
+                if (espera > 0) {
+                    return espera;
+                }
+            }
+            lleno = franja.claves().computeIfAbsent(clave, k -> {
+                franja.orden().addLast(k);
+                return new AtomicLong(ahora);
+            });
+        }
+
+        while (true) {
+            long actual = lleno.get();
+            long nuevo = Math.max(actual, ahora) + intervaloNs;
+            if (nuevo - ahora > rafagaNs) {
+                return nuevo - ahora - rafagaNs;
+            }
+            if (lleno.compareAndSet(actual, nuevo)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Descarta la clave más antigua de la franja si su bucket ya está lleno
+     *
+     * @return 0 si hay espacio, o los nanosegundos que faltan para que la más antigua se llene
+     */
+    private long desalojarMasAntigua(Franja franja, long ahora) {
+        while (true) {
+            String antigua = franja.orden().pollFirst();
+            if (antigua == null) {
+                // Otras solicitudes tomaron las claves en orden: se reintenta en un intervalo
+                return intervaloNs;
+            }
+            AtomicLong lleno = franja.claves().get(antigua);
+            if (lleno == null) {
+                // Ya descartada
+                continue;
+            }
+            long espera = lleno.get() - ahora;
+            if (espera > 0) {
+                franja.orden().addFirst(antigua);
+                return espera;
+            }
+            franja.claves().remove(antigua, lleno);
+            return 0;
+        }
+    }
+
+    /**
+     * Descarta las claves cuyo bucket ya está lleno
+     */
+    void limpiar() {
+        limpiar(System.nanoTime());
+    }
+
+    void limpiar(long ahora) {
+        for (Franja franja : franjas) {
+            franja.claves().values().removeIf(lleno -> lleno.get() - ahora <= 0);
+            // Quita del orden las claves descartadas y las repetidas (se conserva la más antigua)
+            Set<String> vistas = new HashSet<>();
+            franja.orden().removeIf(clave -> !franja.claves().containsKey(clave) || !vistas.add(clave));
+        }
+    }
+
+    int cantidadClaves() {
+        int total = 0;
+        for (Franja franja : franjas) {
+            total += franja.claves().size();
+        }
+        return total;
+    }
+
+    private Franja franja(String clave) {
+        int h = clave.hashCode();
+        return franjas[((h ^ (h >>> 16)) & 0x7fffffff) % franjas.length];
+    }
+}
@@ -0,0 +1,251 @@
+package com.ecommerce_backend.security.limite;
+
+import com.ecommerce_backend.dto.ErrorResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita los intentos de POST /auth/login y /auth/register por IP y por email
+ * (normalizado: sin espacios y en minúsculas), antes de llegar al AuthenticationManager.
+ *
+ * - Cada intento cuesta un hash BCrypt: sin límite, un ataque de credential stuffing
+ *   consume la CPU de todo el servicio
+ * - Se revisa primero la IP y después el email del body; si alguno no tiene tokens
+ *   se responde 429 con Retry-After sin leer la BD ni calcular ningún hash
+ * - Con max-claves claves en memoria, una IP o email nuevo también recibe 429 hasta que
+ *   se libere espacio (no se deja pasar sin límite)
+ * - Un body de más de MAX_BODY bytes se rechaza con 413 (no se reenvía truncado)
+ * - autenticacion.limite.rechazados cuenta los rechazos por tipo de clave (ip, email)
+ */
+@Component
+public class LimiteAutenticacionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> RUTAS = Set.of("/auth/login", "/auth/register");
+    private static final int FRANJAS = 16;
+    // Un body de login o registro es mucho menor: más grande no se lee para buscar el email
+    private static final int MAX_BODY = 16 * 1024;
+
+    private final boolean habilitado;
+    private final LimitadorTasa porIp;
+    private final LimitadorTasa porEmail;
+    private final ObjectMapper objectMapper;
+    private final Counter rechazadosIp;
+    private final Counter rechazadosEmail;
+
+    public LimiteAutenticacionFilter(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${autenticacion.limite.habilitado:true}") boolean habilitado,
+            @Value("${autenticacion.limite.ip.capacidad:20}") int capacidadIp,
+            @Value("${autenticacion.limite.ip.por-minuto:10}") int porMinutoIp,
+            @Value("${autenticacion.limite.email.capacidad:5}") int capacidadEmail,
+            @Value("${autenticacion.limite.email.por-minuto:3}") int porMinutoEmail,
+            @Value("${autenticacion.limite.max-claves:100000}") int maxClaves) {
+        this.objectMapper = objectMapper;
+        this.habilitado = habilitado;
+        this.porIp = new LimitadorTasa(capacidadIp, porMinutoIp, maxClaves, FRANJAS);
+        this.porEmail = new LimitadorTasa(capacidadEmail, porMinutoEmail, maxClaves, FRANJAS);
+
+        this.rechazadosIp = Counter.builder("autenticacion.limite.rechazados")
+                .description("Intentos de login o registro rechazados por el límite de tasa")
+                .tag("clave", "ip")
+                .register(meterRegistry);
+        this.rechazadosEmail = Counter.builder("autenticacion.limite.rechazados")
+                .description("Intentos de login o registro rechazados por el límite de tasa")
+                .tag("clave", "email")
+                .register(meterRegistry);
+        Gauge.builder("autenticacion.limite.claves", this, filtro -> filtro.porIp.cantidadClaves()
+                        + filtro.porEmail.cantidadClaves())
+                .description("IPs y emails con bucket en memoria")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !habilitado || !"POST".equals(request.getMethod())
+                || !RUTAS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        // 1. Por IP (sin leer el body)
+        long espera = porIp.consumir(request.getRemoteAddr());
+        if (espera > 0) {
+            rechazadosIp.increment();
+            rechazar(request, response, espera);
+            return;
+        }
+
+        // 2. Por email: se lee el body y se entrega de nuevo al controller
+        byte[] cuerpo = request.getInputStream().readNBytes(MAX_BODY + 1);
+        if (cuerpo.length > MAX_BODY) {
+            // No se reenvía truncado ni se deja pasar sin revisar el email
+            responder(request, response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "El cuerpo de la solicitud supera los " + MAX_BODY + " bytes");
+            return;
+        }
+        String email = email(cuerpo);
+        if (email != null) {
+            espera = porEmail.consumir(email);
+            if (espera > 0) {
+                rechazadosEmail.increment();
+                rechazar(request, response, espera);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new CuerpoReleible(request, cuerpo), response);
+    }
+
+    /**
+     * Email normalizado del body JSON, o null si no tiene
+     */
+    private String email(byte[] cuerpo) {
+        try {
+            JsonNode email = objectMapper.readTree(cuerpo).path("email");
+            return email.isTextual() && !email.asText().isBlank()
+                    ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // JSON inválido: lo rechazará la validación del controller
+            return null;
+        }
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response, long esperaNs)
+            throws IOException {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNs + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        responder(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                "Demasiados intentos, intente nuevamente en " + segundos + " segundos");
+    }
+
+    private void responder(HttpServletRequest request, HttpServletResponse response, HttpStatus estado,
+                           String mensaje) throws IOException {
+        ErrorResponseDTO error = ErrorResponseDTO.builder()
+                .timestamp(LocalDateTime.now())
+                .status(estado.value())
+                .error(estado.getReasonPhrase())
+                .message(mensaje)
+                .path(request.getRequestURI())
+                .build();
+
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            response.getWriter().write(objectMapper.writeValueAsString(error));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Descarta los buckets que ya se llenaron de nuevo (IPs y emails inactivos)
+     */
+    @Scheduled(fixedDelayString = "${autenticacion.limite.limpieza-ms:60000}")
+    public void limpiar() {
+        porIp.limpiar();
+        porEmail.limpiar();
+    }
+
+    /**
+     * Solicitud cuyo body ya se leyó: lo entrega de nuevo desde memoria
+     */
+    private static final class CuerpoReleible extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        CuerpoReleible(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // El cuerpo ya está en memoria: todo está disponible de inmediato
+                    try {
+                        if (entrada.available() > 0) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return cuerpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return cuerpo.length;
+        }
+    }
+}
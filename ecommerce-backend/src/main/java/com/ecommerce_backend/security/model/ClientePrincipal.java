@@ -6,7 +6,9 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Wrapper de Cliente que implementa UserDetails.
@@ -18,13 +20,44 @@ import java.util.List;
  * - Adaptar Cliente al sistema de seguridad de Spring
  * - Proveer username (email), password, roles
  * - Proveer flags de estado de cuenta
+ *
+ * Con un token JWT se construye solo desde sus claims (sin Cliente ni contraseña):
+ * ver JwtAuthenticationFilter.
  */
 public class ClientePrincipal implements UserDetails {
 
+    // Rol simple: todos los clientes tienen el mismo rol
+    public static final String ROL_CLIENTE = "ROLE_CLIENTE";
+
     private final Cliente cliente;
+    private final Long idCliente;
+    private final String email;
+    private final boolean activo;
+    private final Collection<? extends GrantedAuthority> authorities;
 
     public ClientePrincipal(Cliente cliente) {
         this.cliente = cliente;
+        this.idCliente = cliente.getIdCliente();
+        this.email = cliente.getEmail();
+        this.activo = cliente.isActivo();
+        this.authorities = List.of(new SimpleGrantedAuthority(ROL_CLIENTE));
+    }
+
+    private ClientePrincipal(Long idCliente, String email, boolean activo,
+                             Collection<? extends GrantedAuthority> authorities) {
+        this.cliente = null;
+        this.idCliente = idCliente;
+        this.email = email;
+        this.activo = activo;
+        this.authorities = authorities;
+    }
+
+    /**
+     * Principal armado desde los claims ya verificados de un token, sin consultar la BD
+     */
+    public static ClientePrincipal desdeClaims(Long idCliente, String email, boolean activo, Collection<String> roles) {
+        return new ClientePrincipal(idCliente, email, activo,
+                roles.stream().map(SimpleGrantedAuthority::new).toList());
     }
 
     /**
@@ -33,16 +66,24 @@ public class ClientePrincipal implements UserDetails {
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        // Rol simple: todos los clientes tienen el mismo rol
-        return List.of(new SimpleGrantedAuthority("ROLE_CLIENTE"));
+        return authorities;
+    }
+
+    /**
+     * Nombres de los roles, para incluirlos en el token
+     */
+    public Set<String> getRoles() {
+        Set<String> roles = new LinkedHashSet<>();
+        authorities.forEach(authority -> roles.add(authority.getAuthority()));
+        return roles;
     }
 
     /**
-     * Retorna la contraseña hasheada del usuario
+     * Retorna la contraseña hasheada del usuario (null si se construyó desde un token)
      */
     @Override
     public String getPassword() {
-        return cliente.getContrasenaHash();
+        return cliente != null ? cliente.getContrasenaHash() : null;
     }
 
     /**
@@ -50,7 +91,7 @@ public class ClientePrincipal implements UserDetails {
      */
     @Override
     public String getUsername() {
-        return cliente.getEmail();
+        return email;
     }
 
     /**
@@ -82,11 +123,11 @@ public class ClientePrincipal implements UserDetails {
      */
     @Override
     public boolean isEnabled() {
-        return cliente.isActivo();
+        return activo;
     }
 
     /**
-     * Getter para acceder al Cliente original
+     * Getter para acceder al Cliente original (null si se construyó desde un token)
      */
     public Cliente getCliente() {
         return cliente;
@@ -96,13 +137,13 @@ public class ClientePrincipal implements UserDetails {
      * Getter conveniente para el ID del cliente
      */
     public Long getClienteId() {
-        return cliente.getIdCliente();
+        return idCliente;
     }
 
     /**
      * Getter conveniente para el nombre completo
      */
     public String getNombreCompleto() {
-        return cliente.getNombreCompleto();
+        return cliente != null ? cliente.getNombreCompleto() : null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.ecommerce_backend.security.registro;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Emails ya registrados (normalizados a minúsculas) en un filtro de Bloom.
+ *
+ * - "No puede existir" evita la consulta a la base de datos antes de insertar: es el caso
+ *   de casi todos los registros nuevos
+ * - "Puede existir" se confirma con existsByEmailIgnoreCase
+ * - El índice único uq_clientes_email_lower (schema-postgresql.sql) rechaza igual un duplicado
+ *   que el filtro no alcanzó a ver (registros simultáneos, inserciones fuera de la aplicación)
+ * - Al iniciar informa los emails ya repetidos sin importar mayúsculas: mientras existan,
+ *   schema-postgresql.sql no puede crear ese índice único
+ * - Cada refresco-ms se reconstruye desde la base de datos: descarta los emails eliminados
+ *   o cambiados y vuelve a dimensionar el filtro
+ * - Un email se agrega antes de que su transacción confirme, así que la consulta del refresco
+ *   puede no verlo: los agregados desde el inicio del refresco anterior se vuelven a agregar
+ *   al filtro nuevo antes de publicarlo
+ */
+@Component
+@Slf4j
+public class EmailsRegistrados {
+
+    private static final String SQL_EMAILS = "SELECT lower(email) FROM clientes";
+    private static final String SQL_REPETIDOS = "SELECT lower(email), COUNT(*) FROM clientes " +
+            "GROUP BY lower(email) HAVING COUNT(*) > 1 ORDER BY lower(email)";
+    private static final int REPETIDOS_EN_LOG = 20;
+    private static final double FALSOS_POSITIVOS = 0.01;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Object monitor = new Object();
+    // Claves agregadas desde que empezó el último refresco: el siguiente las vuelve a agregar al filtro nuevo
+    private List<Long> agregados = new ArrayList<>();
+    private volatile FiltroBloom filtro;
+
+    public EmailsRegistrados(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * false si el email seguro no está registrado; true si hay que confirmarlo en la base de datos
+     */
+    public boolean puedeExistir(String email) {
+        FiltroBloom actual = filtro;
+        if (actual == null) {
+            refrescar();
+            actual = filtro;
+            if (actual == null) {
+                // Sin filtro se consulta siempre la base de datos
+                return true;
+            }
+        }
+        return actual.puedeContener(clave(email));
+    }
+
+    /**
+     * Agrega el email de un cliente que se está guardando. Se agrega antes del commit:
+     * si la transacción se revierte solo queda un falso positivo (una consulta de más)
+     */
+    public void agregar(String email) {
+        long clave = clave(email);
+        synchronized (monitor) {
+            agregados.add(clave);
+            FiltroBloom actual = filtro;
+            if (actual != null) {
+                actual.agregar(clave);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        refrescar();
+        informarRepetidos();
+    }
+
+    /**
+     * Registra en el log los emails repetidos sin importar mayúsculas (hay que unificar esos clientes)
+     */
+    private void informarRepetidos() {
+        try {
+            List<String> repetidos = jdbcTemplate.query(SQL_REPETIDOS,
+                    (rs, fila) -> rs.getString(1) + " (" + rs.getInt(2) + " clientes)");
+            if (!repetidos.isEmpty()) {
+                log.error("{} emails repetidos sin importar mayúsculas: el índice único uq_clientes_email_lower " +
+                                "no se puede crear hasta unificarlos. Primeros: {}", repetidos.size(),
+                        repetidos.subList(0, Math.min(REPETIDOS_EN_LOG, repetidos.size())));
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron revisar los emails repetidos: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${registro.emails.refresco-ms:3600000}",
+            initialDelayString = "${registro.emails.refresco-ms:3600000}")
+    public synchronized void refrescar() {
+        // Agregados antes de la consulta: su transacción puede confirmar después de que la consulta lea
+        List<Long> previos;
+        synchronized (monitor) {
+            previos = agregados;
+            agregados = new ArrayList<>();
+        }
+        try {
+            Integer cantidad = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clientes", Integer.class);
+            FiltroBloom nuevo = new FiltroBloom(Math.max(1024, (cantidad == null ? 0 : cantidad) * 2),
+                    FALSOS_POSITIVOS);
+            AtomicInteger cargados = new AtomicInteger();
+            jdbcTemplate.query(SQL_EMAILS, rs -> {
+                nuevo.agregar(clave(rs.getString(1)));
+                cargados.incrementAndGet();
+            });
+            synchronized (monitor) {
+                previos.forEach(nuevo::agregar);
+                agregados.forEach(nuevo::agregar);
+                filtro = nuevo;
+            }
+            log.debug("Filtro de emails registrados cargado: {} emails", cargados.get());
+        } catch (DataAccessException e) {
+            // Se mantiene el filtro anterior hasta el próximo refresco, que vuelve a agregar los previos
+            synchronized (monitor) {
+                previos.addAll(agregados);
+                agregados = previos;
+            }
+            log.warn("No se pudo cargar el filtro de emails registrados: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits del email normalizado (FiltroBloom trabaja sobre claves long)
+     */
+    static long clave(String email) {
+        byte[] bytes = email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        long h = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce_backend.security.registro;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre claves long: "no está" es seguro, "puede estar" hay que confirmarlo.
+ *
+ * Los k bits de cada clave salen de un hash de 64 bits partido en dos mitades
+ * (h1 + i * h2). Las palabras son atómicas: agregar y consultar desde varios hilos
+ * nunca pierde bits, así que no hay falsos negativos.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray palabras;
+    private final long cantidadBits;
+    private final int funciones;
+
+    /**
+     * @param elementosEsperados  cantidad de claves para la que se dimensiona
+     * @param falsosPositivos     tasa de falsos positivos buscada con esa cantidad (ej: 0.01)
+     */
+    public FiltroBloom(int elementosEsperados, double falsosPositivos) {
+        int elementos = Math.max(1, elementosEsperados);
+        long bits = (long) Math.ceil(-elementos * Math.log(falsosPositivos) / (Math.log(2) * Math.log(2)));
+        this.palabras = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+        this.cantidadBits = (long) palabras.length() << 6;
+        this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / elementos * Math.log(2)));
+    }
+
+    public void agregar(long clave) {
+        long h = mezclar(clave);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % cantidadBits;
+            long mascara = 1L << bit;
+            int indice = (int) (bit >>> 6);
+            if ((palabras.get(indice) & mascara) == 0) {
+                palabras.getAndAccumulate(indice, mascara, (actual, m) -> actual | m);
+            }
+        }
+    }
+
+    public boolean puedeContener(long clave) {
+        long h = mezclar(clave);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % cantidadBits;
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finalizador de SplitMix64: reparte bien claves consecutivas (IDs) en los 64 bits
+     */
+    private static long mezclar(long clave) {
+        long z = clave + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
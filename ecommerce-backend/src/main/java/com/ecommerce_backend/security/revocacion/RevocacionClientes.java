@@ -0,0 +1,123 @@
+package com.ecommerce_backend.security.revocacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clientes activos cuyos tokens se aceptan sin consultar la base de datos.
+ *
+ * - Lista de permitidos construida desde la base de datos (activo = true): un cliente
+ *   eliminado o desactivado no está, tampoco después de reiniciar la aplicación
+ * - Un cliente que no está en la lista no se rechaza: se verifica contra la base de datos
+ *   (registrado en otra instancia, o antes del próximo refresco)
+ * - Las eliminaciones de la aplicación se aplican tras el commit; las desactivaciones hechas
+ *   fuera de la aplicación (la API no desactiva clientes), en el próximo refresco
+ */
+@Component
+@Slf4j
+public class RevocacionClientes {
+
+    private static final String SQL_ACTIVOS = "SELECT id_cliente FROM clientes WHERE activo = true ORDER BY id_cliente";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // IDs activos según el último refresco, ordenados (búsqueda binaria, 8 bytes por cliente)
+    private volatile long[] activos;
+    // Registrados por esta instancia, con la secuencia en que se registraron
+    private final Map<Long, Long> agregados = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    // Eliminados por esta instancia que el último refresco todavía puede contener
+    private final Set<Long> revocados = ConcurrentHashMap.newKeySet();
+
+    public RevocacionClientes(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * true si el cliente está activo según la memoria; false si hay que verificarlo en la base de datos
+     */
+    public boolean estaConfirmadoActivo(long idCliente) {
+        long[] actuales = activos;
+        if (actuales == null) {
+            refrescar();
+            actuales = activos;
+            if (actuales == null) {
+                return false;
+            }
+        }
+        if (revocados.contains(idCliente)) {
+            return false;
+        }
+        return Arrays.binarySearch(actuales, idCliente) >= 0 || agregados.containsKey(idCliente);
+    }
+
+    /**
+     * Agrega un cliente nuevo cuando la transacción confirma
+     */
+    public void registrarTrasCommit(Long idCliente) {
+        trasCommit(() -> agregados.put(idCliente, secuencia.incrementAndGet()));
+    }
+
+    /**
+     * Revoca los tokens de un cliente eliminado o desactivado cuando la transacción confirma
+     */
+    public void revocarTrasCommit(Long idCliente) {
+        trasCommit(() -> {
+            revocados.add(idCliente);
+            agregados.remove(idCliente);
+        });
+    }
+
+    private void trasCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        refrescar();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocacion.refresco-ms:60000}",
+            initialDelayString = "${jwt.revocacion.refresco-ms:60000}")
+    public synchronized void refrescar() {
+        // Los registrados antes de la consulta quedan en la lista nueva, salvo que ya no estén activos
+        long inicio = secuencia.get();
+        try {
+            List<Long> ids = jdbcTemplate.queryForList(SQL_ACTIVOS, Long.class);
+            long[] nuevos = ids.stream().mapToLong(Long::longValue).toArray();
+            activos = nuevos;
+            agregados.values().removeIf(registrado -> registrado <= inicio);
+            // Un revocado que la lista nueva no contiene ya no hace falta recordarlo; si la contiene,
+            // la consulta pudo leer la fila antes de que su eliminación confirmara
+            revocados.removeIf(id -> Arrays.binarySearch(nuevos, id) < 0);
+            log.debug("Revocación de tokens refrescada: {} clientes activos, {} revocados pendientes",
+                    nuevos.length, revocados.size());
+        } catch (DataAccessException e) {
+            // Se mantiene la lista anterior hasta el próximo refresco
+            log.warn("No se pudo refrescar la revocación de tokens: {}", e.getMessage());
+        }
+    }
+}
@@ -7,14 +7,17 @@ import com.ecommerce_backend.security.dto.AuthRequest;
 import com.ecommerce_backend.security.dto.AuthResponse;
 import com.ecommerce_backend.security.dto.RegisterRequest;
 import com.ecommerce_backend.security.jwt.JwtService;
+import com.ecommerce_backend.security.model.ClientePrincipal;
+import com.ecommerce_backend.security.registro.EmailsRegistrados;
+import com.ecommerce_backend.security.revocacion.RevocacionClientes;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Servicio que maneja la lógica de negocio de autenticación.
@@ -31,6 +34,8 @@ public class AuthService {
     private final ClienteRepository clienteRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final EmailsRegistrados emailsRegistrados;
+    private final RevocacionClientes revocacionClientes;
 
     /**
      * Procesa el login de un cliente.
@@ -40,8 +45,10 @@ public class AuthService {
      * 2. Carga el cliente desde la BD
      * 3. Genera el token JWT
      * 4. Retorna respuesta con datos y token
+     *
+     * Sin transacción: cada consulta toma y libera su conexión, así no se retiene
+     * una conexión del pool mientras la verificación BCrypt espera en su cola.
      */
-    @Transactional(readOnly = true)
     public AuthResponse login(AuthRequest request) {
         try {
             // 1. Autenticar con Spring Security
@@ -65,7 +72,7 @@ public class AuthService {
         }
 
         // 4. Generar token JWT
-        String token = jwtService.generateToken(cliente.getEmail());
+        String token = jwtService.generateToken(new ClientePrincipal(cliente));
 
         // 5. Construir y retornar respuesta
         return new AuthResponse(
@@ -81,16 +88,19 @@ public class AuthService {
      * Registra un nuevo cliente.
      *
      * Flujo:
-     * 1. Validar que el email no esté registrado
+     * 1. Validar que el email no esté registrado (filtro en memoria; la BD solo si puede existir)
      * 2. Crear el cliente con contraseña hasheada
      * 3. Guardar en la BD
      * 4. Generar token JWT
      * 5. Retornar respuesta con datos y token
+     *
+     * Sin transacción propia: el hash se calcula antes de tomar una conexión y
+     * solo el insert (saveAndFlush) corre en una transacción.
      */
-    @Transactional
     public AuthResponse register(RegisterRequest request) {
         // 1. Validar que el email no esté registrado
-        if (clienteRepository.existsByEmailIgnoreCase(request.email())) {
+        if (emailsRegistrados.puedeExistir(request.email())
+                && clienteRepository.existsByEmailIgnoreCase(request.email())) {
             throw new BusinessException("El email ya está registrado");
         }
 
@@ -106,11 +116,19 @@ public class AuthService {
                 .activo(true)
                 .build();
 
-        // 3. Guardar en la BD
-        Cliente clienteGuardado = clienteRepository.save(nuevoCliente);
+        // 3. Guardar en la BD (un registro simultáneo con el mismo email lo rechaza el índice único)
+        emailsRegistrados.agregar(nuevoCliente.getEmail());
+        Cliente clienteGuardado;
+        try {
+            clienteGuardado = clienteRepository.saveAndFlush(nuevoCliente);
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("El email ya está registrado");
+        }
+        // Sus tokens se aceptan sin consultar la BD desde ya, sin esperar el próximo refresco
+        revocacionClientes.registrarTrasCommit(clienteGuardado.getIdCliente());
 
         // 4. Generar token JWT
-        String token = jwtService.generateToken(clienteGuardado.getEmail());
+        String token = jwtService.generateToken(new ClientePrincipal(clienteGuardado));
 
         // 5. Construir y retornar respuesta
         return new AuthResponse(
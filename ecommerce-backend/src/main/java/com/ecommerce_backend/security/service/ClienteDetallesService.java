@@ -5,9 +5,12 @@ import com.ecommerce_backend.repository.ClienteRepository;
 import com.ecommerce_backend.security.model.ClientePrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Implementación de UserDetailsService para Spring Security.
@@ -18,10 +21,11 @@ import org.springframework.stereotype.Service;
  * - Cargar datos del usuario desde el token JWT
  *
  * El método loadUserByUsername es llamado internamente por Spring Security.
+ * updatePassword lo llama tras un login correcto si el hash usa otro costo de BCrypt.
  */
 @Service
 @RequiredArgsConstructor
-public class ClienteDetallesService implements UserDetailsService {
+public class ClienteDetallesService implements UserDetailsService, UserDetailsPasswordService {
 
     private final ClienteRepository clienteRepository;
 
@@ -51,4 +55,20 @@ public class ClienteDetallesService implements UserDetailsService {
         // Retornar el wrapper que implementa UserDetails
         return new ClientePrincipal(cliente);
     }
-}
\ No newline at end of file
+
+    /**
+     * Guarda el hash regenerado con el costo configurado.
+     *
+     * En su propia transacción: el login corre sin transacción.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Cliente cliente = clienteRepository.findByEmailIgnoreCase(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        "Cliente no encontrado con email: " + user.getUsername()
+                ));
+        cliente.setContrasenaHash(newPassword);
+        return new ClientePrincipal(cliente);
+    }
+}
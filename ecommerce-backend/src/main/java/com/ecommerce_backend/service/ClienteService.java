@@ -2,14 +2,14 @@ package com.ecommerce_backend.service;
 
 import com.ecommerce_backend.dto.ClienteRequestDTO;
 import com.ecommerce_backend.dto.ClienteResponseDTO;
-import java.util.List;
+import com.ecommerce_backend.dto.PaginaDTO;
 
 public interface ClienteService {
     ClienteResponseDTO crearCliente(ClienteRequestDTO dto);
     ClienteResponseDTO obtenerClientePorId(Long id);
-    List<ClienteResponseDTO> obtenerTodosLosClientes();
+    PaginaDTO<ClienteResponseDTO> obtenerTodosLosClientes(String cursor, int limite);
     ClienteResponseDTO obtenerClientePorEmail(String email);
     ClienteResponseDTO actualizarCliente(Long id, ClienteRequestDTO dto);
     void eliminarCliente(Long id);
-    List<ClienteResponseDTO> buscarClientesPorNombre(String nombre);
+    PaginaDTO<ClienteResponseDTO> buscarClientesPorNombre(String nombre, String cursor, int limite);
 }
\ No newline at end of file
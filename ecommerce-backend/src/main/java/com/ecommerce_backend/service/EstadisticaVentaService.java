@@ -0,0 +1,12 @@
+package com.ecommerce_backend.service;
+
+import com.ecommerce_backend.dto.EstadisticaEstadoVentaDTO;
+import com.ecommerce_backend.model.EstadoVenta;
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface EstadisticaVentaService {
+    void registrarTransicion(EstadoVenta desde, EstadoVenta hacia, long cantidad, BigDecimal total);
+    List<EstadisticaEstadoVentaDTO> obtenerEstadisticas();
+    long contarPorEstado(EstadoVenta estado);
+}
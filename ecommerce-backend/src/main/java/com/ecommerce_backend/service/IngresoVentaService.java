@@ -0,0 +1,9 @@
+package com.ecommerce_backend.service;
+
+import com.ecommerce_backend.dto.TicketVentaDTO;
+import com.ecommerce_backend.dto.VentaRequestDTO;
+
+public interface IngresoVentaService {
+    TicketVentaDTO encolarVenta(VentaRequestDTO dto);
+    TicketVentaDTO consultarTicket(String ticket);
+}
@@ -1,16 +1,23 @@
 package com.ecommerce_backend.service;
 
+import com.ecommerce_backend.dto.CatalogoFacetadoDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
 import com.ecommerce_backend.dto.ProductoRequestDTO;
 import com.ecommerce_backend.dto.ProductoResponseDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import com.ecommerce_backend.facetas.FiltroFacetas;
+
 import java.util.List;
 
 public interface ProductoService {
     ProductoResponseDTO crearProducto(ProductoRequestDTO dto);
     ProductoResponseDTO obtenerProductoPorId(Long id);
-    List<ProductoResponseDTO> obtenerTodosLosProductos();
-    List<ProductoResponseDTO> obtenerProductosPorCategoria(String categoria);
-    List<ProductoResponseDTO> obtenerProductosDisponibles();
-    List<ProductoResponseDTO> buscarProductosPorNombre(String nombre);
+    PaginaDTO<ProductoResumenDTO> obtenerTodosLosProductos(String cursor, int limite);
+    PaginaDTO<ProductoResumenDTO> obtenerProductosPorCategoria(String categoria, String cursor, int limite);
+    PaginaDTO<ProductoResumenDTO> obtenerProductosDisponibles(String cursor, int limite);
+    PaginaDTO<ProductoResumenDTO> buscarProductosPorNombre(String nombre, String cursor, int limite);
+    CatalogoFacetadoDTO consultarCatalogoFacetado(FiltroFacetas filtro, String cursor, int limite);
+    List<ProductoResumenDTO> obtenerProductosRelacionados(Long id, int limite);
     ProductoResponseDTO actualizarProducto(Long id, ProductoRequestDTO dto);
     void eliminarProducto(Long id);
     void actualizarStock(Long idProducto, Integer cantidad);
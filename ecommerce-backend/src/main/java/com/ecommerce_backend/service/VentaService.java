@@ -1,17 +1,22 @@
 package com.ecommerce_backend.service;
 
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.dto.ResultadoVentaDTO;
 import com.ecommerce_backend.dto.VentaRequestDTO;
 import com.ecommerce_backend.dto.VentaResponseDTO;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface VentaService {
     VentaResponseDTO procesarVenta(VentaRequestDTO dto);
+    List<ResultadoVentaDTO> procesarVentasEnLote(List<VentaRequestDTO> dtos);
     VentaResponseDTO obtenerVentaPorId(Long id);
-    List<VentaResponseDTO> obtenerTodasLasVentas();
-    List<VentaResponseDTO> obtenerVentasPorCliente(Long idCliente);
-    List<VentaResponseDTO> obtenerVentasPorEstado(String estado);
+    PaginaDTO<VentaResponseDTO> obtenerTodasLasVentas(String cursor, int limite);
+    PaginaDTO<VentaResponseDTO> obtenerVentasPorCliente(Long idCliente, String cursor, int limite);
+    PaginaDTO<VentaResponseDTO> obtenerVentasPorEstado(String estado, String cursor, int limite);
     VentaResponseDTO actualizarEstadoVenta(Long idVenta, String nuevoEstado);
     void cancelarVenta(Long idVenta);
+    int expirarVentasPendientes(LocalDateTime limite, int tamanoChunk);
     BigDecimal calcularTotalVentasCliente(Long idCliente);
 }
@@ -2,14 +2,19 @@ package com.ecommerce_backend.service.impl;
 
 import com.ecommerce_backend.dto.ClienteRequestDTO;
 import com.ecommerce_backend.dto.ClienteResponseDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
 import com.ecommerce_backend.exception.DuplicateResourceException;
 import com.ecommerce_backend.exception.ResourceNotFoundException;
 import com.ecommerce_backend.mapper.ClienteMapper;
 import com.ecommerce_backend.model.Cliente;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
 import com.ecommerce_backend.repository.ClienteRepository;
+import com.ecommerce_backend.security.registro.EmailsRegistrados;
+import com.ecommerce_backend.security.revocacion.RevocacionClientes;
 import com.ecommerce_backend.service.ClienteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,18 +28,27 @@ public class ClienteServiceImpl implements ClienteService {
 
     private final ClienteRepository clienteRepository;
     private final ClienteMapper clienteMapper;
+    private final RevocacionClientes revocacionClientes;
+    private final EmailsRegistrados emailsRegistrados;
 
     @Override
     public ClienteResponseDTO crearCliente(ClienteRequestDTO dto) {
         log.info("Creando nuevo cliente con email: {}", dto.getEmail());
 
-        if (clienteRepository.existsByEmail(dto.getEmail())) {
+        if (emailOcupado(dto.getEmail())) {
             throw new DuplicateResourceException("Ya existe un cliente con el email: " + dto.getEmail());
         }
 
         Cliente cliente = clienteMapper.toEntity(dto);
-        Cliente clienteGuardado = clienteRepository.save(cliente);
+        emailsRegistrados.agregar(cliente.getEmail());
+        Cliente clienteGuardado;
+        try {
+            clienteGuardado = clienteRepository.saveAndFlush(cliente);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResourceException("Ya existe un cliente con el email: " + dto.getEmail());
+        }
 
+        revocacionClientes.registrarTrasCommit(clienteGuardado.getIdCliente());
         log.info("Cliente creado exitosamente con ID: {}", clienteGuardado.getIdCliente());
         return clienteMapper.toResponseDTO(clienteGuardado);
     }
@@ -49,9 +63,11 @@ public class ClienteServiceImpl implements ClienteService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClienteResponseDTO> obtenerTodosLosClientes() {
-        List<Cliente> clientes = clienteRepository.findAll();
-        return clienteMapper.toResponseDTOList(clientes);
+    public PaginaDTO<ClienteResponseDTO> obtenerTodosLosClientes(String cursor, int limite) {
+        List<Cliente> clientes = clienteRepository.findPagina(
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return CursorPaginacion.construirPagina(clientes, limite, Cliente::getIdCliente,
+                clienteMapper::toResponseDTOList);
     }
 
     @Override
@@ -69,12 +85,21 @@ public class ClienteServiceImpl implements ClienteService {
         Cliente cliente = clienteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con ID: " + id));
 
-        if (!cliente.getEmail().equals(dto.getEmail()) && clienteRepository.existsByEmail(dto.getEmail())) {
+        boolean cambiaEmail = !cliente.getEmail().equalsIgnoreCase(dto.getEmail());
+        if (cambiaEmail && emailOcupado(dto.getEmail())) {
             throw new DuplicateResourceException("El email ya está en uso por otro cliente");
         }
 
         clienteMapper.updateEntityFromDTO(cliente, dto);
-        Cliente clienteActualizado = clienteRepository.save(cliente);
+        if (cambiaEmail) {
+            emailsRegistrados.agregar(cliente.getEmail());
+        }
+        Cliente clienteActualizado;
+        try {
+            clienteActualizado = clienteRepository.saveAndFlush(cliente);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResourceException("El email ya está en uso por otro cliente");
+        }
 
         return clienteMapper.toResponseDTO(clienteActualizado);
     }
@@ -88,12 +113,23 @@ public class ClienteServiceImpl implements ClienteService {
         }
 
         clienteRepository.deleteById(id);
+        // Sus tokens dejan de aceptarse aunque no hayan expirado
+        revocacionClientes.revocarTrasCommit(id);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClienteResponseDTO> buscarClientesPorNombre(String nombre) {
-        List<Cliente> clientes = clienteRepository.findByNombreContainingIgnoreCase(nombre);
-        return clienteMapper.toResponseDTOList(clientes);
+    public PaginaDTO<ClienteResponseDTO> buscarClientesPorNombre(String nombre, String cursor, int limite) {
+        List<Cliente> clientes = clienteRepository.findPaginaPorNombre(nombre,
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return CursorPaginacion.construirPagina(clientes, limite, Cliente::getIdCliente,
+                clienteMapper::toResponseDTOList);
+    }
+
+    /**
+     * El filtro en memoria descarta casi todos los emails libres; solo un "puede existir" consulta la BD
+     */
+    private boolean emailOcupado(String email) {
+        return emailsRegistrados.puedeExistir(email) && clienteRepository.existsByEmailIgnoreCase(email);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.ecommerce_backend.service.impl;
+
+import com.ecommerce_backend.dto.EstadisticaEstadoVentaDTO;
+import com.ecommerce_backend.model.EstadisticaEstadoVenta;
+import com.ecommerce_backend.model.EstadoVenta;
+import com.ecommerce_backend.repository.EstadisticaEstadoVentaRepository;
+import com.ecommerce_backend.service.EstadisticaVentaService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class EstadisticaVentaServiceImpl implements EstadisticaVentaService {
+
+    // Filas por estado: reparte la contención de los checkouts concurrentes
+    static final int SLOTS = 16;
+
+    private final EstadisticaEstadoVentaRepository estadisticaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Crea las filas que falten. Si la tabla estaba vacía, carga los totales
+     * actuales desde ventas (una sola vez, al desplegar esta versión).
+     *
+     * Corre al crear el bean, antes de que el servidor web acepte solicitudes: ninguna venta
+     * puede registrar una transición sobre una fila que todavía no existe.
+     */
+    @PostConstruct
+    public void inicializarContadores() {
+        transactionTemplate.executeWithoutResult(status -> crearFilasFaltantes());
+    }
+
+    private void crearFilasFaltantes() {
+        boolean tablaVacia = estadisticaRepository.count() == 0;
+
+        Map<EstadoVenta, EstadisticaEstadoVenta> iniciales = new EnumMap<>(EstadoVenta.class);
+        if (tablaVacia) {
+            jdbcTemplate.query("SELECT estado, COUNT(*), COALESCE(SUM(total), 0) FROM ventas GROUP BY estado", rs -> {
+                EstadoVenta estado = EstadoVenta.desdeTexto(rs.getString(1));
+                if (estado == null) {
+                    log.warn("Ventas con estado desconocido '{}' no se incluyen en las estadísticas", rs.getString(1));
+                    return;
+                }
+                iniciales.put(estado, new EstadisticaEstadoVenta(estado, 0, rs.getLong(2), rs.getBigDecimal(3)));
+            });
+        }
+
+        List<EstadisticaEstadoVenta> nuevas = new ArrayList<>();
+        for (EstadoVenta estado : EstadoVenta.values()) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                EstadisticaEstadoVenta.Clave clave = new EstadisticaEstadoVenta.Clave(estado, slot);
+                if (tablaVacia || !estadisticaRepository.existsById(clave)) {
+                    EstadisticaEstadoVenta inicial = slot == 0 ? iniciales.get(estado) : null;
+                    nuevas.add(inicial != null ? inicial
+                            : new EstadisticaEstadoVenta(estado, slot, 0L, BigDecimal.ZERO));
+                }
+            }
+        }
+
+        if (!nuevas.isEmpty()) {
+            estadisticaRepository.saveAll(nuevas);
+            log.info("Estadísticas por estado de venta inicializadas ({} filas)", nuevas.size());
+        }
+    }
+
+    /**
+     * Mueve ventas de un estado a otro en los contadores.
+     * Debe ejecutarse dentro de la transacción que hace el cambio de estado: si falta una fila
+     * se lanza IllegalStateException y el cambio se revierte, en lugar de perder la transición.
+     *
+     * @param desde estado anterior, o null si las ventas son nuevas
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarTransicion(EstadoVenta desde, EstadoVenta hacia, long cantidad, BigDecimal total) {
+        if (cantidad == 0) {
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(SLOTS);
+        if (desde != null) {
+            verificarFila(estadisticaRepository.incrementar(desde, slot, -cantidad, total.negate()), desde, slot);
+        }
+        verificarFila(estadisticaRepository.incrementar(hacia, slot, cantidad, total), hacia, slot);
+    }
+
+    private static void verificarFila(int actualizadas, EstadoVenta estado, int slot) {
+        if (actualizadas == 0) {
+            throw new IllegalStateException("No existe la fila de estadísticas del estado " + estado + ", slot " + slot);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EstadisticaEstadoVentaDTO> obtenerEstadisticas() {
+        return estadisticaRepository.resumirPorEstado().stream()
+                .map(resumen -> EstadisticaEstadoVentaDTO.builder()
+                        .estado(resumen.getEstado().name())
+                        .cantidad(resumen.getCantidad())
+                        .ingresos(resumen.getIngresos())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long contarPorEstado(EstadoVenta estado) {
+        return estadisticaRepository.contarPorEstado(estado);
+    }
+}
@@ -0,0 +1,246 @@
+package com.ecommerce_backend.service.impl;
+
+import com.ecommerce_backend.dto.ResultadoVentaDTO;
+import com.ecommerce_backend.dto.TicketVentaDTO;
+import com.ecommerce_backend.dto.VentaRequestDTO;
+import com.ecommerce_backend.exception.ResourceNotFoundException;
+import com.ecommerce_backend.exception.ServicioSaturadoException;
+import com.ecommerce_backend.service.IngresoVentaService;
+import com.ecommerce_backend.service.VentaService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingreso asíncrono de ventas con group commit.
+ *
+ * POST /api/ventas con "Prefer: respond-async" valida y encola la venta, y responde
+ * 202 con un ticket. Los trabajadores drenan la cola y procesan hasta lote-maximo
+ * ventas por transacción con VentaService.procesarVentasEnLote.
+ *
+ * La cola es acotada: si está llena la venta se rechaza con 503 (backpressure)
+ * en vez de acumular hilos y conexiones esperando.
+ *
+ * Si el lote falla antes de confirmar, cada venta se reintenta en su propia transacción;
+ * si falla después del commit (o no se sabe si confirmó), sus tickets pasan a ERROR:
+ * reintentarlas duplicaría las ventas y el descuento de stock.
+ *
+ * Los trabajadores son daemon: si no terminan de drenar la cola dentro del tiempo de
+ * detenerTrabajadores, no impiden que la JVM se cierre.
+ */
+@Service
+@ConditionalOnProperty(prefix = "ventas.ingreso-asincrono", name = "habilitado", havingValue = "true")
+@Slf4j
+public class IngresoVentaServiceImpl implements IngresoVentaService {
+
+    private final VentaService ventaService;
+    private final TransactionTemplate transactionTemplate;
+    private final int loteMaximo;
+    private final int trabajadores;
+    private final long retencionTicketsMin;
+    private final BlockingQueue<VentaEncolada> cola;
+    private final Map<String, TicketVentaDTO> tickets = new ConcurrentHashMap<>();
+    private final List<Thread> hilos = new ArrayList<>();
+    private volatile boolean activo = true;
+
+    public IngresoVentaServiceImpl(
+            VentaService ventaService,
+            TransactionTemplate transactionTemplate,
+            @Value("${ventas.ingreso-asincrono.capacidad-cola:1000}") int capacidadCola,
+            @Value("${ventas.ingreso-asincrono.lote-maximo:50}") int loteMaximo,
+            @Value("${ventas.ingreso-asincrono.trabajadores:2}") int trabajadores,
+            @Value("${ventas.ingreso-asincrono.retencion-tickets-min:10}") long retencionTicketsMin) {
+        this.ventaService = ventaService;
+        this.transactionTemplate = transactionTemplate;
+        this.loteMaximo = loteMaximo;
+        this.trabajadores = trabajadores;
+        this.retencionTicketsMin = retencionTicketsMin;
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+    }
+
+    private record VentaEncolada(String ticket, VentaRequestDTO dto) {}
+
+    @PostConstruct
+    public void iniciarTrabajadores() {
+        for (int i = 0; i < trabajadores; i++) {
+            Thread hilo = new Thread(this::procesarCola, "ingreso-ventas-" + i);
+            hilo.setDaemon(true);
+            hilo.start();
+            hilos.add(hilo);
+        }
+        log.info("Ingreso asíncrono de ventas iniciado con {} trabajadores", trabajadores);
+    }
+
+    @PreDestroy
+    public void detenerTrabajadores() throws InterruptedException {
+        // Los trabajadores terminan de drenar la cola antes de salir
+        activo = false;
+        for (Thread hilo : hilos) {
+            hilo.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    @Override
+    public TicketVentaDTO encolarVenta(VentaRequestDTO dto) {
+        String ticket = UUID.randomUUID().toString();
+        TicketVentaDTO ticketVenta = TicketVentaDTO.builder()
+                .ticket(ticket)
+                .estado("EN_COLA")
+                .creadoEn(LocalDateTime.now())
+                .build();
+
+        tickets.put(ticket, ticketVenta);
+        if (!activo || !cola.offer(new VentaEncolada(ticket, dto))) {
+            tickets.remove(ticket);
+            throw new ServicioSaturadoException("La cola de ventas está llena, intente nuevamente en unos segundos");
+        }
+
+        log.debug("Venta encolada con ticket {} (en cola: {})", ticket, cola.size());
+        return ticketVenta;
+    }
+
+    @Override
+    public TicketVentaDTO consultarTicket(String ticket) {
+        TicketVentaDTO ticketVenta = tickets.get(ticket);
+        if (ticketVenta == null) {
+            throw new ResourceNotFoundException("Ticket no encontrado o expirado: " + ticket);
+        }
+        return ticketVenta;
+    }
+
+    /**
+     * Elimina los tickets que superaron el tiempo de retención: los resueltos desde que se
+     * completaron y los que nunca se resolvieron desde que se crearon
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void limpiarTicketsExpirados() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(retencionTicketsMin);
+        tickets.values().removeIf(t -> (t.getCompletadoEn() != null ? t.getCompletadoEn() : t.getCreadoEn())
+                .isBefore(limite));
+    }
+
+    // ============================================================
+    // TRABAJADORES
+    // ============================================================
+
+    private void procesarCola() {
+        List<VentaEncolada> lote = new ArrayList<>(loteMaximo);
+
+        while (activo || !cola.isEmpty()) {
+            try {
+                VentaEncolada primera = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                cola.drainTo(lote, loteMaximo - 1);
+                procesarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el ingreso asíncrono de ventas", e);
+                fallarTicketsPendientes(lote, e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void procesarLote(List<VentaEncolada> lote) {
+        List<VentaRequestDTO> dtos = lote.stream().map(VentaEncolada::dto).toList();
+
+        // Cómo terminó la transacción del lote; si nunca empezó, no hay nada que revertir
+        AtomicInteger finalizacion = new AtomicInteger(TransactionSynchronization.STATUS_ROLLED_BACK);
+        List<ResultadoVentaDTO> resultados;
+        try {
+            resultados = transactionTemplate.execute(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int estado) {
+                        finalizacion.set(estado);
+                    }
+                });
+                return ventaService.procesarVentasEnLote(dtos);
+            });
+        } catch (RuntimeException e) {
+            if (finalizacion.get() != TransactionSynchronization.STATUS_ROLLED_BACK) {
+                // Las ventas pueden estar confirmadas (falló algo tras el commit): no se reprocesan
+                log.error("Falló el lote de {} ventas sin que se revirtiera; sus tickets quedan en ERROR",
+                        lote.size(), e);
+                fallarTicketsPendientes(lote, e);
+                return;
+            }
+            // El lote completo se revirtió: procesar cada venta en su propia transacción
+            log.warn("Falló el lote de {} ventas, se procesarán individualmente: {}", lote.size(), e.getMessage());
+            resultados = procesarIndividualmente(dtos);
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            completarTicket(lote.get(i).ticket(), resultados.get(i));
+        }
+    }
+
+    private List<ResultadoVentaDTO> procesarIndividualmente(List<VentaRequestDTO> dtos) {
+        List<ResultadoVentaDTO> resultados = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            try {
+                resultados.add(ResultadoVentaDTO.builder()
+                        .indice(i)
+                        .exitosa(true)
+                        .venta(ventaService.procesarVenta(dtos.get(i)))
+                        .build());
+            } catch (RuntimeException e) {
+                resultados.add(ResultadoVentaDTO.builder().indice(i).exitosa(false).error(e.getMessage()).build());
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Los tickets del lote que quedaron EN_COLA pasan a ERROR: el lote falló después de
+     * sacarlos de la cola (o después de confirmar) y nadie más los va a completar
+     */
+    private void fallarTicketsPendientes(List<VentaEncolada> lote, RuntimeException error) {
+        for (VentaEncolada encolada : lote) {
+            tickets.computeIfPresent(encolada.ticket(), (id, ticketVenta) -> !"EN_COLA".equals(ticketVenta.getEstado())
+                    ? ticketVenta
+                    : TicketVentaDTO.builder()
+                            .ticket(id)
+                            .estado("ERROR")
+                            .error("No se pudo confirmar el resultado de la venta: " + error.getMessage())
+                            .creadoEn(ticketVenta.getCreadoEn())
+                            .completadoEn(LocalDateTime.now())
+                            .build());
+        }
+    }
+
+    private void completarTicket(String ticket, ResultadoVentaDTO resultado) {
+        tickets.computeIfPresent(ticket, (id, ticketVenta) -> TicketVentaDTO.builder()
+                .ticket(id)
+                .estado(resultado.getExitosa() ? "PROCESADA" : "RECHAZADA")
+                .venta(resultado.getVenta())
+                .error(resultado.getError())
+                .creadoEn(ticketVenta.getCreadoEn())
+                .completadoEn(LocalDateTime.now())
+                .build());
+    }
+}
@@ -1,19 +1,42 @@
 package com.ecommerce_backend.service.impl;
 
+import com.ecommerce_backend.busqueda.BuscadorProductos;
+import com.ecommerce_backend.cache.CacheCatalogo;
+import com.ecommerce_backend.dto.CatalogoFacetadoDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
 import com.ecommerce_backend.dto.ProductoRequestDTO;
 import com.ecommerce_backend.dto.ProductoResponseDTO;
+import com.ecommerce_backend.dto.ProductoResumenDTO;
+import com.ecommerce_backend.dto.RangoPrecioDTO;
 import com.ecommerce_backend.exception.BusinessException;
 import com.ecommerce_backend.exception.ResourceNotFoundException;
+import com.ecommerce_backend.facetas.FiltroFacetas;
+import com.ecommerce_backend.facetas.IndiceFacetas;
+import com.ecommerce_backend.facetas.ResultadoFacetas;
+import com.ecommerce_backend.imagen.AlmacenImagenes;
+import com.ecommerce_backend.inventario.InventarioEnMemoria;
 import com.ecommerce_backend.mapper.ProductoMapper;
 import com.ecommerce_backend.model.Producto;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
+import com.ecommerce_backend.recomendacion.MatrizCompras;
 import com.ecommerce_backend.repository.ProductoRepository;
 import com.ecommerce_backend.service.ProductoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -23,54 +46,179 @@ public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoRepository productoRepository;
     private final ProductoMapper productoMapper;
+    private final Optional<InventarioEnMemoria> inventarioEnMemoria;
+    private final CacheCatalogo cacheCatalogo;
+    private final AlmacenImagenes almacenImagenes;
+    private final Optional<BuscadorProductos> buscadorProductos;
+    private final IndiceFacetas indiceFacetas;
+    private final MatrizCompras matrizCompras;
 
     @Override
     public ProductoResponseDTO crearProducto(ProductoRequestDTO dto) {
         log.info("Creando nuevo producto: {}", dto.getNombre());
 
         Producto producto = productoMapper.toEntity(dto);
+        producto.setImagen(almacenImagenes.normalizar(dto.getImagen()));
         Producto productoGuardado = productoRepository.save(producto);
+        inventarioEnMemoria.ifPresent(inventario ->
+                inventario.establecerTrasCommit(productoGuardado.getIdProducto(), productoGuardado.getStock()));
+        cacheCatalogo.invalidarTrasCommit(productoGuardado.getIdProducto());
+        indiceFacetas.marcarTrasCommit(productoGuardado.getIdProducto());
+        buscadorProductos.ifPresent(buscador -> buscador.indexarTrasCommit(productoGuardado));
 
         return productoMapper.toResponseDTO(productoGuardado);
     }
 
+    // Las lecturas cacheadas usan SUPPORTS: un acierto no abre transacción ni toma una conexión
+
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductoResponseDTO obtenerProductoPorId(Long id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
-        return productoMapper.toResponseDTO(producto);
+        return cacheCatalogo.obtenerProducto(id, idProducto -> {
+            Producto producto = productoRepository.findById(idProducto)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + idProducto));
+            return productoMapper.toResponseDTO(producto);
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<ProductoResponseDTO> obtenerTodosLosProductos() {
-        List<Producto> productos = productoRepository.findAll();
-        return productoMapper.toResponseDTOList(productos);
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PaginaDTO<ProductoResumenDTO> obtenerTodosLosProductos(String cursor, int limite) {
+        long despuesDe = CursorPaginacion.decodificar(cursor);
+        return cacheCatalogo.obtenerPagina(null, despuesDe, limite, () -> paginaDeProductos(
+                productoRepository.findPagina(despuesDe, CursorPaginacion.limiteConsulta(limite)), limite));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public PaginaDTO<ProductoResumenDTO> obtenerProductosPorCategoria(String categoria, String cursor, int limite) {
+        long despuesDe = CursorPaginacion.decodificar(cursor);
+        return cacheCatalogo.obtenerPagina(categoria, despuesDe, limite, () -> paginaDeProductos(
+                productoRepository.findPaginaPorCategoria(categoria, despuesDe, CursorPaginacion.limiteConsulta(limite)),
+                limite));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoResponseDTO> obtenerProductosPorCategoria(String categoria) {
-        List<Producto> productos = productoRepository.findByCategoria(categoria);
-        return productoMapper.toResponseDTOList(productos);
+    public PaginaDTO<ProductoResumenDTO> obtenerProductosDisponibles(String cursor, int limite) {
+        List<ProductoRepository.ResumenProducto> productos = productoRepository.findPaginaDisponibles(
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return paginaDeProductos(productos, limite);
     }
 
+    /**
+     * Busca en nombre, categoría y descripción con el índice en memoria (resultados por relevancia,
+     * tolerando errores de tipeo). Mientras el índice se construye, usa LIKE sobre el nombre.
+     */
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoResponseDTO> obtenerProductosDisponibles() {
-        List<Producto> productos = productoRepository.findAll();
-        List<Producto> disponibles = productos.stream()
-                .filter(p -> p.getStock() > 0)
+    public PaginaDTO<ProductoResumenDTO> buscarProductosPorNombre(String nombre, String cursor, int limite) {
+        if (buscadorProductos.isPresent() && buscadorProductos.get().isListo()) {
+            return buscarEnIndice(buscadorProductos.get(), nombre, cursor, limite);
+        }
+
+        List<ProductoRepository.ResumenProducto> productos = productoRepository.findPaginaPorNombre(nombre,
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return paginaDeProductos(productos, limite);
+    }
+
+    private PaginaDTO<ProductoResumenDTO> buscarEnIndice(BuscadorProductos buscador, String consulta,
+                                                         String cursor, int limite) {
+        CursorPaginacion.limiteConsulta(limite);
+        int desde = CursorPaginacion.decodificarPosicion(cursor);
+
+        // Uno más que la página para saber si hay otra
+        List<Long> ranking = buscador.buscar(consulta, desde + limite + 1);
+        boolean hayMas = ranking.size() > desde + limite;
+        List<Long> ids = ranking.subList(Math.min(desde, ranking.size()), Math.min(desde + limite, ranking.size()));
+
+        Map<Long, ProductoRepository.ResumenProducto> porId = ids.isEmpty() ? Map.of()
+                : productoRepository.findResumenesByIds(ids).stream()
+                        .collect(Collectors.toMap(ProductoRepository.ResumenProducto::getIdProducto, Function.identity()));
+        List<ProductoRepository.ResumenProducto> productos = ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
                 .toList();
-        return productoMapper.toResponseDTOList(disponibles);
+
+        return PaginaDTO.<ProductoResumenDTO>builder()
+                .contenido(productoMapper.toResumenDTOList(productos))
+                .cantidad(productos.size())
+                .siguienteCursor(hayMas ? CursorPaginacion.codificarPosicion(desde + limite) : null)
+                .hayMas(hayMas)
+                .build();
+    }
+
+    private PaginaDTO<ProductoResumenDTO> paginaDeProductos(List<ProductoRepository.ResumenProducto> productos,
+                                                            int limite) {
+        return CursorPaginacion.construirPagina(productos, limite, ProductoRepository.ResumenProducto::getIdProducto,
+                productoMapper::toResumenDTOList);
     }
 
+    /**
+     * Filtra por categoría, rango de precio, estado de stock y disponibilidad con los
+     * índices de bits en memoria, y cuenta los productos de cada valor de faceta
+     */
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoResponseDTO> buscarProductosPorNombre(String nombre) {
-        List<Producto> productos = productoRepository.findByNombreContainingIgnoreCase(nombre);
-        return productoMapper.toResponseDTOList(productos);
+    public CatalogoFacetadoDTO consultarCatalogoFacetado(FiltroFacetas filtro, String cursor, int limite) {
+        CursorPaginacion.limiteConsulta(limite);
+        ResultadoFacetas resultado = indiceFacetas.consultar(filtro, CursorPaginacion.decodificar(cursor), limite);
+
+        List<ProductoRepository.ResumenProducto> productos = resultado.ids().isEmpty() ? List.of()
+                : productoRepository.findResumenesByIds(resultado.ids()).stream()
+                        .sorted(Comparator.comparing(ProductoRepository.ResumenProducto::getIdProducto))
+                        .toList();
+        PaginaDTO<ProductoResumenDTO> pagina = PaginaDTO.<ProductoResumenDTO>builder()
+                .contenido(productoMapper.toResumenDTOList(productos))
+                .cantidad(productos.size())
+                .siguienteCursor(resultado.hayMas()
+                        ? CursorPaginacion.codificar(resultado.ids().get(resultado.ids().size() - 1)) : null)
+                .hayMas(resultado.hayMas())
+                .build();
+
+        BigDecimal[] limites = indiceFacetas.limitesPrecio();
+        List<RangoPrecioDTO> rangosPrecio = new ArrayList<>();
+        for (int i = 0; i < resultado.rangosPrecio().length; i++) {
+            rangosPrecio.add(RangoPrecioDTO.builder()
+                    .desde(i == 0 ? null : limites[i - 1])
+                    .hasta(i == limites.length ? null : limites[i])
+                    .cantidad(resultado.rangosPrecio()[i])
+                    .build());
+        }
+
+        Map<String, Long> disponibilidad = new LinkedHashMap<>();
+        disponibilidad.put("disponible", resultado.disponibles());
+        disponibilidad.put("agotado", resultado.agotados());
+
+        return CatalogoFacetadoDTO.builder()
+                .productos(pagina)
+                .total(resultado.total())
+                .categorias(resultado.categorias())
+                .estadosStock(resultado.estadosStock())
+                .rangosPrecio(rangosPrecio)
+                .disponibilidad(disponibilidad)
+                .build();
+    }
+
+    /**
+     * Productos comprados con más frecuencia junto con el indicado, según la matriz
+     * de compras conjuntas en memoria
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoResumenDTO> obtenerProductosRelacionados(Long id, int limite) {
+        if (!productoRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Producto no encontrado con ID: " + id);
+        }
+
+        List<Long> ids = matrizCompras.relacionados(id, limite);
+        Map<Long, ProductoRepository.ResumenProducto> porId = ids.isEmpty() ? Map.of()
+                : productoRepository.findResumenesByIds(ids).stream()
+                        .collect(Collectors.toMap(ProductoRepository.ResumenProducto::getIdProducto, Function.identity()));
+        return productoMapper.toResumenDTOList(ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList());
     }
 
     @Override
@@ -81,7 +229,20 @@ public class ProductoServiceImpl implements ProductoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
 
         productoMapper.updateEntityFromDTO(producto, dto);
-        Producto productoActualizado = productoRepository.save(producto);
+        producto.setImagen(almacenImagenes.normalizar(dto.getImagen()));
+        productoRepository.save(producto);
+        productoRepository.incrementarVersion(id);
+
+        // Releer para devolver la versión y fecha de modificación nuevas
+        Producto productoActualizado = productoRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
+        if (dto.getStock() != null) {
+            inventarioEnMemoria.ifPresent(inventario ->
+                    inventario.establecerTrasCommit(id, productoActualizado.getStock()));
+        }
+        cacheCatalogo.invalidarTrasCommit(id);
+        indiceFacetas.marcarTrasCommit(id);
+        buscadorProductos.ifPresent(buscador -> buscador.indexarTrasCommit(productoActualizado));
 
         return productoMapper.toResponseDTO(productoActualizado);
     }
@@ -95,6 +256,10 @@ public class ProductoServiceImpl implements ProductoService {
         }
 
         productoRepository.deleteById(id);
+        inventarioEnMemoria.ifPresent(inventario -> inventario.eliminarTrasCommit(id));
+        cacheCatalogo.invalidarTrasCommit(id);
+        indiceFacetas.marcarTrasCommit(id);
+        buscadorProductos.ifPresent(buscador -> buscador.eliminarTrasCommit(id));
     }
 
     @Override
@@ -102,15 +267,19 @@ public class ProductoServiceImpl implements ProductoService {
         Producto producto = productoRepository.findById(idProducto)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + idProducto));
 
-        Integer nuevoStock = producto.getStock() + cantidad;
+        // Update atómico: no pisa descuentos concurrentes de ventas ni del flush de inventario
+        int filasAfectadas = cantidad >= 0
+                ? productoRepository.aumentarStock(idProducto, cantidad)
+                : productoRepository.reducirStock(idProducto, -cantidad);
 
-        if (nuevoStock < 0) {
+        if (filasAfectadas == 0) {
             throw new BusinessException("Stock insuficiente. Stock actual: " + producto.getStock());
         }
 
-        producto.setStock(nuevoStock);
-        productoRepository.save(producto);
+        inventarioEnMemoria.ifPresent(inventario -> inventario.ajustarTrasCommit(idProducto, cantidad));
+        cacheCatalogo.invalidarTrasCommit(idProducto);
+        indiceFacetas.marcarTrasCommit(idProducto);
 
-        log.info("Stock actualizado para producto ID {}: {} → {}", idProducto, producto.getStock() - cantidad, nuevoStock);
+        log.info("Stock actualizado para producto ID {}: {} → {}", idProducto, producto.getStock(), producto.getStock() + cantidad);
     }
 }
\ No newline at end of file
@@ -1,27 +1,50 @@
 package com.ecommerce_backend.service.impl;
 
+import com.ecommerce_backend.cache.CacheCatalogo;
 import com.ecommerce_backend.dto.DetalleVentaRequestDTO;
+import com.ecommerce_backend.dto.PaginaDTO;
+import com.ecommerce_backend.dto.ResultadoVentaDTO;
 import com.ecommerce_backend.dto.VentaRequestDTO;
 import com.ecommerce_backend.dto.VentaResponseDTO;
 import com.ecommerce_backend.exception.BusinessException;
 import com.ecommerce_backend.exception.ResourceNotFoundException;
+import com.ecommerce_backend.facetas.IndiceFacetas;
+import com.ecommerce_backend.inventario.InventarioEnMemoria;
 import com.ecommerce_backend.mapper.VentaMapper;
 import com.ecommerce_backend.model.Cliente;
 import com.ecommerce_backend.model.DetalleVenta;
+import com.ecommerce_backend.model.EstadoVenta;
 import com.ecommerce_backend.model.Producto;
 import com.ecommerce_backend.model.Venta;
+import com.ecommerce_backend.paginacion.CursorPaginacion;
+import com.ecommerce_backend.recomendacion.MatrizCompras;
 import com.ecommerce_backend.repository.ClienteRepository;
+import com.ecommerce_backend.repository.DetalleVentaRepository;
 import com.ecommerce_backend.repository.ProductoRepository;
 import com.ecommerce_backend.repository.VentaRepository;
+import com.ecommerce_backend.service.EstadisticaVentaService;
 import com.ecommerce_backend.service.VentaService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -32,7 +55,14 @@ public class VentaServiceImpl implements VentaService {
     private final VentaRepository ventaRepository;
     private final ClienteRepository clienteRepository;
     private final ProductoRepository productoRepository;
+    private final DetalleVentaRepository detalleVentaRepository;
     private final VentaMapper ventaMapper;
+    private final EstadisticaVentaService estadisticaVentaService;
+    private final Optional<InventarioEnMemoria> inventarioEnMemoria;
+    private final CacheCatalogo cacheCatalogo;
+    private final IndiceFacetas indiceFacetas;
+    private final MatrizCompras matrizCompras;
+    private final Validator validator;
 
     @Override
     public VentaResponseDTO procesarVenta(VentaRequestDTO dto) {
@@ -42,117 +72,412 @@ public class VentaServiceImpl implements VentaService {
         Cliente cliente = clienteRepository.findById(dto.getIdCliente())
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con ID: " + dto.getIdCliente()));
 
-        // 2. Crear la venta
+        // 2. Agrupar cantidades por producto (TreeMap: orden ascendente de IDs)
+        Map<Long, Integer> cantidadesPorProducto = agruparCantidades(dto);
+
+        // 3. Descontar stock: motor en memoria si está habilitado, si no updates condicionales
+        Map<Long, Producto> productos = inventarioEnMemoria.isPresent()
+                ? reservarStockEnMemoria(cantidadesPorProducto, inventarioEnMemoria.get())
+                : descontarStockEnBaseDeDatos(cantidadesPorProducto);
+        cacheCatalogo.invalidarTrasCommit(cantidadesPorProducto.keySet());
+        indiceFacetas.marcarTrasCommit(cantidadesPorProducto.keySet());
+
+        // 4. Crear y guardar la venta con sus detalles
+        Venta ventaGuardada = ventaRepository.save(construirVenta(cliente, dto, productos));
+        estadisticaVentaService.registrarTransicion(null, EstadoVenta.PENDIENTE, 1, ventaGuardada.getTotal());
+        matrizCompras.registrarTrasCommit(ventaGuardada.getIdVenta(), cantidadesPorProducto.keySet());
+
+        log.info("Venta procesada exitosamente. ID: {}, Total: ${}", ventaGuardada.getIdVenta(), ventaGuardada.getTotal());
+
+        return ventaMapper.toResponseDTO(ventaGuardada);
+    }
+
+    @Override
+    public List<ResultadoVentaDTO> procesarVentasEnLote(List<VentaRequestDTO> dtos) {
+        log.info("Procesando lote de {} ventas", dtos.size());
+
+        // 1. Validar el formato de cada venta por separado (null: venta bien formada)
+        List<String> erroresFormato = dtos.stream().map(this::validarFormato).toList();
+
+        // 2. Cargar clientes y productos de todo el lote en una consulta cada uno
+        Set<Long> idsClientes = new HashSet<>();
+        Set<Long> idsProductos = new TreeSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (erroresFormato.get(i) == null) {
+                idsClientes.add(dtos.get(i).getIdCliente());
+                dtos.get(i).getDetalles().forEach(d -> idsProductos.add(d.getIdProducto()));
+            }
+        }
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(idsClientes).stream()
+                .collect(Collectors.toMap(Cliente::getIdCliente, Function.identity()));
+
+        List<Producto> productosCargados = inventarioEnMemoria.isPresent()
+                ? productoRepository.findAllById(idsProductos)
+                : productoRepository.findAllByIdParaVenta(idsProductos);
+        Map<Long, Producto> productos = productosCargados.stream()
+                .collect(Collectors.toMap(Producto::getIdProducto, Function.identity()));
+
+        // 3. Admitir o rechazar cada venta contra el stock restante del lote
+        Map<Long, Integer> stockRestante = new HashMap<>();
+        productos.forEach((id, producto) -> stockRestante.put(id, producto.getStock()));
+        inventarioEnMemoria.ifPresent(inventario ->
+                productos.keySet().forEach(inventario::registrarSiAusente));
+
+        Map<Long, Integer> descuentoTotal = new TreeMap<>();
+        List<ResultadoVentaDTO> resultados = new ArrayList<>();
+        List<Venta> ventasAceptadas = new ArrayList<>();
+        List<ResultadoVentaDTO> resultadosAceptados = new ArrayList<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            VentaRequestDTO dto = dtos.get(i);
+            Map<Long, Integer> cantidades = erroresFormato.get(i) == null ? agruparCantidades(dto) : Map.of();
+            String error = erroresFormato.get(i) != null
+                    ? erroresFormato.get(i)
+                    : validarVentaDelLote(dto, cantidades, clientes, productos, stockRestante);
+
+            if (error == null) {
+                cantidades.forEach((id, cantidad) -> {
+                    stockRestante.merge(id, -cantidad, Integer::sum);
+                    descuentoTotal.merge(id, cantidad, Integer::sum);
+                });
+                ventasAceptadas.add(construirVenta(clientes.get(dto.getIdCliente()), dto, productos));
+                ResultadoVentaDTO resultado = ResultadoVentaDTO.builder().indice(i).exitosa(true).build();
+                resultadosAceptados.add(resultado);
+                resultados.add(resultado);
+            } else {
+                resultados.add(ResultadoVentaDTO.builder().indice(i).exitosa(false).error(error).build());
+            }
+        }
+
+        // 4. Descontar el stock agregado por producto en un batch (filas ya bloqueadas en orden de ID)
+        if (inventarioEnMemoria.isEmpty() && !descuentoTotal.isEmpty()) {
+            List<Long> sinStock = productoRepository.reducirStockEnLote(descuentoTotal);
+            if (!sinStock.isEmpty()) {
+                Long id = sinStock.get(0);
+                throw stockInsuficiente(productos.get(id), descuentoTotal.get(id));
+            }
+            descuentoTotal.forEach((id, cantidad) -> productos.get(id).reducirStock(cantidad));
+        }
+        cacheCatalogo.invalidarTrasCommit(descuentoTotal.keySet());
+        indiceFacetas.marcarTrasCommit(descuentoTotal.keySet());
+
+        // 5. Insertar todas las ventas aceptadas en batches JDBC, en la misma transacción (group commit)
+        ventaRepository.insertarEnLote(ventasAceptadas);
+        estadisticaVentaService.registrarTransicion(null, EstadoVenta.PENDIENTE, ventasAceptadas.size(),
+                ventasAceptadas.stream().map(Venta::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+        for (int i = 0; i < ventasAceptadas.size(); i++) {
+            Venta venta = ventasAceptadas.get(i);
+            resultadosAceptados.get(i).setVenta(ventaMapper.toResponseDTO(venta));
+            matrizCompras.registrarTrasCommit(venta.getIdVenta(),
+                    venta.getDetalles().stream().map(d -> d.getProducto().getIdProducto()).toList());
+        }
+
+        log.info("Lote procesado: {} ventas aceptadas, {} rechazadas",
+                ventasAceptadas.size(), dtos.size() - ventasAceptadas.size());
+
+        return resultados;
+    }
+
+    /**
+     * Aplica las validaciones de VentaRequestDTO a una venta del lote (cliente, detalles, cantidades)
+     *
+     * @return null si está bien formada, o los errores como "campo: mensaje"
+     */
+    private String validarFormato(VentaRequestDTO dto) {
+        if (dto == null) {
+            return "La venta no puede ser nula";
+        }
+        Set<ConstraintViolation<VentaRequestDTO>> violaciones = validator.validate(dto);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                // "detalles[0].<list element>" es el propio elemento nulo de la lista
+                .map(v -> v.getPropertyPath().toString().replace(".<list element>", "") + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Valida una venta del lote y, con el motor en memoria, reserva su stock.
+     *
+     * @return null si la venta es aceptada, o el motivo del rechazo
+     */
+    private String validarVentaDelLote(VentaRequestDTO dto, Map<Long, Integer> cantidades,
+                                       Map<Long, Cliente> clientes, Map<Long, Producto> productos,
+                                       Map<Long, Integer> stockRestante) {
+        if (!clientes.containsKey(dto.getIdCliente())) {
+            return "Cliente no encontrado con ID: " + dto.getIdCliente();
+        }
+
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Producto producto = productos.get(entry.getKey());
+            if (producto == null) {
+                return "Producto no encontrado con ID: " + entry.getKey();
+            }
+            if (inventarioEnMemoria.isEmpty() && stockRestante.get(entry.getKey()) < entry.getValue()) {
+                return String.format("Stock insuficiente para producto '%s'. Disponible: %d, Solicitado: %d",
+                        producto.getNombre(), stockRestante.get(entry.getKey()), entry.getValue());
+            }
+        }
+
+        if (inventarioEnMemoria.isPresent()) {
+            Long sinStock = inventarioEnMemoria.get().reservarVenta(cantidades);
+            if (sinStock != null) {
+                return stockInsuficiente(productos.get(sinStock), cantidades.get(sinStock)).getMessage();
+            }
+        }
+        return null;
+    }
+
+    private Map<Long, Integer> agruparCantidades(VentaRequestDTO dto) {
+        Map<Long, Integer> cantidadesPorProducto = new TreeMap<>();
+        for (DetalleVentaRequestDTO detalleDTO : dto.getDetalles()) {
+            cantidadesPorProducto.merge(detalleDTO.getIdProducto(), detalleDTO.getCantidad(), Integer::sum);
+        }
+        return cantidadesPorProducto;
+    }
+
+    private Venta construirVenta(Cliente cliente, VentaRequestDTO dto, Map<Long, Producto> productos) {
         Venta venta = new Venta();
         venta.setCliente(cliente);
-        venta.setEstado("PENDIENTE");
+        venta.setEstado(EstadoVenta.PENDIENTE);
 
-        // 3. Procesar cada detalle de venta
         List<DetalleVenta> detalles = new ArrayList<>();
         BigDecimal totalVenta = BigDecimal.ZERO;
 
         for (DetalleVentaRequestDTO detalleDTO : dto.getDetalles()) {
-            // Validar producto
-            Producto producto = productoRepository.findById(detalleDTO.getIdProducto())
-                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + detalleDTO.getIdProducto()));
-
-            // Validar stock suficiente
-            if (producto.getStock() < detalleDTO.getCantidad()) {
-                throw new BusinessException(
-                        String.format("Stock insuficiente para producto '%s'. Disponible: %d, Solicitado: %d",
-                                producto.getNombre(), producto.getStock(), detalleDTO.getCantidad())
-                );
-            }
+            Producto producto = productos.get(detalleDTO.getIdProducto());
 
-            // Crear detalle de venta
             DetalleVenta detalle = new DetalleVenta();
             detalle.setVenta(venta);
             detalle.setProducto(producto);
             detalle.setCantidad(detalleDTO.getCantidad());
             detalle.setPrecioUnitario(producto.getPrecio());
 
-            // Actualizar stock
-            producto.setStock(producto.getStock() - detalleDTO.getCantidad());
-            productoRepository.save(producto);
-
-            detalles.add(detalle);
-
-            // Calcular total
+            // Calcular subtotal y total (el insert en lote no pasa por @PrePersist)
             BigDecimal subtotal = producto.getPrecio().multiply(BigDecimal.valueOf(detalleDTO.getCantidad()));
+            detalle.setSubtotal(subtotal);
+            detalles.add(detalle);
             totalVenta = totalVenta.add(subtotal);
         }
 
-        // 4. Asignar detalles y total a la venta
         venta.setDetalles(detalles);
         venta.setTotal(totalVenta);
+        return venta;
+    }
 
-        // 5. Guardar venta
-        Venta ventaGuardada = ventaRepository.save(venta);
+    /**
+     * Carga y bloquea los productos en una sola consulta (orden de ID) y descuenta
+     * el stock con updates condicionales. Si alguno afecta 0 filas, la venta se revierte.
+     */
+    private Map<Long, Producto> descontarStockEnBaseDeDatos(Map<Long, Integer> cantidadesPorProducto) {
+        Map<Long, Producto> productos = productoRepository.findAllByIdParaVenta(cantidadesPorProducto.keySet())
+                .stream()
+                .collect(Collectors.toMap(Producto::getIdProducto, Function.identity()));
 
-        log.info("Venta procesada exitosamente. ID: {}, Total: ${}", ventaGuardada.getIdVenta(), totalVenta);
+        for (Map.Entry<Long, Integer> entry : cantidadesPorProducto.entrySet()) {
+            Producto producto = obtenerProductoCargado(productos, entry.getKey());
 
-        return ventaMapper.toResponseDTO(ventaGuardada);
+            int cantidad = entry.getValue();
+            if (productoRepository.reducirStock(producto.getIdProducto(), cantidad) == 0) {
+                // Ninguna fila afectada: la transacción completa se revierte
+                throw stockInsuficiente(producto, cantidad);
+            }
+
+            // Reflejar en memoria el stock ya persistido (la entidad es de solo lectura)
+            producto.reducirStock(cantidad);
+        }
+        return productos;
+    }
+
+    /**
+     * Admite la venta contra el motor de inventario en memoria, sin bloquear filas.
+     * El descuento en la BD lo persiste InventarioFlusher después del commit.
+     */
+    private Map<Long, Producto> reservarStockEnMemoria(Map<Long, Integer> cantidadesPorProducto,
+                                                       InventarioEnMemoria inventario) {
+        Map<Long, Producto> productos = productoRepository.findAllById(cantidadesPorProducto.keySet())
+                .stream()
+                .collect(Collectors.toMap(Producto::getIdProducto, Function.identity()));
+
+        for (Long idProducto : cantidadesPorProducto.keySet()) {
+            obtenerProductoCargado(productos, idProducto);
+            inventario.registrarSiAusente(idProducto);
+        }
+
+        Long sinStock = inventario.reservarVenta(cantidadesPorProducto);
+        if (sinStock != null) {
+            throw stockInsuficiente(productos.get(sinStock), cantidadesPorProducto.get(sinStock));
+        }
+        return productos;
+    }
+
+    private Producto obtenerProductoCargado(Map<Long, Producto> productos, Long idProducto) {
+        Producto producto = productos.get(idProducto);
+        if (producto == null) {
+            throw new ResourceNotFoundException("Producto no encontrado con ID: " + idProducto);
+        }
+        return producto;
+    }
+
+    private BusinessException stockInsuficiente(Producto producto, int cantidad) {
+        return new BusinessException(
+                String.format("Stock insuficiente para producto '%s'. Disponible: %d, Solicitado: %d",
+                        producto.getNombre(), producto.getStock(), cantidad)
+        );
     }
 
     @Override
     @Transactional(readOnly = true)
     public VentaResponseDTO obtenerVentaPorId(Long id) {
-        Venta venta = ventaRepository.findById(id)
+        Venta venta = ventaRepository.findConDetallesById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Venta no encontrada con ID: " + id));
         return ventaMapper.toResponseDTO(venta);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<VentaResponseDTO> obtenerTodasLasVentas() {
-        List<Venta> ventas = ventaRepository.findAll();
-        return ventaMapper.toResponseDTOList(ventas);
+    public PaginaDTO<VentaResponseDTO> obtenerTodasLasVentas(String cursor, int limite) {
+        List<Long> ids = ventaRepository.findIdsPagina(
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return paginaDeVentas(ids, limite);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<VentaResponseDTO> obtenerVentasPorCliente(Long idCliente) {
-        List<Venta> ventas = ventaRepository.findByCliente_IdCliente(idCliente);
-        return ventaMapper.toResponseDTOList(ventas);
+    public PaginaDTO<VentaResponseDTO> obtenerVentasPorCliente(Long idCliente, String cursor, int limite) {
+        List<Long> ids = ventaRepository.findIdsPaginaPorCliente(idCliente,
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return paginaDeVentas(ids, limite);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<VentaResponseDTO> obtenerVentasPorEstado(String estado) {
-        List<Venta> ventas = ventaRepository.findByEstado(estado);
-        return ventaMapper.toResponseDTOList(ventas);
+    public PaginaDTO<VentaResponseDTO> obtenerVentasPorEstado(String estado, String cursor, int limite) {
+        List<Long> ids = ventaRepository.findIdsPaginaPorEstado(parsearEstado(estado),
+                CursorPaginacion.decodificar(cursor), CursorPaginacion.limiteConsulta(limite));
+        return paginaDeVentas(ids, limite);
+    }
+
+    /**
+     * Con los IDs de la página (hasta limite + 1) carga el grafo completo en una sola consulta
+     */
+    private PaginaDTO<VentaResponseDTO> paginaDeVentas(List<Long> ids, int limite) {
+        return CursorPaginacion.construirPagina(ids, limite, Function.identity(), idsPagina -> idsPagina.isEmpty()
+                ? List.of()
+                : ventaMapper.toResponseDTOList(ventaRepository.findConDetallesByIds(idsPagina)));
     }
 
     @Override
     public VentaResponseDTO actualizarEstadoVenta(Long idVenta, String nuevoEstado) {
-        Venta venta = ventaRepository.findById(idVenta)
-                .orElseThrow(() -> new ResourceNotFoundException("Venta no encontrada con ID: " + idVenta));
+        EstadoVenta estado = parsearEstado(nuevoEstado);
+        Venta venta = bloquearVenta(idVenta);
+        // El grafo se carga aparte: FOR UPDATE no se puede combinar con los LEFT JOIN del fetch
+        ventaRepository.findConDetallesById(idVenta);
 
-        venta.setEstado(nuevoEstado);
+        if (estado == EstadoVenta.CANCELADA) {
+            // Cancelar por esta vía también debe devolver el stock
+            cancelar(venta);
+        } else {
+            cambiarEstado(venta, estado);
+        }
         Venta ventaActualizada = ventaRepository.save(venta);
 
-        log.info("Estado de venta {} actualizado a: {}", idVenta, nuevoEstado);
+        log.info("Estado de venta {} actualizado a: {}", idVenta, estado);
 
         return ventaMapper.toResponseDTO(ventaActualizada);
     }
 
     @Override
     public void cancelarVenta(Long idVenta) {
-        Venta venta = ventaRepository.findById(idVenta)
+        Venta venta = bloquearVenta(idVenta);
+
+        cancelar(venta);
+        ventaRepository.save(venta);
+
+        log.info("Venta {} cancelada y stock devuelto", idVenta);
+    }
+
+    /**
+     * Carga la venta con lock de escritura: otra cancelación o el job de expiración esperan
+     * el commit y luego ven el estado ya cambiado
+     */
+    private Venta bloquearVenta(Long idVenta) {
+        return ventaRepository.findParaActualizarById(idVenta)
                 .orElseThrow(() -> new ResourceNotFoundException("Venta no encontrada con ID: " + idVenta));
+    }
 
-        // Devolver stock de cada producto
-        for (DetalleVenta detalle : venta.getDetalles()) {
-            Producto producto = detalle.getProducto();
-            producto.setStock(producto.getStock() + detalle.getCantidad());
-            productoRepository.save(producto);
+    /**
+     * Valida la transición y devuelve el stock de la venta (agrupado por producto)
+     */
+    private void cancelar(Venta venta) {
+        validarTransicion(venta, EstadoVenta.CANCELADA);
+        devolverStock(List.of(venta.getIdVenta()));
+        cambiarEstado(venta, EstadoVenta.CANCELADA);
+    }
+
+    /**
+     * Aplica una transición de estado válida y mueve la venta entre los contadores por estado
+     */
+    private void cambiarEstado(Venta venta, EstadoVenta nuevo) {
+        validarTransicion(venta, nuevo);
+        estadisticaVentaService.registrarTransicion(venta.getEstado(), nuevo, 1, venta.getTotal());
+        venta.setEstado(nuevo);
+    }
+
+    private void validarTransicion(Venta venta, EstadoVenta nuevo) {
+        if (!venta.getEstado().puedeCambiarA(nuevo)) {
+            throw new BusinessException(String.format(
+                    "La venta %d no puede pasar de %s a %s. Transiciones permitidas: %s",
+                    venta.getIdVenta(), venta.getEstado(), nuevo, venta.getEstado().transicionesPermitidas()));
         }
+    }
 
-        // Cambiar estado
-        venta.setEstado("CANCELADA");
-        ventaRepository.save(venta);
+    private EstadoVenta parsearEstado(String estado) {
+        EstadoVenta valor = EstadoVenta.desdeTexto(estado);
+        if (valor == null) {
+            throw new BusinessException("Estado de venta inválido: " + estado
+                    + ". Valores permitidos: " + Arrays.toString(EstadoVenta.values()));
+        }
+        return valor;
+    }
 
-        log.info("Venta {} cancelada y stock devuelto", idVenta);
+    @Override
+    public int expirarVentasPendientes(LocalDateTime limite, int tamanoChunk) {
+        // Los locks de este chunk se mantienen hasta el commit
+        List<Long> idsVentas = ventaRepository.bloquearPendientesAnterioresA(limite, tamanoChunk);
+        if (idsVentas.isEmpty()) {
+            return 0;
+        }
+
+        devolverStock(idsVentas);
+        ventaRepository.actualizarEstadoEnLote(idsVentas, EstadoVenta.CANCELADA);
+        estadisticaVentaService.registrarTransicion(EstadoVenta.PENDIENTE, EstadoVenta.CANCELADA,
+                idsVentas.size(), ventaRepository.sumarTotales(idsVentas));
+
+        log.info("{} ventas PENDIENTE anteriores a {} expiradas y stock devuelto", idsVentas.size(), limite);
+        return idsVentas.size();
+    }
+
+    /**
+     * Suma las cantidades por producto de las ventas y devuelve el stock
+     * con un UPDATE por producto (en orden de ID), en un solo batch
+     */
+    private void devolverStock(List<Long> idsVentas) {
+        Map<Long, Integer> cantidadesPorProducto = new TreeMap<>();
+        for (DetalleVentaRepository.CantidadProducto fila : detalleVentaRepository.sumarCantidadesPorProducto(idsVentas)) {
+            cantidadesPorProducto.put(fila.getIdProducto(), fila.getCantidad().intValue());
+        }
+        if (cantidadesPorProducto.isEmpty()) {
+            return;
+        }
+
+        productoRepository.aumentarStockEnLote(cantidadesPorProducto);
+        cacheCatalogo.invalidarTrasCommit(cantidadesPorProducto.keySet());
+        indiceFacetas.marcarTrasCommit(cantidadesPorProducto.keySet());
+        matrizCompras.descontarTrasCommit(idsVentas);
+        inventarioEnMemoria.ifPresent(inventario -> cantidadesPorProducto.forEach(inventario::ajustarTrasCommit));
     }
 
     @Override
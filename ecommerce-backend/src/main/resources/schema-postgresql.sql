@@ -0,0 +1,37 @@
+-- Índices que @Index de JPA no puede declarar (parciales, funcionales y con INCLUDE).
+-- Se ejecuta en cada inicio después de que Hibernate actualiza el esquema (spring.sql.init),
+-- por eso todas las sentencias son idempotentes.
+-- PlanesConsultaTest verifica con EXPLAIN que cada finder de los repositorios usa un índice.
+
+-- ProductoRepository.findPaginaDisponibles, countProductosDisponibles
+CREATE INDEX IF NOT EXISTS idx_productos_disponibles_id
+    ON productos (id_producto) WHERE stock > 0;
+
+-- ProductoRepository.findByCategoriaAndDisponible
+CREATE INDEX IF NOT EXISTS idx_productos_categoria_disponibles
+    ON productos (categoria, id_producto) WHERE stock > 0;
+
+-- VentaRepository.calcularTotalVentasPorCliente: index-only scan sobre las ventas completadas
+CREATE INDEX IF NOT EXISTS idx_ventas_cliente_completadas
+    ON ventas (id_cliente) INCLUDE (total) WHERE estado = 'COMPLETADA';
+
+-- ClienteRepository.findByEmailIgnoreCase, existsByEmailIgnoreCase, findByEmailIgnoreCaseAndActivoTrue.
+-- Único: rechaza los emails repetidos sin importar mayúsculas aunque EmailsRegistrados no los haya visto.
+-- Si ya hay clientes con el mismo email en distinto case el índice único no se puede crear: en lugar de
+-- abortar el inicio se deja (o crea) el índice no único y EmailsRegistrados informa los repetidos en el log;
+-- el único se crea en el primer inicio después de resolverlos.
+-- Cuerpo entre comillas simples y no $$: spring.sql.init separa las sentencias por ';' fuera de comillas.
+DO '
+DECLARE
+    repetidos integer;
+BEGIN
+    SELECT COUNT(*) INTO repetidos
+    FROM (SELECT 1 FROM clientes GROUP BY lower(email) HAVING COUNT(*) > 1) emails;
+    IF repetidos = 0 THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uq_clientes_email_lower ON clientes (lower(email));
+        DROP INDEX IF EXISTS idx_clientes_email_lower;
+    ELSE
+        CREATE INDEX IF NOT EXISTS idx_clientes_email_lower ON clientes (lower(email));
+        RAISE WARNING ''uq_clientes_email_lower no se creó: % emails repetidos sin importar mayúsculas'', repetidos;
+    END IF;
+END';
@@ -0,0 +1,117 @@
+package com.ecommerce_backend.busqueda;
+
+import com.ecommerce_backend.paginacion.CursorPaginacion;
+import com.ecommerce_backend.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de búsqueda: índice en memoria contra la consulta LIKE '%...%' sobre 100.000 productos.
+ *
+ * Se ejecuta solo de forma explícita:
+ * mvn test -Dbenchmark=true -Dtest=BusquedaProductosBenchmarkTest
+ *
+ * Reporta el tiempo de construcción del índice y la latencia media por consulta de
+ * cada estrategia, y verifica que el índice tolere errores de tipeo y prefijos.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BusquedaProductosBenchmarkTest {
+
+    private static final int PRODUCTOS = 100_000;
+    private static final int REPETICIONES = 50;
+    private static final int LIMITE = CursorPaginacion.LIMITE_POR_DEFECTO;
+
+    private static final String[] TIPOS = {"Audífonos", "Celular", "Teclado", "Mouse", "Monitor", "Parlante",
+            "Notebook", "Tablet", "Cargador", "Cámara", "Reloj", "Mochila", "Polera", "Zapatillas", "Lámpara"};
+    private static final String[] MARCAS = {"Sony", "Samsung", "Logitech", "Xiaomi", "Lenovo", "Apple",
+            "Philips", "Nike", "Adidas", "Redragon"};
+    private static final String[] ATRIBUTOS = {"inalámbrico", "bluetooth", "gamer", "portátil", "negro",
+            "blanco", "recargable", "mecánico", "deportivo", "ergonómico", "compacto", "profesional"};
+    private static final String[] CATEGORIAS = {"tecnologia", "ropa", "hogar", "deportes", "accesorios"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private BuscadorProductos buscadorProductos;
+
+    @BeforeAll
+    void cargarProductos() {
+        Random random = new Random(42);
+        List<Object[]> filas = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            String nombre = elegir(random, TIPOS) + " " + elegir(random, MARCAS) + " "
+                    + elegir(random, ATRIBUTOS) + " " + i;
+            String descripcion = "Producto " + elegir(random, ATRIBUTOS) + " y " + elegir(random, ATRIBUTOS)
+                    + " de la marca " + elegir(random, MARCAS) + ", ideal para uso diario";
+            filas.add(new Object[]{nombre, elegir(random, CATEGORIAS), descripcion});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO productos (nombre, categoria, descripcion, precio, stock, version, " +
+                "fecha_modificacion) VALUES (?, ?, ?, 1000, 10, 0, CURRENT_TIMESTAMP)", filas);
+
+        long inicio = System.nanoTime();
+        buscadorProductos.reconstruir();
+        log.info("[benchmark] índice construido: {} productos en {} ms",
+                PRODUCTOS, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @Test
+    void compararIndiceConLike() {
+        for (String consulta : List.of("audífonos", "sony", "cel", "teclado mecánico", "audifnos")) {
+            int resultadosLike = productoRepository.findPaginaPorNombre(consulta, 0L,
+                    CursorPaginacion.limiteConsulta(LIMITE)).size();
+            int resultadosIndice = buscadorProductos.buscar(consulta, LIMITE + 1).size();
+            double like = medir(() -> productoRepository.findPaginaPorNombre(consulta, 0L,
+                    CursorPaginacion.limiteConsulta(LIMITE)));
+            double indice = medir(() -> buscadorProductos.buscar(consulta, LIMITE + 1));
+
+            // LIKE no encuentra términos separados ni con errores de tipeo
+            log.info("[benchmark] consulta=\"{}\" like={} ms ({} resultados) indice={} ms ({} resultados)",
+                    consulta, String.format("%.2f", like), resultadosLike,
+                    String.format("%.2f", indice), resultadosIndice);
+            assertThat(resultadosIndice).isEqualTo(LIMITE + 1);
+        }
+    }
+
+    @Test
+    void indiceToleraErroresYPrefijos() {
+        assertThat(buscadorProductos.buscar("audifnos", LIMITE)).hasSize(LIMITE);
+        assertThat(buscadorProductos.buscar("teclado mecanco", LIMITE)).hasSize(LIMITE);
+        assertThat(buscadorProductos.buscar("logit", LIMITE)).hasSize(LIMITE);
+
+        // La coincidencia en el nombre pesa más que en la descripción
+        Long primero = buscadorProductos.buscar("samsung", 1).get(0);
+        assertThat(productoRepository.findById(primero).orElseThrow().getNombre()).contains("Samsung");
+    }
+
+    private double medir(Runnable consulta) {
+        consulta.run();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICIONES; i++) {
+            consulta.run();
+        }
+        return (System.nanoTime() - inicio) / 1_000_000.0 / REPETICIONES;
+    }
+
+    private static String elegir(Random random, String[] opciones) {
+        return opciones[random.nextInt(opciones.length)];
+    }
+}
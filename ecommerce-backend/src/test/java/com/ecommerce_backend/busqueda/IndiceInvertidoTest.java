@@ -0,0 +1,98 @@
+package com.ecommerce_backend.busqueda;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica la búsqueda del índice invertido: normalización, prefijos, errores de tipeo,
+ * AND entre términos, orden por relevancia y que eliminar o reindexar un producto
+ * lo saque de todos los resultados (también de prefijos y trigramas).
+ */
+class IndiceInvertidoTest {
+
+    private IndiceInvertido indice;
+
+    @BeforeEach
+    void indexar() {
+        indice = new IndiceInvertido();
+        indice.indexar(1, "Celular Samsung Galaxy", "Tecnología", "Pantalla grande");
+        indice.indexar(2, "iPhone 14", "Tecnología", "Celular de Apple");
+        indice.indexar(3, "Computadora portátil", "Computación", "Notebook liviano");
+    }
+
+    @Test
+    void normalizaTildesMayusculasYStopwords() {
+        assertEquals(List.of("camara", "fotos"), IndiceInvertido.tokenizar("La Cámara de FOTOS"));
+        assertEquals(List.of(1L, 2L), indice.buscar("TECNOLOGIA", 10));
+    }
+
+    @Test
+    void completaPrefijos() {
+        assertEquals(List.of(1L, 2L), indice.buscar("celu", 10));
+        assertEquals(List.of(3L), indice.buscar("compu", 10));
+    }
+
+    @Test
+    void toleraUnErrorDesdeCuatroLetrasYDosDesdeOcho() {
+        assertEquals(List.of(1L, 2L), indice.buscar("celuler", 10));
+        assertEquals(List.of(1L), indice.buscar("samsumg", 10));
+        assertEquals(List.of(3L), indice.buscar("conputadira", 10));
+        // Tres letras no admiten errores
+        assertEquals(List.of(), indice.buscar("apl", 10));
+    }
+
+    @Test
+    void losNumerosNoToleranErrores() {
+        assertEquals(List.of(2L), indice.buscar("14", 10));
+        assertEquals(List.of(), indice.buscar("13", 10));
+    }
+
+    @Test
+    void todosLosTerminosDebenCoincidir() {
+        assertEquals(List.of(1L), indice.buscar("celular galaxy", 10));
+        assertEquals(List.of(), indice.buscar("celular notebook", 10));
+    }
+
+    @Test
+    void elNombrePesaMasQueLaDescripcion() {
+        // "celular" está en el nombre de 1 y en la descripción de 2
+        assertEquals(List.of(1L, 2L), indice.buscar("celular", 10));
+        assertEquals(List.of(1L), indice.buscar("celular", 1));
+    }
+
+    @Test
+    void eliminarQuitaElProductoDeTodasLasBusquedas() {
+        indice.eliminar(1);
+
+        assertEquals(2, indice.tamano());
+        assertEquals(List.of(2L), indice.buscar("celular", 10));
+        assertEquals(List.of(), indice.buscar("samsung", 10));
+        assertEquals(List.of(), indice.buscar("gala", 10));
+        assertEquals(List.of(), indice.buscar("samsumg", 10));
+    }
+
+    @Test
+    void reindexarReemplazaLosTerminosYReutilizaSlots() {
+        indice.indexar(2, "Audífonos Sony", "Audio", "Inalámbricos");
+        assertEquals(List.of(1L), indice.buscar("celular", 10));
+        assertEquals(List.of(2L), indice.buscar("audifonos", 10));
+
+        indice.eliminar(3);
+        indice.indexar(4, "Tablet Lenovo", "Computación", null);
+        assertEquals(3, indice.tamano());
+        assertEquals(List.of(4L), indice.buscar("computacion", 10));
+        assertEquals(List.of(), indice.buscar("notebook", 10));
+    }
+
+    @Test
+    void distanciaCuentaTransposicionesYCortaAlSuperarElMaximo() {
+        assertEquals(1, IndiceInvertido.distancia("celular", "celualr", 2));
+        assertEquals(2, IndiceInvertido.distancia("computadora", "conputadira", 2));
+        assertTrue(IndiceInvertido.distancia("celular", "tablet", 2) > 2);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ecommerce_backend.controller;
+
+import com.ecommerce_backend.cache.InstantaneaCatalogo;
+import com.ecommerce_backend.dto.ProductoRequestDTO;
+import com.ecommerce_backend.service.ProductoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Verifica que el listado que pide el frontend (apiRequestTodasLasPaginas, limite=500, con
+ * Accept-Encoding: gzip) se atiende desde la instantánea precomprimida del catálogo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+class ProductoControllerInstantaneaTest {
+
+    // El limite que envía apiRequestTodasLasPaginas (frontend/js/utils/api.js)
+    private static final int LIMITE_FRONTEND = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InstantaneaCatalogo instantaneaCatalogo;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void elListadoDelFrontendSeSirveDesdeLaInstantanea() throws Exception {
+        // Por el servicio: el commit invalida la cache del catálogo y regenera la instantánea
+        productoService.crearProducto(ProductoRequestDTO.builder()
+                .nombre("Producto instantánea")
+                .categoria("Pruebas")
+                .precio(new BigDecimal("1000"))
+                .stock(5)
+                .build());
+
+        // Las páginas se regeneran en segundo plano
+        long limite = System.currentTimeMillis() + 10_000;
+        while (instantaneaCatalogo.obtener(null, LIMITE_FRONTEND)
+                .filter(pagina -> !contenido(pagina.gzip()).isEmpty()).isEmpty()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("La instantánea no generó la primera página con limite=" + LIMITE_FRONTEND);
+            }
+            Thread.sleep(50);
+        }
+
+        MockHttpServletResponse respuesta = mockMvc.perform(get("/api/productos")
+                        .param("limite", String.valueOf(LIMITE_FRONTEND))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andReturn().getResponse();
+
+        // Solo la ruta de la instantánea responde gzip (la ruta normal deja la compresión al servidor)
+        assertEquals(200, respuesta.getStatus());
+        assertEquals("gzip", respuesta.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(respuesta.getHeader(HttpHeaders.ETAG).endsWith("-gzip\""), respuesta.getHeader(HttpHeaders.ETAG));
+        assertFalse(contenido(respuesta.getContentAsByteArray()).isEmpty());
+    }
+
+    private JsonNode contenido(byte[] gzip) {
+        try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return objectMapper.readTree(entrada).path("data").path("contenido");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
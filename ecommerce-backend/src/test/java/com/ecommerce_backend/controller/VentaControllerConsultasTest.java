@@ -0,0 +1,162 @@
+package com.ecommerce_backend.controller;
+
+import com.ecommerce_backend.dto.DetalleVentaRequestDTO;
+import com.ecommerce_backend.dto.VentaRequestDTO;
+import com.ecommerce_backend.model.Cliente;
+import com.ecommerce_backend.model.Producto;
+import com.ecommerce_backend.repository.ClienteRepository;
+import com.ecommerce_backend.repository.ProductoRepository;
+import com.ecommerce_backend.service.VentaService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que los endpoints de lectura de ventas cargan el grafo completo
+ * (cliente, detalles y productos) con un número acotado de sentencias SQL,
+ * sin importar cuántas ventas, detalles o productos devuelvan, y que la
+ * paginación por cursor recorre todas las ventas sin repetir ninguna.
+ *
+ * La instantánea del catálogo se desactiva: sus regeneraciones en segundo plano
+ * (tras cada venta) sumarían sentencias a las estadísticas de Hibernate.
+ */
+@SpringBootTest(properties = "catalogo.instantanea.habilitado=false")
+@AutoConfigureMockMvc(addFilters = false)
+class VentaControllerConsultasTest {
+
+    private static final int VENTAS = 20;
+    private static final int PRODUCTOS_POR_VENTA = 3;
+    private static final long MAX_SENTENCIAS = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cliente cliente;
+    private Long idVenta;
+
+    @BeforeEach
+    void crearVentas() {
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < VENTAS * PRODUCTOS_POR_VENTA; i++) {
+            productos.add(nuevoProducto("Producto consultas " + i));
+        }
+        productos = productoRepository.saveAll(productos);
+
+        cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente")
+                .apellido("Consultas")
+                .email("consultas-" + System.nanoTime() + "@test.cl")
+                .build());
+
+        for (int v = 0; v < VENTAS; v++) {
+            List<DetalleVentaRequestDTO> detalles = new ArrayList<>();
+            for (int p = 0; p < PRODUCTOS_POR_VENTA; p++) {
+                detalles.add(new DetalleVentaRequestDTO(productos.get(v * PRODUCTOS_POR_VENTA + p).getIdProducto(), 1));
+            }
+            idVenta = ventaService.procesarVenta(new VentaRequestDTO(cliente.getIdCliente(), detalles)).getIdVenta();
+        }
+    }
+
+    @Test
+    void listarTodasLasVentas() throws Exception {
+        assertSentenciasAcotadas("/api/ventas");
+    }
+
+    @Test
+    void listarVentasPorCliente() throws Exception {
+        assertSentenciasAcotadas("/api/ventas/cliente/" + cliente.getIdCliente());
+    }
+
+    @Test
+    void listarVentasPorEstado() throws Exception {
+        assertSentenciasAcotadas("/api/ventas/estado/PENDIENTE");
+    }
+
+    @Test
+    void obtenerVentaPorId() throws Exception {
+        assertSentenciasAcotadas("/api/ventas/" + idVenta);
+    }
+
+    @Test
+    void recorrerVentasDelClientePorCursor() throws Exception {
+        Set<Long> vistas = new HashSet<>();
+        String cursor = null;
+        int paginas = 0;
+
+        do {
+            String url = "/api/ventas/cliente/" + cliente.getIdCliente() + "?limite=7"
+                    + (cursor != null ? "&cursor=" + cursor : "");
+            JsonNode pagina = objectMapper.readTree(assertSentenciasAcotadas(url)).path("data");
+
+            pagina.path("contenido").forEach(venta -> assertTrue(vistas.add(venta.path("idVenta").asLong()),
+                    "La venta " + venta.path("idVenta") + " apareció en dos páginas"));
+            cursor = pagina.path("siguienteCursor").isNull() ? null : pagina.path("siguienteCursor").asText();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(VENTAS, vistas.size());
+        assertEquals(3, paginas);
+    }
+
+    @Test
+    void cursorInvalidoResponde400() throws Exception {
+        mockMvc.perform(get("/api/ventas?cursor=no-es-un-cursor")).andExpect(status().isBadRequest());
+    }
+
+    private String assertSentenciasAcotadas(String url) throws Exception {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        String respuesta = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        long sentencias = estadisticas.getPrepareStatementCount();
+        assertTrue(sentencias <= MAX_SENTENCIAS,
+                "GET " + url + " ejecutó " + sentencias + " sentencias SQL (máximo " + MAX_SENTENCIAS + ")");
+        return respuesta;
+    }
+
+    private Producto nuevoProducto(String nombre) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setCategoria("consultas");
+        producto.setPrecio(new BigDecimal("1000.00"));
+        producto.setStock(100);
+        return producto;
+    }
+}
@@ -0,0 +1,142 @@
+package com.ecommerce_backend.facetas;
+
+import com.ecommerce_backend.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica IndiceFacetas sobre una tabla productos en H2 (sin contexto de Spring):
+ * bordes de los rangos de precio, conteos disjuntos, paginación entre palabras de 64 bits
+ * y que los productos marcados se relean antes de la siguiente consulta.
+ *
+ * Rangos de precio: [0, 1000), [1000, 5000), [5000, ∞)
+ */
+class IndiceFacetasTest {
+
+    private EmbeddedDatabase baseDeDatos;
+    private JdbcTemplate jdbcTemplate;
+    private IndiceFacetas indice;
+
+    @BeforeEach
+    void crearProductos() {
+        baseDeDatos = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(baseDeDatos);
+        jdbcTemplate.execute("CREATE TABLE productos (id_producto BIGINT PRIMARY KEY, categoria VARCHAR(50), " +
+                "precio DECIMAL(12, 2), stock INT)");
+        insertar(1, "A", "999.99", 10);
+        insertar(2, "A", "1000.00", 2);
+        insertar(3, "B", "4999.99", 0);
+        insertar(4, "B", "5000.00", 5);
+        // En la segunda y tercera palabra del bitmap
+        insertar(70, "A", "1500.00", 1);
+        insertar(130, "C", "10000.00", 10);
+
+        indice = new IndiceFacetas(jdbcTemplate, new long[]{1000, 5000});
+        indice.cargar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        baseDeDatos.shutdown();
+    }
+
+    @Test
+    void losBordesDeLosRangosDePrecioSeIncluyenUnaSolaVez() {
+        assertEquals(List.of(2L, 3L, 70L), consultarPrecio("1000", "4999.99"));
+        assertEquals(List.of(1L, 2L), consultarPrecio(null, "1000"));
+        assertEquals(List.of(4L, 130L), consultarPrecio("5000", null));
+        assertEquals(List.of(2L), consultarPrecio("1000", "1000"));
+        // Los centavos se redondean hacia adentro del rango pedido
+        assertEquals(List.of(2L, 70L), consultarPrecio("999.991", "4999.989"));
+        assertEquals(List.of(), consultarPrecio("1000.01", "1499.99"));
+    }
+
+    @Test
+    void cadaFacetaSeCuentaConLosFiltrosDeLasDemas() {
+        ResultadoFacetas resultado = indice.consultar(
+                new FiltroFacetas(Set.of("A"), null, null, null, true), 0, 10);
+
+        assertEquals(List.of(1L, 2L, 70L), resultado.ids());
+        assertEquals(3, resultado.total());
+        assertEquals(Map.of("A", 3L, "B", 1L, "C", 1L), resultado.categorias());
+        assertArrayEquals(new long[]{1, 2, 0}, resultado.rangosPrecio());
+        assertEquals(3, resultado.disponibles());
+        assertEquals(0, resultado.agotados());
+        assertEquals(Map.of("AGOTADO", 0L, "POCAS_UNIDADES", 2L, "DISPONIBLE", 1L), resultado.estadosStock());
+    }
+
+    @Test
+    void paginaPorIdEntrePalabras() {
+        FiltroFacetas sinFiltros = new FiltroFacetas(null, null, null, null, null);
+
+        ResultadoFacetas primera = indice.consultar(sinFiltros, 0, 2);
+        assertEquals(List.of(1L, 2L), primera.ids());
+        assertTrue(primera.hayMas());
+        assertEquals(6, primera.total());
+
+        assertEquals(List.of(3L, 4L), indice.consultar(sinFiltros, 2, 2).ids());
+
+        ResultadoFacetas ultima = indice.consultar(sinFiltros, 63, 2);
+        assertEquals(List.of(70L, 130L), ultima.ids());
+        assertFalse(ultima.hayMas());
+    }
+
+    @Test
+    void losProductosMarcadosSeReleenAntesDeConsultar() {
+        jdbcTemplate.update("UPDATE productos SET categoria = 'B', precio = 6000, stock = 0 WHERE id_producto = 1");
+        jdbcTemplate.update("DELETE FROM productos WHERE id_producto = 4");
+        insertar(200, "D", "10.00", 3);
+
+        // Sin marcar, el índice no vuelve a leer la base de datos
+        assertEquals(List.of(1L, 2L, 70L), consultarCategoria("A"));
+
+        indice.marcarTrasCommit(List.of(1L, 4L, 200L));
+
+        assertEquals(List.of(2L, 70L), consultarCategoria("A"));
+        assertEquals(List.of(1L, 3L), consultarCategoria("B"));
+        assertEquals(List.of(200L), consultarCategoria("D"));
+        assertEquals(List.of(1L, 130L), consultarPrecio("5000", null));
+        assertEquals(6, indice.consultar(new FiltroFacetas(null, null, null, null, null), 0, 10).total());
+    }
+
+    @Test
+    void rechazaFiltrosInvalidos() {
+        assertThrows(BusinessException.class, () -> indice.consultar(
+                new FiltroFacetas(null, new BigDecimal("10"), new BigDecimal("5"), null, null), 0, 10));
+        assertThrows(BusinessException.class, () -> indice.consultar(
+                new FiltroFacetas(null, null, null, Set.of("INEXISTENTE"), null), 0, 10));
+    }
+
+    private List<Long> consultarPrecio(String min, String max) {
+        return indice.consultar(new FiltroFacetas(null, min != null ? new BigDecimal(min) : null,
+                max != null ? new BigDecimal(max) : null, null, null), 0, 10).ids();
+    }
+
+    private List<Long> consultarCategoria(String categoria) {
+        return indice.consultar(new FiltroFacetas(Set.of(categoria), null, null, null, null), 0, 10).ids();
+    }
+
+    private void insertar(long id, String categoria, String precio, int stock) {
+        jdbcTemplate.update("INSERT INTO productos (id_producto, categoria, precio, stock) VALUES (?, ?, ?, ?)",
+                id, categoria, new BigDecimal(precio), stock);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce_backend.facetas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica la ubicación de cada ID en las palabras de 64 bits y el crecimiento a demanda
+ */
+class MapaBitsTest {
+
+    @Test
+    void cadaIdOcupaSuBitEnSuPalabra() {
+        MapaBits bits = new MapaBits();
+        bits.agregar(0);
+        bits.agregar(63);
+        bits.agregar(64);
+
+        assertEquals(1L | (1L << 63), bits.palabra(0));
+        assertEquals(1L, bits.palabra(1));
+
+        bits.quitar(63);
+        assertEquals(1L, bits.palabra(0));
+    }
+
+    @Test
+    void creceAlAgregarIdsFueraDeRangoYResponde0MasAlla() {
+        MapaBits bits = new MapaBits();
+        int inicial = bits.cantidadPalabras();
+
+        bits.agregar(inicial * 64 * 5 + 3);
+
+        assertTrue(bits.cantidadPalabras() > inicial * 5);
+        assertEquals(1L << 3, bits.palabra(inicial * 5));
+        assertEquals(0L, bits.palabra(bits.cantidadPalabras() + 10));
+        // Quitar fuera del rango no falla ni crece
+        int palabras = bits.cantidadPalabras();
+        bits.quitar(palabras * 64 + 1);
+        assertEquals(palabras, bits.cantidadPalabras());
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce_backend.recomendacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica MapaPares contra un HashMap de referencia. Con capacidad inicial mínima la tabla
+ * se redimensiona varias veces y forma grupos largos de colisiones, así que los borrados
+ * (contador en 0) ejercitan el desplazamiento hacia atrás: una entrada mal movida deja
+ * de encontrarse.
+ */
+class MapaParesTest {
+
+    @Test
+    void laClaveNoDependeDelOrdenDelPar() {
+        long clave = MapaPares.clave(42, 7);
+
+        assertEquals(MapaPares.clave(7, 42), clave);
+        assertEquals(7, MapaPares.menor(clave));
+        assertEquals(42, MapaPares.mayor(clave));
+    }
+
+    @Test
+    void sumarDevuelveElAnteriorYNuncaBajaDeCero() {
+        MapaPares pares = new MapaPares();
+        long clave = MapaPares.clave(1, 2);
+
+        assertEquals(0, pares.sumar(clave, 3));
+        assertEquals(3, pares.sumar(clave, 2));
+        assertEquals(5, pares.obtener(clave));
+
+        assertEquals(5, pares.sumar(clave, -10));
+        assertEquals(0, pares.obtener(clave));
+        assertEquals(0, pares.tamano());
+
+        // Restar a un par que no existe no lo crea
+        assertEquals(0, pares.sumar(MapaPares.clave(3, 4), -1));
+        assertEquals(0, pares.tamano());
+    }
+
+    @Test
+    void borrarEnGruposDeColisionesConservaLasDemasEntradas() {
+        MapaPares pares = new MapaPares(1);
+        List<Long> claves = new ArrayList<>();
+        for (int a = 1; a <= 40; a++) {
+            for (int b = a + 1; b <= 40; b++) {
+                long clave = MapaPares.clave(a, b);
+                claves.add(clave);
+                pares.sumar(clave, a + b);
+            }
+        }
+        assertEquals(claves.size(), pares.tamano());
+
+        // Borra una de cada tres y revisa todas las demás
+        for (int i = 0; i < claves.size(); i += 3) {
+            pares.sumar(claves.get(i), -Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < claves.size(); i++) {
+            long clave = claves.get(i);
+            int esperado = i % 3 == 0 ? 0 : MapaPares.menor(clave) + MapaPares.mayor(clave);
+            assertEquals(esperado, pares.obtener(clave), "Par " + MapaPares.menor(clave) + "-" + MapaPares.mayor(clave));
+        }
+        assertEquals(claves.size() - (claves.size() + 2) / 3, pares.tamano());
+    }
+
+    @Test
+    void coincideConUnMapaDeReferenciaEnOperacionesAleatorias() {
+        MapaPares pares = new MapaPares(1);
+        Map<Long, Integer> referencia = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int operacion = 0; operacion < 200_000; operacion++) {
+            long clave = MapaPares.clave(1 + random.nextInt(300), 301 + random.nextInt(300));
+            int delta = random.nextInt(3) == 0 ? -(1 + random.nextInt(3)) : 1 + random.nextInt(2);
+
+            int anterior = referencia.getOrDefault(clave, 0);
+            int nuevo = Math.max(0, anterior + delta);
+            if (nuevo == 0) {
+                referencia.remove(clave);
+            } else {
+                referencia.put(clave, nuevo);
+            }
+
+            assertEquals(anterior, pares.sumar(clave, delta));
+        }
+
+        assertEquals(referencia.size(), pares.tamano());
+        referencia.forEach((clave, valor) -> assertEquals(valor, pares.obtener(clave)));
+    }
+}
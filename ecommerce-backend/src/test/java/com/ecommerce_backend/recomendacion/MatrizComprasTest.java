@@ -0,0 +1,153 @@
+package com.ecommerce_backend.recomendacion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica la instantánea de MatrizCompras sobre tablas en H2 (sin contexto de Spring):
+ * tras un cierre ordenado se carga la instantánea y se reproducen las ventas posteriores;
+ * si la aplicación terminó sin guardar se reconstruye desde detalle_ventas (ventas con ID
+ * menor confirmadas tarde, cancelaciones posteriores) y la instantánea se reescribe completa.
+ */
+class MatrizComprasTest {
+
+    private EmbeddedDatabase baseDeDatos;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void crearTablas() {
+        baseDeDatos = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(baseDeDatos);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(baseDeDatos));
+        jdbcTemplate.execute("CREATE TABLE ventas (id_venta BIGINT PRIMARY KEY, estado VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE detalle_ventas (id_venta BIGINT, id_producto BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE compras_conjuntas (id_producto_a BIGINT, id_producto_b BIGINT, " +
+                "cantidad BIGINT NOT NULL, PRIMARY KEY (id_producto_a, id_producto_b))");
+        jdbcTemplate.execute("CREATE TABLE compras_conjuntas_instantanea (id INT PRIMARY KEY, " +
+                "ultima_venta BIGINT NOT NULL, cerrada BOOLEAN NOT NULL, fecha_guardado TIMESTAMP NOT NULL)");
+    }
+
+    @AfterEach
+    void cerrar() {
+        baseDeDatos.shutdown();
+    }
+
+    @Test
+    void sinCierreOrdenadoSeReconstruyeDesdeDetalleVentas() {
+        MatrizCompras matriz = iniciar();
+        vender(matriz, 1, 1, 2);
+        vender(matriz, 3, 1, 2, 3);
+        matriz.guardarInstantanea();
+        assertEquals(Map.of("1-2", 2L, "1-3", 1L, "2-3", 1L), instantanea());
+
+        // Después de la instantánea: la venta 2 confirma tarde (ID menor que la última incluida)
+        // y se cancela la 1; la aplicación termina sin guardar
+        vender(matriz, 2, 2, 3);
+        cancelar(matriz, 1);
+
+        iniciar().guardarInstantanea();
+
+        assertEquals(Map.of("1-2", 1L, "1-3", 1L, "2-3", 2L), instantanea());
+    }
+
+    @Test
+    void trasUnCierreOrdenadoSeCargaLaInstantaneaYSeReproducenLasVentasPosteriores() {
+        MatrizCompras matriz = iniciar();
+        vender(matriz, 1, 1, 2);
+        matriz.guardarAlCerrar();
+        assertTrue(cerrada());
+
+        // Fuera de la aplicación: una fila que la instantánea no incluye (no se relee) y una venta nueva
+        jdbcTemplate.update("INSERT INTO detalle_ventas VALUES (1, 5)");
+        insertarVenta(2, 1, 3);
+
+        MatrizCompras reiniciada = iniciar();
+        assertFalse(cerrada());
+        reiniciada.guardarInstantanea();
+
+        assertEquals(Map.of("1-2", 1L, "1-3", 1L), instantanea());
+        assertEquals(List.of(2L, 3L), reiniciada.relacionados(1, 5));
+    }
+
+    @Test
+    void unaCancelacionAntesDeLaCargaDescartaLaInstantanea() {
+        MatrizCompras matriz = iniciar();
+        vender(matriz, 1, 1, 2);
+        vender(matriz, 2, 1, 3);
+        matriz.guardarAlCerrar();
+
+        // La venta 1 se cancela en el nuevo inicio antes de que la matriz termine de cargar
+        MatrizCompras reiniciada = new MatrizCompras(jdbcTemplate, transactionTemplate, 20, 100);
+        cancelar(reiniciada, 1);
+        reiniciada.cargar();
+        reiniciada.guardarInstantanea();
+
+        assertEquals(Map.of("1-3", 1L), instantanea());
+    }
+
+    @Test
+    void unaReconstruccionEliminaLosParesQueYaNoExisten() {
+        jdbcTemplate.update("INSERT INTO compras_conjuntas VALUES (7, 8, 4)");
+        insertarVenta(1, 1, 2);
+
+        iniciar().guardarInstantanea();
+
+        assertEquals(Map.of("1-2", 1L), instantanea());
+    }
+
+    private MatrizCompras iniciar() {
+        MatrizCompras matriz = new MatrizCompras(jdbcTemplate, transactionTemplate, 20, 100);
+        matriz.cargar();
+        return matriz;
+    }
+
+    private void vender(MatrizCompras matriz, long idVenta, long... productos) {
+        insertarVenta(idVenta, productos);
+        matriz.registrarTrasCommit(idVenta, Arrays.stream(productos).boxed().toList());
+    }
+
+    private void insertarVenta(long idVenta, long... productos) {
+        jdbcTemplate.update("INSERT INTO ventas VALUES (?, 'PENDIENTE')", idVenta);
+        for (long producto : productos) {
+            jdbcTemplate.update("INSERT INTO detalle_ventas VALUES (?, ?)", idVenta, producto);
+        }
+    }
+
+    private void cancelar(MatrizCompras matriz, long idVenta) {
+        jdbcTemplate.update("UPDATE ventas SET estado = 'CANCELADA' WHERE id_venta = ?", idVenta);
+        matriz.descontarTrasCommit(List.of(idVenta));
+    }
+
+    private Map<String, Long> instantanea() {
+        Map<String, Long> pares = new TreeMap<>();
+        jdbcTemplate.query("SELECT id_producto_a, id_producto_b, cantidad FROM compras_conjuntas", rs -> {
+            pares.put(rs.getLong(1) + "-" + rs.getLong(2), rs.getLong(3));
+        });
+        return pares;
+    }
+
+    private boolean cerrada() {
+        return jdbcTemplate.queryForObject("SELECT cerrada FROM compras_conjuntas_instantanea WHERE id = 1",
+                Boolean.class);
+    }
+}
@@ -0,0 +1,227 @@
+package com.ecommerce_backend.repository;
+
+import com.ecommerce_backend.model.EstadoVenta;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica con EXPLAIN que cada finder de ProductoRepository, VentaRepository y ClienteRepository
+ * tiene un índice que lo resuelve: falla si el plan de la consulta que genera Hibernate
+ * contiene un Seq Scan.
+ *
+ * Necesita PostgreSQL (los índices parciales y funcionales de schema-postgresql.sql no existen en H2)
+ * y se ejecuta solo de forma explícita, contra una base de datos desechable (se recrea el esquema):
+ * mvn test -Dtest=PlanesConsultaTest -Dplanes.url=jdbc:postgresql://localhost:5432/ecommerce_planes
+ *          -Dplanes.usuario=postgres -Dplanes.contrasena=postgres
+ *
+ * Los planes son los que elige el planner con su configuración por defecto, sobre datos
+ * sembrados con una distribución realista (VACUUM ANALYZE, como autovacuum en una tabla en uso):
+ * un Seq Scan significa que el índice no le conviene, no solo que no existe.
+ */
+@SpringBootTest
+@Slf4j
+@EnabledIfSystemProperty(named = "planes.url", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PlanesConsultaTest {
+
+    private static final int PRODUCTOS = 20_000;
+    private static final int CLIENTES = 5_000;
+    private static final int VENTAS = 50_000;
+    private static final int CATEGORIAS = 40;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", () -> System.getProperty("planes.url"));
+        registro.add("spring.datasource.username", () -> System.getProperty("planes.usuario", "postgres"));
+        registro.add("spring.datasource.password", () -> System.getProperty("planes.contrasena", ""));
+        registro.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registro.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registro.add("spring.jpa.defer-datasource-initialization", () -> "true");
+        registro.add("spring.sql.init.mode", () -> "always");
+        registro.add("spring.sql.init.platform", () -> "postgresql");
+        registro.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                CapturaSql.class::getName);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @BeforeAll
+    void sembrarDatos() {
+        Random random = new Random(42);
+
+        List<Object[]> productos = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            // 10% agotados, 10% con pocas unidades, el resto disponibles
+            int banda = random.nextInt(10);
+            int stock = banda == 0 ? 0 : banda == 1 ? 1 + random.nextInt(3) : 4 + random.nextInt(200);
+            productos.add(new Object[]{"Producto " + i, "categoria-" + random.nextInt(CATEGORIAS), stock});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO productos (nombre, categoria, precio, stock, version, " +
+                "fecha_modificacion) VALUES (?, ?, 1000, ?, 0, CURRENT_TIMESTAMP)", productos);
+
+        List<Object[]> clientes = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.add(new Object[]{"Cliente" + i + "@Planes.cl"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO clientes (nombre, apellido, email, activo, fecha_registro) " +
+                "VALUES ('Cliente', 'Planes', ?, true, CURRENT_TIMESTAMP)", clientes);
+
+        List<Long> idsClientes = jdbcTemplate.queryForList("SELECT id_cliente FROM clientes", Long.class);
+        EstadoVenta[] estados = EstadoVenta.values();
+        List<Object[]> ventas = new ArrayList<>(VENTAS);
+        for (int i = 0; i < VENTAS; i++) {
+            ventas.add(new Object[]{idsClientes.get(random.nextInt(idsClientes.size())),
+                    estados[random.nextInt(estados.length)].name()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ventas (id_cliente, fecha_venta, total, estado) " +
+                "VALUES (?, CURRENT_TIMESTAMP, 1000, ?)", ventas);
+
+        // Lo que hace autovacuum en una tabla en uso: estadísticas y mapa de visibilidad (index-only scans)
+        jdbcTemplate.execute("VACUUM ANALYZE productos");
+        jdbcTemplate.execute("VACUUM ANALYZE clientes");
+        jdbcTemplate.execute("VACUUM ANALYZE ventas");
+    }
+
+    // ============================================================
+    // PRODUCTOS
+    // ============================================================
+
+    @Test
+    void productosPorCategoria() {
+        assertUsaIndice(() -> productoRepository.findByCategoria("categoria-7"), "categoria-7");
+    }
+
+    @Test
+    void productosConStockMayorQue() {
+        assertUsaIndice(() -> productoRepository.findByStockGreaterThan(150), 150);
+    }
+
+    @Test
+    void productosAgotados() {
+        assertUsaIndice(() -> productoRepository.findByStock(0), 0);
+    }
+
+    @Test
+    void productosConPocasUnidades() {
+        assertUsaIndice(() -> productoRepository.findProductosConPocasUnidades(3), 3);
+    }
+
+    @Test
+    void productosDisponiblesPorCategoria() {
+        assertUsaIndice(() -> productoRepository.findByCategoriaAndDisponible("categoria-7"), "categoria-7");
+    }
+
+    @Test
+    void contarProductosDisponibles() {
+        assertUsaIndice(() -> productoRepository.countProductosDisponibles());
+    }
+
+    // ============================================================
+    // VENTAS
+    // ============================================================
+
+    @Test
+    void ventasPorCliente() {
+        Long idCliente = primerCliente();
+        assertUsaIndice(() -> ventaRepository.findByCliente_IdCliente(idCliente), idCliente);
+    }
+
+    @Test
+    void ventasPorEstado() {
+        assertUsaIndice(() -> ventaRepository.findByEstado(EstadoVenta.CANCELADA), EstadoVenta.CANCELADA.name());
+    }
+
+    @Test
+    void totalVentasPorCliente() {
+        Long idCliente = primerCliente();
+        assertUsaIndice(() -> ventaRepository.calcularTotalVentasPorCliente(idCliente), idCliente);
+    }
+
+    // ============================================================
+    // CLIENTES
+    // ============================================================
+
+    @Test
+    void clientePorEmailIgnorandoMayusculas() {
+        assertUsaIndice(() -> clienteRepository.findByEmailIgnoreCase("cliente7@planes.cl"), "cliente7@planes.cl");
+    }
+
+    @Test
+    void existeEmailIgnorandoMayusculas() {
+        assertUsaIndice(() -> clienteRepository.existsByEmailIgnoreCase("cliente7@planes.cl"), "cliente7@planes.cl");
+    }
+
+    @Test
+    void clienteActivoPorEmail() {
+        assertUsaIndice(() -> clienteRepository.findByEmailIgnoreCaseAndActivoTrue("cliente7@planes.cl"),
+                "cliente7@planes.cl");
+    }
+
+    // ============================================================
+    // UTILIDADES
+    // ============================================================
+
+    /**
+     * Ejecuta el finder, toma la primera sentencia que generó Hibernate y revisa su plan
+     *
+     * @param parametros valores de los "?" de la sentencia, en orden
+     */
+    private void assertUsaIndice(Runnable finder, Object... parametros) {
+        CapturaSql.SENTENCIAS.clear();
+        finder.run();
+        assertThat(CapturaSql.SENTENCIAS).as("sentencias generadas por el finder").isNotEmpty();
+
+        String sql = CapturaSql.SENTENCIAS.get(0);
+        assertThat(sql.chars().filter(c -> c == '?').count())
+                .as("parámetros de la sentencia: %s", sql)
+                .isEqualTo(parametros.length);
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parametros));
+        log.info("Plan de {}\n{}", sql, plan);
+        assertThat(plan).as("plan de: %s", sql).doesNotContain("Seq Scan");
+    }
+
+    private Long primerCliente() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id_cliente) FROM clientes", Long.class);
+    }
+
+    /**
+     * Registra las sentencias SQL que Hibernate envía a la base de datos
+     */
+    public static class CapturaSql implements StatementInspector {
+
+        static final List<String> SENTENCIAS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SENTENCIAS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce_backend.security.limite;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el token bucket GCRA de LimitadorTasa con un reloj controlado: ráfaga inicial,
+ * recuperación de tokens, espera informada y el comportamiento con la franja llena
+ * (desalojo de la clave más antigua o rechazo).
+ */
+class LimitadorTasaTest {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+    // 6 por minuto: un token cada 10 segundos
+    private static final long INTERVALO = 10 * SEGUNDO;
+    private static final long INICIO = 1_000 * SEGUNDO;
+
+    @Test
+    void permiteUnaRafagaDeCapacidadYLuegoRechaza() {
+        LimitadorTasa limitador = new LimitadorTasa(3, 6, 100, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limitador.consumir("a", INICIO), "Solicitud " + i + " de la ráfaga");
+        }
+        assertEquals(INTERVALO, limitador.consumir("a", INICIO));
+        // Otra clave tiene su propio bucket
+        assertEquals(0, limitador.consumir("b", INICIO));
+    }
+
+    @Test
+    void recuperaUnTokenPorIntervalo() {
+        LimitadorTasa limitador = new LimitadorTasa(3, 6, 100, 1);
+        for (int i = 0; i < 3; i++) {
+            limitador.consumir("a", INICIO);
+        }
+
+        assertEquals(4 * SEGUNDO, limitador.consumir("a", INICIO + 6 * SEGUNDO));
+        assertEquals(0, limitador.consumir("a", INICIO + INTERVALO));
+        assertTrue(limitador.consumir("a", INICIO + INTERVALO) > 0);
+
+        // Con el bucket lleno de nuevo vuelve a permitir la ráfaga completa, no más
+        long lleno = INICIO + 10 * INTERVALO;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limitador.consumir("a", lleno));
+        }
+        assertTrue(limitador.consumir("a", lleno) > 0);
+    }
+
+    @Test
+    void conLaFranjaLlenaRechazaClavesNuevasMientrasLaMasAntiguaNoSeLlene() {
+        LimitadorTasa limitador = new LimitadorTasa(1, 6, 2, 1);
+        limitador.consumir("a", INICIO);
+        limitador.consumir("b", INICIO + SEGUNDO);
+
+        // El bucket de "a" se llena en INICIO + INTERVALO
+        assertEquals(INTERVALO - 5 * SEGUNDO, limitador.consumir("c", INICIO + 5 * SEGUNDO));
+        assertEquals(2, limitador.cantidadClaves());
+
+        // Lleno: "a" se desaloja y "c" entra
+        assertEquals(0, limitador.consumir("c", INICIO + INTERVALO));
+        assertEquals(2, limitador.cantidadClaves());
+        // "b" conserva su estado: sigue sin tokens
+        assertTrue(limitador.consumir("b", INICIO + INTERVALO) > 0);
+    }
+
+    @Test
+    void limpiarDescartaSoloLosBucketsLlenos() {
+        LimitadorTasa limitador = new LimitadorTasa(1, 6, 100, 4);
+        limitador.consumir("a", INICIO);
+        limitador.consumir("b", INICIO + INTERVALO);
+
+        limitador.limpiar(INICIO + INTERVALO);
+
+        assertEquals(1, limitador.cantidadClaves());
+        assertTrue(limitador.consumir("b", INICIO + INTERVALO) > 0);
+        assertEquals(0, limitador.consumir("a", INICIO + INTERVALO));
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce_backend.security.registro;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica EmailsRegistrados sobre una tabla clientes en H2 (sin contexto de Spring):
+ * normalización del email, emails agregados antes del refresco (también si su transacción
+ * confirma después de la consulta del refresco), emails eliminados después del refresco
+ * y la consulta a la base de datos cuando no hay filtro.
+ */
+class EmailsRegistradosTest {
+
+    private EmbeddedDatabase baseDeDatos;
+    private JdbcTemplate jdbcTemplate;
+    private EmailsRegistrados emails;
+
+    @BeforeEach
+    void crearClientes() {
+        baseDeDatos = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(baseDeDatos);
+        jdbcTemplate.execute("CREATE TABLE clientes (id_cliente BIGINT PRIMARY KEY, email VARCHAR(100))");
+        jdbcTemplate.update("INSERT INTO clientes VALUES (1, 'Ana@Correo.cl'), (2, 'luis@correo.cl')");
+
+        emails = new EmailsRegistrados(jdbcTemplate);
+        emails.cargarAlIniciar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        baseDeDatos.shutdown();
+    }
+
+    @Test
+    void ignoraMayusculasYEspacios() {
+        assertEquals(EmailsRegistrados.clave("ana@correo.cl"), EmailsRegistrados.clave("  ANA@correo.CL "));
+        assertTrue(emails.puedeExistir("ana@correo.cl"));
+        assertTrue(emails.puedeExistir(" LUIS@CORREO.CL"));
+        assertFalse(emails.puedeExistir("nuevo@correo.cl"));
+    }
+
+    @Test
+    void unEmailAgregadoSeVeAntesDelRefresco() {
+        emails.agregar("Nuevo@Correo.cl");
+
+        assertTrue(emails.puedeExistir("nuevo@correo.cl"));
+    }
+
+    @Test
+    void unEmailAgregadoAntesDelRefrescoSobreviveAUnRefresco() {
+        // Agregado antes de que su transacción confirme: el refresco no lo ve en la base de datos
+        emails.agregar("pendiente@correo.cl");
+
+        emails.refrescar();
+        assertTrue(emails.puedeExistir("pendiente@correo.cl"));
+
+        // Nunca se confirmó: el refresco siguiente lo descarta
+        emails.refrescar();
+        assertFalse(emails.puedeExistir("pendiente@correo.cl"));
+    }
+
+    @Test
+    void elRefrescoDescartaLosEmailsEliminados() {
+        jdbcTemplate.update("DELETE FROM clientes WHERE id_cliente = 2");
+        jdbcTemplate.update("INSERT INTO clientes VALUES (3, 'otra@correo.cl')");
+
+        emails.refrescar();
+
+        assertFalse(emails.puedeExistir("luis@correo.cl"));
+        assertTrue(emails.puedeExistir("otra@correo.cl"));
+        assertTrue(emails.puedeExistir("ana@correo.cl"));
+    }
+
+    @Test
+    void sinFiltroCargadoSeConsultaSiempreLaBaseDeDatos() {
+        EmailsRegistrados sinCargar = new EmailsRegistrados(jdbcTemplate);
+        jdbcTemplate.execute("DROP TABLE clientes");
+
+        assertTrue(sinCargar.puedeExistir("cualquiera@correo.cl"));
+        // El filtro ya cargado se mantiene si el refresco falla
+        emails.refrescar();
+        assertFalse(emails.puedeExistir("nuevo@correo.cl"));
+        assertTrue(emails.puedeExistir("ana@correo.cl"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce_backend.security.registro;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que FiltroBloom no tenga falsos negativos (tampoco con inserciones concurrentes)
+ * y que la tasa de falsos positivos quede cerca de la buscada.
+ */
+class FiltroBloomTest {
+
+    private static final int ELEMENTOS = 10_000;
+
+    @Test
+    void unFiltroVacioNoContieneNada() {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, 0.01);
+        for (long clave = 1; clave <= 1_000; clave++) {
+            assertFalse(filtro.puedeContener(clave));
+        }
+    }
+
+    @Test
+    void sinFalsosNegativosYConLaTasaDeFalsosPositivosBuscada() {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, 0.01);
+        for (long clave = 1; clave <= ELEMENTOS; clave++) {
+            filtro.agregar(clave);
+        }
+
+        for (long clave = 1; clave <= ELEMENTOS; clave++) {
+            assertTrue(filtro.puedeContener(clave), "Falso negativo para " + clave);
+        }
+
+        int falsosPositivos = 0;
+        int consultas = 100_000;
+        for (long clave = ELEMENTOS + 1; clave <= ELEMENTOS + consultas; clave++) {
+            if (filtro.puedeContener(clave)) {
+                falsosPositivos++;
+            }
+        }
+        double tasa = (double) falsosPositivos / consultas;
+        assertTrue(tasa < 0.02, "Tasa de falsos positivos " + tasa);
+    }
+
+    @Test
+    void agregarDesdeVariosHilosNoPierdeBits() throws InterruptedException {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS * 4, 0.01);
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < 4; h++) {
+            long desde = (long) h * ELEMENTOS;
+            hilos.add(Thread.ofPlatform().start(() -> {
+                for (long clave = desde; clave < desde + ELEMENTOS; clave++) {
+                    filtro.agregar(clave);
+                }
+            }));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+
+        for (long clave = 0; clave < ELEMENTOS * 4L; clave++) {
+            assertTrue(filtro.puedeContener(clave), "Falso negativo para " + clave);
+        }
+    }
+}
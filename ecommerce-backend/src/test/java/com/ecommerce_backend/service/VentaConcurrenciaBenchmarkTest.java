@@ -0,0 +1,119 @@
+package com.ecommerce_backend.service;
+
+import com.ecommerce_backend.dto.DetalleVentaRequestDTO;
+import com.ecommerce_backend.dto.VentaRequestDTO;
+import com.ecommerce_backend.model.Cliente;
+import com.ecommerce_backend.model.Producto;
+import com.ecommerce_backend.repository.ClienteRepository;
+import com.ecommerce_backend.repository.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de checkout concurrente: N compradores compiten por los mismos SKUs.
+ *
+ * Se ejecuta solo de forma explícita:
+ * mvn test -Dbenchmark=true -Dtest=VentaConcurrenciaBenchmarkTest
+ *
+ * Reporta órdenes/segundo y verifica que no haya sobreventa: el stock final
+ * debe ser exactamente el inicial menos las unidades de las ventas exitosas.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VentaConcurrenciaBenchmarkTest {
+
+    private static final int ORDENES_POR_COMPRADOR = 50;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @ParameterizedTest(name = "{0} compradores")
+    @ValueSource(ints = {8, 16, 32, 64})
+    void procesarVentaConCompradoresConcurrentes(int compradores) throws Exception {
+        int totalOrdenes = compradores * ORDENES_POR_COMPRADOR;
+
+        // Stock para la mitad de la demanda: la otra mitad debe rechazarse sin sobreventa
+        Producto productoA = productoRepository.save(nuevoProducto("SKU caliente A", totalOrdenes / 2));
+        Producto productoB = productoRepository.save(nuevoProducto("SKU caliente B", totalOrdenes / 2));
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Comprador")
+                .apellido("Benchmark")
+                .email("benchmark-" + compradores + "-" + System.nanoTime() + "@test.cl")
+                .build());
+
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(compradores);
+
+        for (int i = 0; i < compradores; i++) {
+            // La mitad de los compradores pide los SKUs en orden inverso para provocar deadlocks
+            boolean invertido = i % 2 == 1;
+            executor.submit(() -> {
+                inicio.await();
+                for (int j = 0; j < ORDENES_POR_COMPRADOR; j++) {
+                    try {
+                        ventaService.procesarVenta(nuevaVenta(cliente, productoA, productoB, invertido));
+                        exitosas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long t0 = System.nanoTime();
+        inicio.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double segundos = (System.nanoTime() - t0) / 1_000_000_000.0;
+
+        int stockFinalA = productoRepository.findById(productoA.getIdProducto()).orElseThrow().getStock();
+        int stockFinalB = productoRepository.findById(productoB.getIdProducto()).orElseThrow().getStock();
+
+        log.info("[benchmark] compradores={} ordenes={} exitosas={} rechazadas={} ordenes/s={} stockFinal=({},{})",
+                compradores, totalOrdenes, exitosas.get(), rechazadas.get(),
+                String.format("%.1f", totalOrdenes / segundos), stockFinalA, stockFinalB);
+
+        assertThat(stockFinalA).isEqualTo(productoA.getStock() - exitosas.get());
+        assertThat(stockFinalB).isEqualTo(productoB.getStock() - exitosas.get());
+        assertThat(stockFinalA).isGreaterThanOrEqualTo(0);
+    }
+
+    private Producto nuevoProducto(String nombre, int stock) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setCategoria("benchmark");
+        producto.setPrecio(new BigDecimal("1000.00"));
+        producto.setStock(stock);
+        return producto;
+    }
+
+    private VentaRequestDTO nuevaVenta(Cliente cliente, Producto a, Producto b, boolean invertido) {
+        DetalleVentaRequestDTO lineaA = new DetalleVentaRequestDTO(a.getIdProducto(), 1);
+        DetalleVentaRequestDTO lineaB = new DetalleVentaRequestDTO(b.getIdProducto(), 1);
+        return new VentaRequestDTO(cliente.getIdCliente(), invertido ? List.of(lineaB, lineaA) : List.of(lineaA, lineaB));
+    }
+}
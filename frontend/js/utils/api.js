@@ -163,6 +163,35 @@ async function apiRequest(endpoint, options = {}) {
     }
 }
 
+/**
+ * Recorre todas las páginas de un endpoint paginado por cursor
+ * y devuelve el contenido de todas ellas en un solo arreglo
+ * 
+ * @param {string} endpoint - Ruta del endpoint (puede incluir query string)
+ * @returns {Promise<Array>} - Elementos de todas las páginas
+ * 
+ * @example
+ * const productos = await apiRequestTodasLasPaginas("/api/productos");
+ */
+async function apiRequestTodasLasPaginas(endpoint) {
+    const separador = endpoint.includes("?") ? "&" : "?";
+    const elementos = [];
+    let cursor = null;
+    
+    do {
+        const url = cursor
+            ? `${endpoint}${separador}limite=500&cursor=${encodeURIComponent(cursor)}`
+            : `${endpoint}${separador}limite=500`;
+        const response = await apiRequest(url, { method: "GET" });
+        const pagina = response.data || {};
+        
+        elementos.push(...(pagina.contenido || []));
+        cursor = pagina.siguienteCursor;
+    } while (cursor);
+    
+    return elementos;
+}
+
 // ============================================================
 // SERVICIO DE AUTENTICACIÓN
 // ============================================================
@@ -289,10 +318,7 @@ const productoService = {
      * const productos = await productoService.getAll();
      */
     async getAll() {
-        const response = await apiRequest("/api/productos", {
-            method: "GET"
-        });
-        return response.data || [];
+        return apiRequestTodasLasPaginas("/api/productos");
     },
     
     /**
@@ -315,10 +341,7 @@ const productoService = {
      * @returns {Promise<Array>} - Lista de productos
      */
     async getByCategory(categoria) {
-        const response = await apiRequest(`/api/productos/categoria/${categoria}`, {
-            method: "GET"
-        });
-        return response.data || [];
+        return apiRequestTodasLasPaginas(`/api/productos/categoria/${categoria}`);
     },
     
     /**
@@ -328,10 +351,7 @@ const productoService = {
      * @returns {Promise<Array>} - Lista de productos
      */
     async search(nombre) {
-        const response = await apiRequest(`/api/productos/buscar?nombre=${encodeURIComponent(nombre)}`, {
-            method: "GET"
-        });
-        return response.data || [];
+        return apiRequestTodasLasPaginas(`/api/productos/buscar?nombre=${encodeURIComponent(nombre)}`);
     },
     
     /**
@@ -340,12 +360,60 @@ const productoService = {
      * @returns {Promise<Array>} - Lista de productos disponibles
      */
     async getAvailable() {
-        const response = await apiRequest("/api/productos/disponibles", {
+        return apiRequestTodasLasPaginas("/api/productos/disponibles");
+    },
+
+    /**
+     * Consulta el catálogo por facetas (una página y los conteos de cada faceta)
+     *
+     * @param {object} filtros - { categoria: [], precioMin, precioMax, estadoStock: [], disponible, cursor, limite }
+     * @returns {Promise<object>} - { productos, total, categorias, estadosStock, rangosPrecio, disponibilidad }
+     */
+    async getFacetas(filtros = {}) {
+        const params = new URLSearchParams();
+        Object.entries(filtros).forEach(([clave, valor]) => {
+            [].concat(valor)
+                .filter(v => v !== undefined && v !== null && v !== "")
+                .forEach(v => params.append(clave, v));
+        });
+        const response = await apiRequest(`/api/productos/facetas?${params}`, {
             method: "GET"
         });
-        return response.data || [];
+        return response.data;
     },
-    
+
+    /**
+     * Obtiene los productos comprados con más frecuencia junto con uno ("frecuentemente comprados juntos")
+     *
+     * @param {number} id - ID del producto
+     * @param {number} limite - Cantidad de productos (1 a 20)
+     * @returns {Promise<Array>} - Productos relacionados, del más al menos comprado en conjunto
+     */
+    async getRelacionados(id, limite = 5) {
+        const response = await apiRequest(`/api/productos/${id}/relacionados?limite=${limite}`, {
+            method: "GET"
+        });
+        return response.data;
+    },
+
+    /**
+     * Recibe los cambios de stock y precio en vivo (Server-Sent Events), en lugar de
+     * consultar los productos periódicamente. El navegador reconecta solo.
+     *
+     * @param {object} filtros - { productos: [ids], categorias: [nombres] } (vacío: todos)
+     * @param {function} alCambiar - Recibe { idProducto, categoria, precio, stock, estadoStock, disponible }
+     * @returns {EventSource} - Llamar a close() al salir de la página
+     */
+    suscribirCambios({ productos = [], categorias = [] } = {}, alCambiar) {
+        const params = new URLSearchParams();
+        productos.forEach(id => params.append("producto", id));
+        categorias.forEach(categoria => params.append("categoria", categoria));
+
+        const eventos = new EventSource(`${API_BASE_URL}/api/productos/eventos?${params}`);
+        eventos.addEventListener("producto", evento => alCambiar(JSON.parse(evento.data)));
+        return eventos;
+    },
+
     /**
      * Crea un nuevo producto (requiere autenticación)
      * 
@@ -396,10 +464,7 @@ const clienteService = {
      * Obtiene todos los clientes (requiere autenticación)
      */
     async getAll() {
-        const response = await apiRequest("/api/clientes", {
-            method: "GET"
-        });
-        return response.data || [];
+        return apiRequestTodasLasPaginas("/api/clientes");
     },
     
     /**